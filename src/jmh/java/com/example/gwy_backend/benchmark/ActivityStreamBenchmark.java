@@ -0,0 +1,135 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.repository.StudyLogRepository;
+import com.example.gwy_backend.service.ActivityStreamService;
+import com.example.gwy_backend.service.StudyRollupService;
+import com.example.gwy_backend.util.UserContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 一轮统计更新送达所有客户端的耗时：subscribers 个 SSE 连接 (同一用户) 收到推送，
+ * 对比同样数量的客户端各轮询一次 GET /api/activity/stats。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ActivityStreamBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int subscribers;
+
+    private BenchmarkContext context;
+    private ActivityStreamService activityStreamService;
+    private HttpClient client;
+    private URI statsUri;
+    private final AtomicReference<CountDownLatch> received = new AtomicReference<>(new CountDownLatch(0));
+    private final List<CompletableFuture<HttpResponse<Void>>> streams = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkContext.startServer(Map.of(
+                "activity.stream.max-connections", subscribers,
+                "activity.stream.buffer-size", 64,
+                "activity.stream.coalesce-ms", 10));
+        context.getBean(StudyLogRepository.class).saveAll(
+                BenchmarkData.studyLogs(5000, 365, BenchmarkData.DEFAULT_SEED, LocalDate.now().atTime(22, 0)));
+        context.getBean(StudyRollupService.class).rebuild();
+        activityStreamService = context.getBean(ActivityStreamService.class);
+
+        String base = "http://localhost:" + context.getLocalPort();
+        statsUri = URI.create(base + "/api/activity/stats");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // 打开所有连接并等待各自收到第一次推送
+        received.set(new CountDownLatch(subscribers));
+        HttpRequest streamRequest = HttpRequest.newBuilder(URI.create(base + "/api/activity/stream")).GET().build();
+        for (int i = 0; i < subscribers; i++) {
+            streams.add(client.sendAsync(streamRequest, HttpResponse.BodyHandlers.fromLineSubscriber(new StatsEventCounter())));
+        }
+        if (!received.get().await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Not all activity streams received the initial stats event.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        streams.forEach(stream -> stream.cancel(true));
+        context.close();
+    }
+
+    @Benchmark
+    public boolean pushToAllSubscribers() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(subscribers);
+        received.set(latch);
+        activityStreamService.statsChanged(Set.of(UserContext.DEFAULT_USER_ID));
+        return latch.await(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int pollAllClients() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            responses.add(client.sendAsync(HttpRequest.newBuilder(statsUri).GET().build(), HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    // 每收到一个 "stats" 事件计数一次
+    private final class StatsEventCounter implements Flow.Subscriber<String> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("event:") && line.substring("event:".length()).trim().equals("stats")) {
+                received.get().countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
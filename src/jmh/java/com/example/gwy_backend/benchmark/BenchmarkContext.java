@@ -0,0 +1,98 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.GwyBackendApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 启动连接嵌入式 H2 (MySQL 兼容模式) 的完整应用上下文，默认不启动 Web 容器
+ * ({@link #startServer} 在随机端口上启动内嵌 Tomcat)。
+ * 每个基准测试 (每组 @Param) 使用独立的内存数据库和临时上传目录，关闭时一并清理。
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final Path uploadDir;
+
+    private BenchmarkContext(ConfigurableApplicationContext context, Path uploadDir) {
+        this.context = context;
+        this.uploadDir = uploadDir;
+    }
+
+    public static BenchmarkContext start(Map<String, Object> extraProperties) {
+        return start(extraProperties, WebApplicationType.NONE);
+    }
+
+    /**
+     * 同 {@link #start}，另外在随机端口上启动内嵌 Tomcat，端口见 {@link #getLocalPort()}。
+     */
+    public static BenchmarkContext startServer(Map<String, Object> extraProperties) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.putAll(extraProperties);
+        return start(properties, WebApplicationType.SERVLET);
+    }
+
+    private static BenchmarkContext start(Map<String, Object> extraProperties, WebApplicationType webApplicationType) {
+        Path uploadDir;
+        try {
+            uploadDir = Files.createTempDirectory("gwy-bench-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("file.upload-dir", uploadDir.toString());
+        properties.putAll(extraProperties);
+
+        SpringApplication application = new SpringApplication(GwyBackendApplication.class);
+        application.setWebApplicationType(webApplicationType);
+        // 以命令行参数形式传入，优先级高于 application.properties 中的 MySQL 配置
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return new BenchmarkContext(application.run(args), uploadDir);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getLocalPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public Path getUploadDir() {
+        return uploadDir;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        try (Stream<Path> paths = Files.walk(uploadDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
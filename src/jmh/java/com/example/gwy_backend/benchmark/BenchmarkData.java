@@ -0,0 +1,143 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.entity.ErrorLogEntry;
+import com.example.gwy_backend.entity.KnowledgeItem;
+import com.example.gwy_backend.entity.StudyLog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 可复现的基准测试数据生成器：相同的种子和数量总是生成相同的数据，
+ * 这样不同版本之间的结果才有可比性。时间均相对于调用方传入的锚点。
+ */
+public final class BenchmarkData {
+
+    public static final long DEFAULT_SEED = 20240601L;
+
+    private static final String[] SUBJECTS = {"言语理解", "数量关系", "判断推理", "资料分析", "常识判断", "申论"};
+    private static final String[] CATEGORIES = {"政治", "经济", "法律", "历史", "地理", "科技", "公文", "时政"};
+    private static final String[] WORDS = {
+            "行政", "机关", "公务员", "考试", "判断", "推理", "逻辑", "图形", "类比", "定义", "数量", "关系",
+            "工程", "行程", "利润", "排列", "组合", "概率", "资料", "增长率", "比重", "平均数", "言语", "主旨",
+            "细节", "片段", "阅读", "成语", "申论", "归纳", "概括", "对策", "宪法", "民法", "刑法", "行政法",
+            "经济", "宏观", "调控", "财政", "货币", "政策", "乡村", "振兴", "生态", "文明", "科技", "创新",
+            "java", "spring", "index", "2024", "gdp", "cpi"
+    };
+
+    private BenchmarkData() {
+    }
+
+    public static List<ErrorLogEntry> errorLogEntries(int count, long seed, LocalDateTime anchor) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ErrorLogEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ErrorLogEntry entry = new ErrorLogEntry();
+            entry.setId((long) i + 1);
+            entry.setTimestamp(anchor.minusMinutes(random.nextInt(365 * 24 * 60)));
+            entry.setQuestion(sentence(random, 40 + random.nextInt(80)));
+            entry.setSubject(pick(random, SUBJECTS));
+            entry.setMyAnswer(String.valueOf((char) ('A' + random.nextInt(4))));
+            entry.setCorrectAnswer(String.valueOf((char) ('A' + random.nextInt(4))));
+            entry.setKnowledgePoint(pick(random, WORDS) + pick(random, WORDS));
+            entry.setReason(sentence(random, 10 + random.nextInt(40)));
+            entry.setImageFile(random.nextInt(3) == 0 ? "errors/" + Long.toHexString(random.nextLong()) + ".png" : null);
+            entry.setReviewCount(random.nextInt(6));
+            entry.setLastReviewDate(entry.getReviewCount() > 0 ? entry.getTimestamp().plusDays(random.nextInt(30)) : null);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    public static List<KnowledgeItem> knowledgeItems(int count, long seed, LocalDateTime anchor) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<KnowledgeItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            KnowledgeItem item = new KnowledgeItem();
+            item.setId((long) i + 1);
+            item.setTimestamp(anchor.minusMinutes(random.nextInt(365 * 24 * 60)));
+            item.setTitle(sentence(random, 3 + random.nextInt(6)));
+            item.setCategory(pick(random, CATEGORIES));
+            item.setContent(sentence(random, 100 + random.nextInt(400)));
+            List<String> tags = new ArrayList<>();
+            for (int t = random.nextInt(4); t > 0; t--) {
+                tags.add(pick(random, WORDS));
+            }
+            item.setTags(tags);
+            item.setExternalLink(random.nextInt(4) == 0 ? "https://example.com/k/" + i : null);
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * 过去 days 天内的学习日志，每条 5 ~ 60 分钟。
+     */
+    public static List<StudyLog> studyLogs(int count, int days, long seed, LocalDateTime anchor) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<StudyLog> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = anchor.minusDays(random.nextInt(days)).minusMinutes(random.nextInt(16 * 60));
+            long duration = (5 + random.nextInt(56)) * 60L;
+            StudyLog studyLog = new StudyLog();
+            studyLog.setStartTime(start);
+            studyLog.setEndTime(start.plusSeconds(duration));
+            studyLog.setDurationSeconds(duration);
+            studyLog.setSource(random.nextInt(5) == 0 ? "manual" : "pomodoro");
+            logs.add(studyLog);
+        }
+        return logs;
+    }
+
+    /**
+     * 知识库搜索用的查询词 (从同一词表中取，保证有命中)。
+     */
+    public static List<String> searchTerms(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> terms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            terms.add(random.nextInt(3) == 0 ? pick(random, WORDS) + " " + pick(random, WORDS) : pick(random, WORDS));
+        }
+        return terms;
+    }
+
+    /**
+     * 指定大小的伪随机字节 (不可压缩，接近真实图片)。
+     */
+    public static byte[] bytes(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i += 8) {
+            long value = random.nextLong();
+            for (int b = 0; b < 8 && i + b < size; b++) {
+                data[i + b] = (byte) (value >>> (b * 8));
+            }
+        }
+        return data;
+    }
+
+    private static String sentence(SplittableRandom random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = pick(random, WORDS);
+            if (builder.length() > 0 && !isCjk(word)) {
+                builder.append(' ');
+            }
+            builder.append(word);
+            if (random.nextInt(12) == 0) {
+                builder.append('，');
+            }
+        }
+        return builder.append('。').toString();
+    }
+
+    private static boolean isCjk(String word) {
+        return Character.UnicodeScript.of(word.codePointAt(0)) == Character.UnicodeScript.HAN;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
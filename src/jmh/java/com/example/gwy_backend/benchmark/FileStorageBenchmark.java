@@ -0,0 +1,96 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.dto.FileMetadata;
+import com.example.gwy_backend.service.FileMetadataService;
+import com.example.gwy_backend.service.FileStorageStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LocalStorageStrategy 的写入与读取，覆盖两种存储模式和几种典型文件大小。
+ * 写入测量的是每次都写新内容 (uuid 模式) 或重复内容 (内容寻址模式下命中去重) 的情况，
+ * 每次调用后删除写入的文件，磁盘占用不会随测试时长增长。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    @Param({"uuid", "content-addressed"})
+    public String storageMode;
+
+    @Param({"16", "512", "8192"})
+    public int sizeKb;
+
+    private BenchmarkContext context;
+    private FileStorageStrategy storage;
+    private FileMetadataService fileMetadataService;
+    private MockMultipartFile upload;
+    private String storedIdentifier; // 读取测试用的已存储文件
+    private String lastWritten;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of("file.storage.mode", storageMode));
+        storage = context.getBean(FileStorageStrategy.class);
+        fileMetadataService = context.getBean(FileMetadataService.class);
+        byte[] content = BenchmarkData.bytes(sizeKb * 1024, BenchmarkData.DEFAULT_SEED);
+        upload = new MockMultipartFile("file", "screenshot.png", "image/png", content);
+        storedIdentifier = storage.storeFile(upload, "errors");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteWritten() {
+        if (lastWritten != null) {
+            storage.deleteFile(lastWritten, null);
+            lastWritten = null;
+        }
+    }
+
+    @Benchmark
+    public String storeFile() {
+        lastWritten = storage.storeFile(upload, "errors");
+        return lastWritten;
+    }
+
+    @Benchmark
+    public long loadFileAsResource() throws IOException {
+        Resource resource = storage.loadFileAsResource(storedIdentifier, null);
+        try (InputStream in = resource.getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public Optional<FileMetadata> fileMetadata() {
+        return fileMetadataService.getMetadata(storedIdentifier);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.entity.ErrorLogEntry;
+import com.example.gwy_backend.entity.KnowledgeItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大列表的 JSON 序列化 (列表接口的主要 CPU 开销)。ObjectMapper 的配置与应用中的一致
+ * (Java 8 时间类型、日期不输出为时间戳)，不需要启动应用上下文。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final LocalDateTime ANCHOR = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Param({"100", "1000", "10000"})
+    public int count;
+
+    private ObjectMapper objectMapper;
+    private List<ErrorLogEntry> errorLogs;
+    private List<KnowledgeItem> knowledgeItems;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new Jackson2ObjectMapperBuilder()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        errorLogs = BenchmarkData.errorLogEntries(count, BenchmarkData.DEFAULT_SEED, ANCHOR);
+        knowledgeItems = BenchmarkData.knowledgeItems(count, BenchmarkData.DEFAULT_SEED, ANCHOR);
+    }
+
+    @Benchmark
+    public byte[] errorLogsToBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(errorLogs);
+    }
+
+    @Benchmark
+    public byte[] knowledgeItemsToBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(knowledgeItems);
+    }
+
+    /** 直接写入输出流 (与 HTTP 响应写出方式相同)，不在内存中拼出完整结果。 */
+    @Benchmark
+    public void errorLogsToStream() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), errorLogs);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.dto.KnowledgeItemSummary;
+import com.example.gwy_backend.entity.KnowledgeItem;
+import com.example.gwy_backend.repository.KnowledgeItemRepository;
+import com.example.gwy_backend.search.BigramTokenizer;
+import com.example.gwy_backend.service.KnowledgeService;
+import com.example.gwy_backend.util.UserContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识库搜索：查询分词、内存倒排索引搜索 (含按 ID 回表) 与原先的 LIKE 查询对比。
+ * 查询词按固定顺序轮换，每次调用使用下一个。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KnowledgeSearchBenchmark {
+
+    private static final LocalDateTime ANCHOR = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Param({"1000", "10000"})
+    public int itemCount;
+
+    private BenchmarkContext context;
+    private KnowledgeService knowledgeService;
+    private KnowledgeItemRepository knowledgeItemRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private List<String> terms;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        knowledgeService = context.getBean(KnowledgeService.class);
+        knowledgeItemRepository = context.getBean(KnowledgeItemRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        List<KnowledgeItem> items = BenchmarkData.knowledgeItems(itemCount, BenchmarkData.DEFAULT_SEED, ANCHOR);
+        items.forEach(item -> item.setId(null));
+        knowledgeItemRepository.saveAll(items);
+        knowledgeService.rebuildSearchIndex();
+        terms = BenchmarkData.searchTerms(256, BenchmarkData.DEFAULT_SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String nextTerm() {
+        String term = terms.get(next);
+        next = (next + 1) % terms.size();
+        return term;
+    }
+
+    @Benchmark
+    public List<BigramTokenizer.Token> tokenizeQuery() {
+        return BigramTokenizer.tokenizeQuery(nextTerm());
+    }
+
+    // 基准线程没有经过 UserIdFilter，显式绑定默认用户
+    @Benchmark
+    public List<KnowledgeItemSummary> indexSearch() {
+        String term = nextTerm();
+        return UserContext.callAs(UserContext.DEFAULT_USER_ID, () -> knowledgeService.getKnowledgeItems(null, term));
+    }
+
+    @Benchmark
+    public List<KnowledgeItemSummary> indexSearchWithCategory() {
+        String term = nextTerm();
+        return UserContext.callAs(UserContext.DEFAULT_USER_ID, () -> knowledgeService.getKnowledgeItems("经济", term));
+    }
+
+    @Benchmark
+    public List<KnowledgeItemSummary> likeQuerySearch() {
+        String term = nextTerm();
+        return readOnlyTransaction.execute(status -> knowledgeItemRepository.searchByTermOrderByTimestampDesc(UserContext.DEFAULT_USER_ID, term));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.entity.KnowledgeItem;
+import com.example.gwy_backend.repository.KnowledgeItemRepository;
+import com.example.gwy_backend.service.KnowledgeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轮询 GET /api/knowledge 时响应缓存的效果：通过真实的 HTTP 连接，对比关闭缓存、命中缓存返回完整响应体
+ * 以及带 If-None-Match 命中返回 304 三种情况。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCacheBenchmark {
+
+    private static final LocalDateTime ANCHOR = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @Param({"true", "false"})
+    public boolean responseCache;
+
+    @Param({"200", "2000"})
+    public int itemCount;
+
+    private BenchmarkContext context;
+    private HttpClient client;
+    private URI listUri;
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = BenchmarkContext.startServer(Map.of("cache.responses.enabled", responseCache));
+        List<KnowledgeItem> items = BenchmarkData.knowledgeItems(itemCount, BenchmarkData.DEFAULT_SEED, ANCHOR);
+        items.forEach(item -> item.setId(null));
+        context.getBean(KnowledgeItemRepository.class).saveAll(items);
+        context.getBean(KnowledgeService.class).rebuildSearchIndex();
+
+        listUri = URI.create("http://localhost:" + context.getLocalPort() + "/api/knowledge");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // 第一次请求写入缓存，同时取得 ETag (关闭缓存时没有 ETag)
+        etag = client.send(HttpRequest.newBuilder(listUri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .headers().firstValue("ETag").orElse(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] fullResponse() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(listUri).GET().build(), 200).body();
+    }
+
+    @Benchmark
+    public byte[] conditionalRequest() throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(listUri).GET();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return send(request.build(), etag != null ? 304 : 200).body();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("Unexpected HTTP status " + response.statusCode());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.repository.StudyLogRepository;
+import com.example.gwy_backend.service.DailyActivityLogService;
+import com.example.gwy_backend.service.StudyRollupService;
+import com.example.gwy_backend.util.UserContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DailyActivityLogServiceImpl 的统计聚合：统计接口读取预聚合表，
+ * 另外测量从 study_log 全量重建聚合表的代价作为对照。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsAggregationBenchmark {
+
+    @Param({"1000", "20000"})
+    public int logCount;
+
+    private BenchmarkContext context;
+    private DailyActivityLogService dailyActivityLogService;
+    private StudyRollupService studyRollupService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        dailyActivityLogService = context.getBean(DailyActivityLogService.class);
+        studyRollupService = context.getBean(StudyRollupService.class);
+        context.getBean(StudyLogRepository.class).saveAll(
+                BenchmarkData.studyLogs(logCount, 365, BenchmarkData.DEFAULT_SEED, LocalDate.now().atTime(22, 0)));
+        studyRollupService.rebuild();
+        UserContext.runAs(UserContext.DEFAULT_USER_ID, () -> dailyActivityLogService.addOnlineDuration(LocalDate.now(), 3600));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 基准线程没有经过 UserIdFilter，显式绑定默认用户
+    @Benchmark
+    public Map<String, Long> activityStats() {
+        return UserContext.callAs(UserContext.DEFAULT_USER_ID, dailyActivityLogService::getActivityStats);
+    }
+
+    @Benchmark
+    public long averageDailyStudyTime() {
+        return UserContext.callAs(UserContext.DEFAULT_USER_ID, () -> dailyActivityLogService.getAverageDailyStudyTime(30));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int rebuildRollups() {
+        return studyRollupService.rebuild();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.repository.StudyLogRepository;
+import com.example.gwy_backend.service.FileStorageStrategy;
+import com.example.gwy_backend.service.StudyRollupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台线程池与虚拟线程两种请求执行模式的对比：通过真实的 HTTP 连接发送混合流量
+ * (心跳 ping 70%、学习统计 20%、文件下载 10%)，每次调用并发发出一批请求并等待全部完成。
+ * idleClients 个连接在准备阶段各发送一次心跳后保持 keep-alive 空闲，模拟大量挂着的心跳客户端。
+ * <p>
+ * virtual 模式需要在 Java 21+ 上运行 (例如 {@code -Djmh.args="-jvm /path/to/jdk21/bin/java"})。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadModeLoadBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 256;
+    private static final int DOWNLOAD_SIZE = 256 * 1024;
+    private static final String PING_BODY = "{\"durationSeconds\":30}";
+
+    @Param({"platform", "virtual"})
+    public String threadMode;
+
+    @Param({"0", "2000"})
+    public int idleClients;
+
+    private BenchmarkContext context;
+    private HttpClient client;
+    private URI pingUri;
+    private URI statsUri;
+    private URI downloadUri;
+    private final List<Socket> idleSockets = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean virtual = "virtual".equals(threadMode);
+        if (virtual && Runtime.version().feature() < 21) {
+            // Java 17 上 Spring Boot 会忽略 spring.threads.virtual.enabled，结果与 platform 相同，没有对比意义
+            throw new IllegalStateException("Virtual thread mode requires Java 21+, running on " + Runtime.version());
+        }
+        context = BenchmarkContext.startServer(Map.of("spring.threads.virtual.enabled", virtual));
+
+        context.getBean(StudyLogRepository.class).saveAll(
+                BenchmarkData.studyLogs(5000, 365, BenchmarkData.DEFAULT_SEED, LocalDate.now().atTime(22, 0)));
+        context.getBean(StudyRollupService.class).rebuild();
+        String fileIdentifier = context.getBean(FileStorageStrategy.class).storeFile(new MockMultipartFile(
+                "file", "notes.pdf", "application/pdf", BenchmarkData.bytes(DOWNLOAD_SIZE, BenchmarkData.DEFAULT_SEED)), "knowledge");
+
+        String base = "http://localhost:" + context.getLocalPort();
+        pingUri = URI.create(base + "/api/activity/ping");
+        statsUri = URI.create(base + "/api/activity/stats");
+        downloadUri = URI.create(base + "/api/files/download/" + fileIdentifier);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        for (int i = 0; i < idleClients; i++) {
+            idleSockets.add(openIdleHeartbeatConnection(context.getLocalPort()));
+        }
+    }
+
+    // 发送一次心跳后不再发送请求，也不关闭连接 (keep-alive)
+    private static Socket openIdleHeartbeatConnection(int port) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        byte[] body = PING_BODY.getBytes(StandardCharsets.UTF_8);
+        String head = "POST /api/activity/ping HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: " + body.length + "\r\n" +
+                "Connection: keep-alive\r\n\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+        return socket;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (Socket socket : idleSockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        idleSockets.clear();
+        context.close();
+    }
+
+    private HttpRequest nextRequest() {
+        int slot = next;
+        next = (next + 1) % 10;
+        if (slot < 7) {
+            return HttpRequest.newBuilder(pingUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(PING_BODY))
+                    .build();
+        }
+        return HttpRequest.newBuilder(slot < 9 ? statsUri : downloadUri).GET().build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public int mixedTraffic() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(client.sendAsync(nextRequest(), HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            int status = response.join().statusCode();
+            if (status >= 200 && status < 300) {
+                ok++;
+            } else {
+                throw new IllegalStateException("Unexpected HTTP status " + status);
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.gwy_backend.benchmark;
+
+import com.example.gwy_backend.dto.CursorPage;
+import com.example.gwy_backend.dto.ErrorStatSummary;
+import com.example.gwy_backend.entity.ErrorLogEntry;
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.repository.ErrorLogEntryRepository;
+import com.example.gwy_backend.repository.StudyLogRepository;
+import com.example.gwy_backend.service.ErrorLogService;
+import com.example.gwy_backend.service.ErrorStatsService;
+import com.example.gwy_backend.service.PomodoroService;
+import com.example.gwy_backend.util.UserContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户隔离后的单用户查询：每个用户的数据量固定，用户数增加时单次查询耗时应基本不变
+ * (查询都走以 userId 开头的复合索引)。用户按固定顺序轮换，每次调用使用下一个。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPartitionBenchmark {
+
+    private static final LocalDateTime ANCHOR = LocalDateTime.of(2024, 6, 1, 12, 0);
+    private static final int ERRORS_PER_USER = 100;
+    private static final int LOGS_PER_USER = 200;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10", "100", "500"})
+    public int userCount;
+
+    private BenchmarkContext context;
+    private ErrorLogService errorLogService;
+    private ErrorStatsService errorStatsService;
+    private PomodoroService pomodoroService;
+    private List<String> users;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        errorLogService = context.getBean(ErrorLogService.class);
+        errorStatsService = context.getBean(ErrorStatsService.class);
+        pomodoroService = context.getBean(PomodoroService.class);
+        ErrorLogEntryRepository errorLogEntryRepository = context.getBean(ErrorLogEntryRepository.class);
+        StudyLogRepository studyLogRepository = context.getBean(StudyLogRepository.class);
+
+        users = new ArrayList<>(userCount);
+        for (int u = 0; u < userCount; u++) {
+            String userId = "bench-user-" + u;
+            users.add(userId);
+            // 每个用户使用不同的种子，数据分布相同但内容不同
+            List<ErrorLogEntry> entries = BenchmarkData.errorLogEntries(ERRORS_PER_USER, BenchmarkData.DEFAULT_SEED + u, ANCHOR);
+            entries.forEach(entry -> {
+                entry.setId(null);
+                entry.setUserId(userId);
+            });
+            errorLogEntryRepository.saveAll(entries);
+            List<StudyLog> logs = BenchmarkData.studyLogs(LOGS_PER_USER, 365, BenchmarkData.DEFAULT_SEED + u, ANCHOR);
+            logs.forEach(studyLog -> studyLog.setUserId(userId));
+            studyLogRepository.saveAll(logs);
+        }
+        errorStatsService.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String nextUser() {
+        String userId = users.get(next);
+        next = (next + 1) % users.size();
+        return userId;
+    }
+
+    @Benchmark
+    public CursorPage<ErrorLogEntry> errorLogFirstPage() {
+        return UserContext.callAs(nextUser(), () -> errorLogService.getErrorLogPage(null, null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<ErrorLogEntry> dueForReview() {
+        return UserContext.callAs(nextUser(), () -> errorLogService.getDueForReview(null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<ErrorStatSummary> errorStats() {
+        return UserContext.callAs(nextUser(), () -> errorStatsService.getStats(null));
+    }
+
+    @Benchmark
+    public CursorPage<StudyLog> studyLogFirstPage() {
+        return UserContext.callAs(nextUser(), () -> pomodoroService.getStudyLogPage(null, PAGE_SIZE));
+    }
+}
@@ -3,9 +3,11 @@ package com.example.gwy_backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync; // <<< 导入
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync // <<< 添加注解以启用异步事件处理
+@EnableScheduling // 启用定时任务 (在线时长缓冲定时刷新等)
 public class GwyBackendApplication {
 
 	public static void main(String[] args) {
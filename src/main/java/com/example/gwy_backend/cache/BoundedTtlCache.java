@@ -0,0 +1,149 @@
+package com.example.gwy_backend.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程内的有界缓存：条目数超过上限时淘汰最久未访问的条目 (LRU)，条目写入后超过 TTL 即失效。
+ * <p>
+ * 线程安全，内部用一把锁保护访问顺序链表；记录命中、未命中、容量淘汰和过期次数。
+ * 适合数量少、读多写少的数据 (设置、元数据等)，不适合大对象或高并发写入。
+ */
+public class BoundedTtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) { }
+
+    /**
+     * 缓存统计快照。
+     */
+    public record Stats(int size, int maxSize, long ttlMillis, long hits, long misses, long evictions, long expirations) {
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public BoundedTtlCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder = true：get 会把条目移到链表尾部，头部即最久未访问的条目
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return 缓存的值；不存在或已过期时返回 null
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cache values must not be null");
+        }
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 不存在 (或已过期) 时写入。
+     * @return 已有的未过期值；写入成功时返回 null
+     */
+    public V putIfAbsent(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cache values must not be null");
+        }
+        lock.lock();
+        try {
+            Entry<V> existing = entries.get(key);
+            if (existing != null && !isExpired(existing)) {
+                return existing.value();
+            }
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return new Stats(size, maxSize, ttlNanos / 1_000_000, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private static boolean isExpired(Entry<?> entry) {
+        return System.nanoTime() - entry.expiresAtNanos() >= 0;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.gwy_backend.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 把 {@link BoundedTtlCache} 适配为 Spring {@link org.springframework.cache.Cache}，
+ * 以便在 Service 上使用 {@code @Cacheable} / {@code @CacheEvict}。不缓存 null。
+ */
+public class BoundedTtlSpringCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final BoundedTtlCache<Object, Object> store;
+    private final ReentrantLock loadLock = new ReentrantLock(); // 仅用于 @Cacheable(sync = true)
+
+    public BoundedTtlSpringCache(String name, BoundedTtlCache<Object, Object> store) {
+        super(false);
+        this.name = name;
+        this.store = store;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BoundedTtlCache<Object, Object> getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return store.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = store.get(key);
+        if (cached != null) {
+            return (T) fromStoreValue(cached);
+        }
+        loadLock.lock();
+        try {
+            cached = store.get(key); // 等锁期间可能已被其他线程加载
+            if (cached != null) {
+                return (T) fromStoreValue(cached);
+            }
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (value != null) {
+                put(key, value);
+            }
+            return value;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object existing = store.putIfAbsent(key, toStoreValue(value));
+        return toValueWrapper(existing);
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        store.invalidateAll();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.gwy_backend.cache;
+
+/**
+ * 响应缓存中的一条：已序列化的响应体及其 ETag。
+ *
+ * @param body 响应体字节 (不要修改)
+ * @param contentType Content-Type 响应头
+ * @param etag 强 ETag (带引号)
+ */
+public record CachedResponse(byte[] body, String contentType, String etag) {
+}
@@ -0,0 +1,62 @@
+package com.example.gwy_backend.cache;
+
+import com.example.gwy_backend.util.TransactionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按聚合 (学习资源、时间线任务等) 记录的数据版本号，用于使响应缓存失效。
+ * <p>
+ * Service 的写方法调用 {@link #bump} / {@link #bumpAll}，版本号在事务提交后才递增：
+ * 提交前读到旧版本的请求即使缓存了新数据，也只是以旧版本为键，之后不会再命中。
+ * 所有版本号取自同一个递增序列，所以 "全局版本和用户版本取较大者" 在任何一次递增后都会变化。
+ * 版本号只在进程内有效，重启后从 0 开始 (响应缓存也随之清空，ETag 按内容计算，不受影响)。
+ */
+@Component
+public class DataVersions {
+
+    /** 学习资源 (所有用户共享)。 */
+    public static final String RESOURCES = "resources";
+    /** 备考时间线任务。 */
+    public static final String TIMELINE = "timeline";
+    /** 学习目标。 */
+    public static final String GOALS = "goals";
+    /** 知识库条目 (包括搜索结果)。 */
+    public static final String KNOWLEDGE = "knowledge";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> stamps = new ConcurrentHashMap<>();
+
+    /**
+     * 当前版本号。
+     * @param userId 按用户隔离的聚合传当前用户，共享的聚合传 null
+     */
+    public long current(String aggregate, String userId) {
+        long global = stamps.getOrDefault(aggregate, 0L);
+        if (userId == null) {
+            return global;
+        }
+        return Math.max(global, stamps.getOrDefault(userKey(aggregate, userId), 0L));
+    }
+
+    /**
+     * 当前事务提交后递增某个用户在该聚合上的版本 (没有事务时立即递增)。
+     */
+    public void bump(String aggregate, String userId) {
+        String key = userKey(aggregate, userId);
+        TransactionUtils.afterCommit(() -> stamps.merge(key, sequence.incrementAndGet(), Math::max));
+    }
+
+    /**
+     * 当前事务提交后递增该聚合所有用户的版本 (没有事务时立即递增)。共享的聚合只用这个方法。
+     */
+    public void bumpAll(String aggregate) {
+        TransactionUtils.afterCommit(() -> stamps.merge(aggregate, sequence.incrementAndGet(), Math::max));
+    }
+
+    private static String userKey(String aggregate, String userId) {
+        return aggregate + ':' + userId;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.gwy_backend.cache;
+
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.util.UserContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * 响应缓存的写入端：缓冲 {@link ResponseCacheInterceptor#RULES} 范围内 GET 请求的响应体，
+ * 序列化完成后按内容计算 ETag；拦截器记下了缓存键 (未命中) 时，把 200 的 JSON 响应写入缓存。
+ * 客户端的 If-None-Match 与新计算的 ETag 相同时同样返回 304，不发送响应体。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20) // 在 UserIdFilter 之后
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final Cache cache;
+    private final boolean enabled;
+    private final long maxEntryBytes;
+
+    @Autowired
+    public ResponseCacheFilter(CacheManager cacheManager,
+                               @Value("${cache.responses.enabled:true}") boolean enabled,
+                               @Value("${cache.responses.max-entry-size:512KB}") DataSize maxEntrySize) {
+        this.cache = cacheManager.getCache(CacheConfig.RESPONSES);
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+    }
+
+    // 关闭时不设置规则属性，拦截器也随之跳过
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !HttpMethod.GET.matches(request.getMethod()) || ruleFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ResponseCacheInterceptor.Rule rule = ruleFor(request);
+        request.setAttribute(ResponseCacheInterceptor.RULE_ATTRIBUTE, rule);
+        if (rule.perUser()) {
+            response.addHeader(HttpHeaders.VARY, UserContext.HEADER);
+        }
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() != HttpStatus.OK.value() || !isJson(wrapper.getContentType())
+                || wrapper.getHeader(HttpHeaders.ETAG) != null) { // 已带 ETag 的是缓存命中
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        String etag = ResponseCacheInterceptor.etagOf(body);
+        if (request.getAttribute(ResponseCacheInterceptor.KEY_ATTRIBUTE) instanceof String key && body.length <= maxEntryBytes) {
+            cache.put(key, new CachedResponse(body, wrapper.getContentType(), etag));
+        }
+        wrapper.setHeader(HttpHeaders.ETAG, etag);
+        wrapper.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache"); // 允许浏览器缓存，但每次都带 If-None-Match 验证
+        if (ResponseCacheInterceptor.etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            wrapper.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return; // 丢弃缓冲的响应体
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static ResponseCacheInterceptor.Rule ruleFor(HttpServletRequest request) {
+        String path = pathOf(request);
+        for (ResponseCacheInterceptor.Rule rule : ResponseCacheInterceptor.RULES) {
+            if (rule.matches(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.gwy_backend.cache;
+
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.util.UserContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 读多写少的 GET 接口的响应缓存：命中时直接写出缓存的 JSON 字节，不调用 Controller，也不查库。
+ * <p>
+ * 缓存键 = 路径 + 查询参数 + 用户 (按用户隔离的聚合) + {@link DataVersions} 中的版本号；
+ * 写操作递增版本号后，旧条目自然不再命中，等待 LRU / TTL 淘汰。
+ * 请求头 If-None-Match 与 ETag 相同时返回 304。
+ * 未命中时在请求属性中记下缓存键，由 {@link ResponseCacheFilter} 在响应序列化后写入缓存。
+ * <p>
+ * 作为 MVC 拦截器而不是过滤器实现命中，是为了排在 CORS 处理之后，跨域请求命中时同样带上 CORS 响应头。
+ */
+@Component
+public class ResponseCacheInterceptor implements HandlerInterceptor {
+
+    static final String KEY_ATTRIBUTE = ResponseCacheInterceptor.class.getName() + ".key";
+    static final String RULE_ATTRIBUTE = ResponseCacheInterceptor.class.getName() + ".rule";
+
+    /**
+     * @param pathPrefix 路径前缀，匹配该路径本身及其子路径
+     * @param aggregate 数据版本号所属的聚合
+     * @param perUser 数据是否按用户隔离 (决定缓存键是否带用户)
+     */
+    record Rule(String pathPrefix, String aggregate, boolean perUser) {
+        boolean matches(String path) {
+            return path.equals(pathPrefix) || path.startsWith(pathPrefix + "/");
+        }
+    }
+
+    static final List<Rule> RULES = List.of(
+            new Rule("/api/resources", DataVersions.RESOURCES, false),
+            new Rule("/api/timeline/tasks", DataVersions.TIMELINE, true),
+            new Rule("/api/goals", DataVersions.GOALS, true),
+            new Rule("/api/knowledge", DataVersions.KNOWLEDGE, true));
+
+    private final DataVersions dataVersions;
+    private final Cache cache;
+
+    @Autowired
+    public ResponseCacheInterceptor(DataVersions dataVersions, CacheManager cacheManager) {
+        this.dataVersions = dataVersions;
+        this.cache = cacheManager.getCache(CacheConfig.RESPONSES);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod) || !(request.getAttribute(RULE_ATTRIBUTE) instanceof Rule rule)) {
+            return true; // 不是 GET 或不在缓存范围内 (由过滤器判断)
+        }
+        String userId = rule.perUser() ? UserContext.currentUserId() : null;
+        String query = request.getQueryString();
+        // 版本号在调用 Controller 之前读取，处理期间发生的写入只会让这次写入的条目作废
+        String key = rule.aggregate() + '@' + dataVersions.current(rule.aggregate(), userId)
+                + (userId != null ? '|' + userId : "") + '|' + ResponseCacheFilter.pathOf(request)
+                + (query != null ? '?' + query : "");
+
+        CachedResponse cached = cache.get(key, CachedResponse.class);
+        if (cached == null) {
+            request.setAttribute(KEY_ATTRIBUTE, key);
+            return true;
+        }
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return false;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(cached.contentType());
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+        return false;
+    }
+
+    /**
+     * 按内容计算强 ETag (SHA-256 的前 128 位)，与版本号无关，重启后同样的内容仍得到同样的 ETag。
+     */
+    static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // 所有 JVM 都必须支持
+        }
+    }
+
+    /**
+     * If-None-Match 是否匹配 (弱比较：忽略 W/ 前缀，支持逗号分隔的多个值和 *)。
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.gwy_backend.config;
+
+import com.example.gwy_backend.cache.BoundedTtlCache;
+import com.example.gwy_backend.cache.BoundedTtlSpringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 进程内缓存配置。
+ * <p>
+ * 缓存切面的优先级高于事务切面 (order = HIGHEST_PRECEDENCE)，即包在事务外层：
+ * 命中时不会开启事务，{@code @CacheEvict} 在事务提交之后才执行。
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    /** 番茄钟设置，键为 settingsKey。 */
+    public static final String POMODORO_SETTINGS = "pomodoroSettings";
+    /** 课程追踪，键为 courseKey。 */
+    public static final String COURSE_TRACKER = "courseTracker";
+    /** 已存储文件的元数据，键为文件标识符。 */
+    public static final String FILE_METADATA = "fileMetadata";
+    /** 学习资源列表 / 单个资源，任何写操作都会清空整个缓存。 */
+    public static final String RESOURCES = "resources";
+    /** 备考时间线任务列表，键为 "用户:视图"；用户更新任务时失效该用户的条目。 */
+    public static final String TIMELINE_TASKS = "timelineTasks";
+    /** 往年的学习热力图，键为 "用户:年份"；补录往年的学习日志时失效。 */
+    public static final String ACTIVITY_HEATMAP = "activityHeatmap";
+    /** 已序列化的 GET 响应 (JSON 字节 + ETag)，键中带数据版本号，版本递增后旧条目不再命中。 */
+    public static final String RESPONSES = "responses";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cache.pomodoro-settings.max-size:100}") int settingsMaxSize,
+            @Value("${cache.pomodoro-settings.ttl:10m}") Duration settingsTtl,
+            @Value("${cache.course-tracker.max-size:100}") int trackerMaxSize,
+            @Value("${cache.course-tracker.ttl:10m}") Duration trackerTtl,
+            @Value("${cache.file-metadata.max-size:10000}") int fileMetadataMaxSize,
+            @Value("${cache.file-metadata.ttl:1h}") Duration fileMetadataTtl,
+            @Value("${cache.resources.max-size:200}") int resourcesMaxSize,
+            @Value("${cache.resources.ttl:1h}") Duration resourcesTtl,
+            @Value("${cache.timeline-tasks.max-size:1000}") int timelineMaxSize,
+            @Value("${cache.timeline-tasks.ttl:1h}") Duration timelineTtl,
+            @Value("${cache.activity-heatmap.max-size:2000}") int heatmapMaxSize,
+            @Value("${cache.activity-heatmap.ttl:365d}") Duration heatmapTtl,
+            @Value("${cache.responses.max-size:1000}") int responsesMaxSize,
+            @Value("${cache.responses.ttl:1h}") Duration responsesTtl) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                cache(POMODORO_SETTINGS, settingsMaxSize, settingsTtl),
+                cache(COURSE_TRACKER, trackerMaxSize, trackerTtl),
+                cache(FILE_METADATA, fileMetadataMaxSize, fileMetadataTtl),
+                cache(RESOURCES, resourcesMaxSize, resourcesTtl),
+                cache(TIMELINE_TASKS, timelineMaxSize, timelineTtl),
+                cache(ACTIVITY_HEATMAP, heatmapMaxSize, heatmapTtl),
+                cache(RESPONSES, responsesMaxSize, responsesTtl)));
+        return cacheManager;
+    }
+
+    private static BoundedTtlSpringCache cache(String name, int maxSize, Duration ttl) {
+        return new BoundedTtlSpringCache(name, new BoundedTtlCache<>(maxSize, ttl));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.gwy_backend.config;
+
+import com.example.gwy_backend.util.UserContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 从请求头 X-User-Id 读取当前用户并绑定到请求线程 (见 {@link UserContext})。
+ * 没有该请求头时为默认用户；格式无效时直接返回 400。
+ * 异步分派 (SSE、流式响应) 和错误页分派同样重新绑定，这些分派中的拦截器和 Controller 也能取到当前用户。
+ * <p>
+ * 这里只做数据隔离，不做身份认证：部署在学习小组内网或由前置网关负责认证并写入该请求头。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10) // 在其他过滤器之前绑定用户
+public class UserIdFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIdFilter.class);
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(UserContext.HEADER);
+        String userId = header == null || header.isBlank() ? UserContext.DEFAULT_USER_ID : header.trim();
+        if (!UserContext.isValid(userId)) {
+            if (request.getDispatcherType() == DispatcherType.ERROR) {
+                filterChain.doFilter(request, response); // 正在渲染下面返回的 400，不再绑定用户
+                return;
+            }
+            log.warn("Rejected request to {} with invalid {} header.", request.getRequestURI(), UserContext.HEADER);
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid " + UserContext.HEADER + " header.");
+            return;
+        }
+        UserContext.Scope scope = UserContext.bind(userId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.gwy_backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时报告请求执行模式 (spring.threads.virtual.enabled)。
+ * <p>
+ * 项目按 Java 17 编译，虚拟线程只在 Java 21+ 运行时由 Spring Boot 启用，Java 17 上该配置会被静默忽略，这里给出警告。
+ * 项目代码中不使用 {@code synchronized} (需要互斥时用 ReentrantLock)，JDBC 驱动 (Connector/J 9.x) 和 HikariCP 也已改用
+ * ReentrantLock，阻塞在 JDBC / 文件 I/O 上的虚拟线程不会钉住载体线程；可以用 {@code -Djdk.tracePinnedThreads=short}
+ * (Java 21 ~ 23) 验证。
+ */
+@Component
+public class VirtualThreadsCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsCheck.class);
+    private static final int MIN_VIRTUAL_THREADS_VERSION = 21;
+
+    private final boolean virtualThreadsEnabled;
+
+    public VirtualThreadsCheck(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreadMode() {
+        int javaVersion = Runtime.version().feature();
+        if (!virtualThreadsEnabled) {
+            log.info("Request execution: platform thread pool (Java {}).", javaVersion);
+        } else if (javaVersion < MIN_VIRTUAL_THREADS_VERSION) {
+            log.warn("spring.threads.virtual.enabled=true is ignored on Java {}; virtual threads need Java {}+. " +
+                    "Falling back to the platform thread pool.", javaVersion, MIN_VIRTUAL_THREADS_VERSION);
+        } else {
+            log.info("Request execution: virtual threads (Java {}).", javaVersion);
+        }
+    }
+}
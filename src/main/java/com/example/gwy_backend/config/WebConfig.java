@@ -1,8 +1,11 @@
 package com.example.gwy_backend.config; // 确保包名正确
 
+import com.example.gwy_backend.cache.ResponseCacheInterceptor;
+import com.example.gwy_backend.metrics.RequestLatencyInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -37,5 +40,20 @@ public class WebConfig {
         };
     }
 
+    /**
+     * 注册接口耗时统计拦截器和响应缓存拦截器 (耗时统计在前，缓存命中的请求同样计时)。
+     */
+    @Bean
+    public WebMvcConfigurer latencyMetricsConfigurer(RequestLatencyInterceptor requestLatencyInterceptor,
+                                                     ResponseCacheInterceptor responseCacheInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(requestLatencyInterceptor).addPathPatterns("/api/**");
+                registry.addInterceptor(responseCacheInterceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+
     // 如果有其他 Web 相关配置，也可以在这个类中添加 @Bean
 }
\ No newline at end of file
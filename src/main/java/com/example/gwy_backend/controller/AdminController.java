@@ -0,0 +1,190 @@
+package com.example.gwy_backend.controller;
+
+import com.example.gwy_backend.cache.BoundedTtlCache;
+import com.example.gwy_backend.listener.StudyLogEventPipeline;
+import com.example.gwy_backend.metrics.LatencyHistogram;
+import com.example.gwy_backend.metrics.LatencyMetrics;
+import com.example.gwy_backend.metrics.PrometheusTextFormat;
+import com.example.gwy_backend.service.ActivityStreamService;
+import com.example.gwy_backend.service.ErrorStatsService;
+import com.example.gwy_backend.service.KnowledgeService;
+import com.example.gwy_backend.service.StudyRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 运维 / 管理类接口 (重建聚合数据等)。
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+    private final StudyRollupService studyRollupService;
+    private final ErrorStatsService errorStatsService;
+    private final StudyLogEventPipeline studyLogEventPipeline;
+    private final KnowledgeService knowledgeService;
+    private final CacheManager cacheManager;
+    private final LatencyMetrics latencyMetrics;
+    private final ActivityStreamService activityStreamService;
+
+    @Autowired
+    public AdminController(StudyRollupService studyRollupService,
+                           ErrorStatsService errorStatsService,
+                           StudyLogEventPipeline studyLogEventPipeline,
+                           KnowledgeService knowledgeService,
+                           CacheManager cacheManager,
+                           LatencyMetrics latencyMetrics,
+                           ActivityStreamService activityStreamService) {
+        this.studyRollupService = studyRollupService;
+        this.errorStatsService = errorStatsService;
+        this.studyLogEventPipeline = studyLogEventPipeline;
+        this.knowledgeService = knowledgeService;
+        this.cacheManager = cacheManager;
+        this.latencyMetrics = latencyMetrics;
+        this.activityStreamService = activityStreamService;
+    }
+
+    /**
+     * 根据 study_log 全量重建学习时长预聚合表 (回填 / 修复数据)。
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStudyRollups() {
+        log.warn("Received request to rebuild study time rollups.");
+        int dayRows = studyRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Study time rollups rebuilt.", "dayRows", dayRows));
+    }
+
+    /**
+     * 根据 error_log_entry 全量重建错题统计表。
+     */
+    @PostMapping("/error-stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildErrorStats() {
+        log.warn("Received request to rebuild error statistics.");
+        int statRows = errorStatsService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Error statistics rebuilt.", "statRows", statRows));
+    }
+
+    /**
+     * 学习日志事件管道指标：队列深度、丢弃数、处理数、延迟。
+     */
+    @GetMapping("/events/study-log")
+    public ResponseEntity<Map<String, Object>> getStudyLogEventMetrics() {
+        return ResponseEntity.ok(studyLogEventPipeline.getMetrics());
+    }
+
+    /**
+     * 学习统计实时推送指标：连接数、统计计算次数、发送数、被断开的慢连接数。
+     */
+    @GetMapping("/events/activity-stream")
+    public ResponseEntity<Map<String, Object>> getActivityStreamMetrics() {
+        return ResponseEntity.ok(activityStreamService.getMetrics());
+    }
+
+    /**
+     * 从数据库全量重建知识库内存全文索引。
+     */
+    @PostMapping("/knowledge-index/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildKnowledgeIndex() {
+        log.warn("Received request to rebuild knowledge search index.");
+        int documents = knowledgeService.rebuildSearchIndex();
+        return ResponseEntity.ok(Map.of("message", "Knowledge search index rebuilt.", "documents", documents));
+    }
+
+    /**
+     * 进程内缓存统计：条目数、命中 / 未命中、淘汰和过期次数。
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof BoundedTtlCache<?, ?> store) {
+                BoundedTtlCache.Stats stats = store.stats();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("size", stats.size());
+                entry.put("maxSize", stats.maxSize());
+                entry.put("ttlMillis", stats.ttlMillis());
+                entry.put("hits", stats.hits());
+                entry.put("misses", stats.misses());
+                entry.put("hitRatio", stats.hitRatio());
+                entry.put("evictions", stats.evictions());
+                entry.put("expirations", stats.expirations());
+                result.put(name, entry);
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 清空指定的进程内缓存 (手工修改数据库后使用)。
+     */
+    @DeleteMapping("/caches/{name}")
+    public ResponseEntity<Void> clearCache(@PathVariable String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        log.warn("Clearing cache: {}", name);
+        cache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 接口路由和仓库方法的耗时分布 (p50 / p90 / p99 / p999、次数、错误数)。
+     * @param format json (默认) 或 prometheus
+     * @param window 可选的滚动窗口，例如 1m、5m；不传表示启动以来的累计值
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<?> getLatencyMetrics(@RequestParam(defaultValue = "json") String format,
+                                               @RequestParam(name = "window", required = false) String windowParam) {
+        Duration window = null;
+        Map<LatencyMetrics.Category, Map<String, LatencyHistogram.Snapshot>> snapshots;
+        try {
+            window = windowParam == null ? null : DurationStyle.detectAndParse(windowParam); // 支持 "1m" 和 "PT1M"
+            snapshots = latencyMetrics.snapshot(window);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if ("prometheus".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(PrometheusTextFormat.CONTENT_TYPE))
+                    .body(PrometheusTextFormat.format(snapshots));
+        }
+        if (!"json".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body("Unsupported format: " + format);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", window != null ? window.toString() : "since-start");
+        result.put("maxWindow", latencyMetrics.getMaxWindow().toString());
+        snapshots.forEach((category, timers) -> {
+            Map<String, Object> entries = new LinkedHashMap<>();
+            timers.forEach((name, snapshot) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("count", snapshot.count());
+                entry.put("errors", snapshot.errors());
+                entry.put("meanMs", snapshot.meanMicros() / 1000.0);
+                entry.put("p50Ms", snapshot.percentile(0.5) / 1000.0);
+                entry.put("p90Ms", snapshot.percentile(0.9) / 1000.0);
+                entry.put("p99Ms", snapshot.percentile(0.99) / 1000.0);
+                entry.put("p999Ms", snapshot.percentile(0.999) / 1000.0);
+                entry.put("maxMs", snapshot.maxMicros() / 1000.0);
+                entries.put(name, entry);
+            });
+            result.put(category.name().toLowerCase(Locale.ROOT), entries);
+        });
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.dto.ActivityHeatmap;
 import com.example.gwy_backend.entity.DailyActivityLog; // 确保导入实体
+import com.example.gwy_backend.service.ActivityStreamService;
 import com.example.gwy_backend.service.DailyActivityLogService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
@@ -19,10 +24,13 @@ public class DailyActivityLogController {
 
     private static final Logger log = LoggerFactory.getLogger(DailyActivityLogController.class);
     private final DailyActivityLogService activityLogService;
+    private final ActivityStreamService activityStreamService;
 
     @Autowired
-    public DailyActivityLogController(DailyActivityLogService activityLogService) {
+    public DailyActivityLogController(DailyActivityLogService activityLogService,
+                                      ActivityStreamService activityStreamService) {
         this.activityLogService = activityLogService;
+        this.activityStreamService = activityStreamService;
     }
 
     /**
@@ -67,6 +75,36 @@ public class DailyActivityLogController {
          return ResponseEntity.ok(stats);
     }
 
+    /**
+     * 实时推送学习统计 (Server-Sent Events)，代替轮询 /today 和 /stats。
+     * 连接后立即收到一次 "stats" 事件 (内容与 /stats 相同)，之后每当有新的学习日志或在线时长写库时推送最新值；
+     * 空闲时定期发送心跳注释行。连接数达到上限时返回 503。
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamActivity() {
+        try {
+            return ResponseEntity.ok(activityStreamService.subscribe());
+        } catch (ActivityStreamService.TooManyConnectionsException e) {
+            log.warn("Rejected activity stream connection: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * 获取一整年每天的学习 / 在线时长 (热力图)，一次请求返回两个按日期排列的数组。
+     * 不传 year 时为今年。
+     */
+    @GetMapping("/heatmap")
+    public ResponseEntity<ActivityHeatmap> getHeatmap(@RequestParam(required = false) Integer year) {
+        int targetYear = year != null ? year : LocalDate.now().getYear();
+        try {
+            return ResponseEntity.ok(activityLogService.getHeatmap(targetYear));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid heatmap year requested: {}", year);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * 获取指定日期的在线时长 (秒)。
      */
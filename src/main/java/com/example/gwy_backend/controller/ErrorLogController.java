@@ -1,10 +1,15 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.dto.ErrorStatSummary;
 import com.example.gwy_backend.entity.ErrorLogEntry;
 import com.example.gwy_backend.service.ErrorLogService;
+import com.example.gwy_backend.service.ErrorStatsService;
+import com.example.gwy_backend.util.ReviewScheduler;
+import com.example.gwy_backend.util.SparseFields;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -13,17 +18,28 @@ import java.util.List;
 public class ErrorLogController {
 
     private final ErrorLogService errorLogService;
+    private final ErrorStatsService errorStatsService;
 
     @Autowired
-    public ErrorLogController(ErrorLogService errorLogService) {
+    public ErrorLogController(ErrorLogService errorLogService, ErrorStatsService errorStatsService) {
         this.errorLogService = errorLogService;
+        this.errorStatsService = errorStatsService;
     }
 
     // GET /api/errors - 获取所有错题记录 (按时间倒序)
     // 或 GET /api/errors?subject=xxx - 按模块筛选
+    // 或 GET /api/errors?fields=subject,knowledgePoint - 只返回所选字段 (id 和 timestamp 总是返回)，未选的列不会从数据库读取
     @GetMapping
-    public ResponseEntity<List<ErrorLogEntry>> getErrorLogs(
-            @RequestParam(required = false) String subject) { // @RequestParam 用于接收查询参数 ?subject=xxx
+    public ResponseEntity<?> getErrorLogs(
+            @RequestParam(required = false) String subject, // @RequestParam 用于接收查询参数 ?subject=xxx
+            @RequestParam(required = false) String fields) {
+        if (StringUtils.hasText(fields)) {
+            try {
+                return ResponseEntity.ok(errorLogService.getErrorLogs(subject, SparseFields.parse(fields, ErrorLogService.SPARSE_FIELDS)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage()); // 字段不在白名单中
+            }
+        }
         List<ErrorLogEntry> errors;
         if (subject != null && !subject.trim().isEmpty()) {
             // 如果提供了 subject 参数，则按模块查询
@@ -35,6 +51,38 @@ public class ErrorLogController {
         return ResponseEntity.ok(errors);
     }
 
+    // GET /api/errors/page?subject=xxx&cursor=yyy&size=20&fields=zzz - 游标分页获取错题 (按时间倒序，不返回总数)
+    @GetMapping("/page")
+    public ResponseEntity<?> getErrorLogPage(
+            @RequestParam(required = false) String subject,
+            @RequestParam(required = false) String cursor, // 上一页返回的 nextCursor，首页不传
+            @RequestParam(required = false) Integer size, // 默认 20，最大 100
+            @RequestParam(required = false) String fields) { // 可选，同 GET /api/errors
+        try {
+            if (StringUtils.hasText(fields)) {
+                List<String> selected = SparseFields.parse(fields, ErrorLogService.SPARSE_FIELDS);
+                return ResponseEntity.ok(errorLogService.getErrorLogPage(subject, cursor, size, selected));
+            }
+            return ResponseEntity.ok(errorLogService.getErrorLogPage(subject, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 游标无效或字段不在白名单中
+        }
+    }
+
+    // GET /api/errors/due?subject=xxx&limit=50 - 获取已到期需要复习的错题 (最早到期的在前)
+    @GetMapping("/due")
+    public ResponseEntity<List<ErrorLogEntry>> getDueForReview(
+            @RequestParam(required = false) String subject,
+            @RequestParam(required = false) Integer limit) { // 默认 50，最大 200
+        return ResponseEntity.ok(errorLogService.getDueForReview(subject, limit));
+    }
+
+    // GET /api/errors/stats?subject=xxx - 按模块 / 知识点的错题统计 (读取预聚合表)
+    @GetMapping("/stats")
+    public ResponseEntity<List<ErrorStatSummary>> getErrorStats(@RequestParam(required = false) String subject) {
+        return ResponseEntity.ok(errorStatsService.getStats(subject));
+    }
+
     // GET /api/errors/{id} - 获取单个错题记录
     @GetMapping("/{id}")
     public ResponseEntity<ErrorLogEntry> getErrorLogById(@PathVariable Long id) {
@@ -50,12 +98,18 @@ public class ErrorLogController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdEntry);
     }
 
-    // PATCH /api/errors/{id}/review - 标记为已复习
+    // PATCH /api/errors/{id}/review?quality=4 - 标记为已复习并安排下次复习
     @PatchMapping("/{id}/review")
-    public ResponseEntity<ErrorLogEntry> markAsReviewed(@PathVariable Long id) {
-        return errorLogService.markAsReviewed(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ErrorLogEntry> markAsReviewed(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer quality) { // 回忆质量 0 ~ 5，不传按 4 处理
+        try {
+            return errorLogService.markAsReviewed(id, quality == null ? ReviewScheduler.DEFAULT_QUALITY : quality)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // 质量超出范围
+        }
     }
 
     // DELETE /api/errors/{id} - 删除错题记录
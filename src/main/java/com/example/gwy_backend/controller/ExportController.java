@@ -0,0 +1,92 @@
+package com.example.gwy_backend.controller;
+
+import com.example.gwy_backend.service.ExportService;
+import com.example.gwy_backend.service.ExportService.Format;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 历史数据导出 (当前用户)：结果边查边写，不在内存中拼装完整列表。
+ * <p>
+ * GET /api/export/study-logs?format=ndjson|csv&gzip=true
+ * GET /api/export/errors?format=ndjson|csv&gzip=true
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/study-logs")
+    public ResponseEntity<StreamingResponseBody> exportStudyLogs(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("study-logs", format, gzip, exportService::exportStudyLogs);
+    }
+
+    @GetMapping("/errors")
+    public ResponseEntity<StreamingResponseBody> exportErrorLogs(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("errors", format, gzip, exportService::exportErrorLogs);
+    }
+
+    private interface Exporter {
+        long export(Format format, OutputStream out) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String name, String formatParam, boolean gzip, Exporter exporter) {
+        Format format;
+        try {
+            format = Format.parse(formatParam);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unsupported export format: {}", formatParam);
+            return ResponseEntity.badRequest().build();
+        }
+
+        String filename = name + "-" + LocalDate.now() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        // 响应体在异步线程中写出，导出方法自带只读事务；用户 ID 在请求线程中取出后重新绑定
+        String userId = UserContext.currentUserId();
+        StreamingResponseBody body = out -> {
+            UserContext.Scope scope = UserContext.bind(userId);
+            try {
+                if (gzip) {
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                    exporter.export(format, gzipOut);
+                    gzipOut.finish(); // 写出 gzip 尾部，底层流由容器关闭
+                } else {
+                    exporter.export(format, out);
+                }
+            } finally {
+                scope.close();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -1,26 +1,55 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.cache.DataVersions;
+import com.example.gwy_backend.dto.FileMetadata;
+import com.example.gwy_backend.dto.UploadSessionRequest;
+import com.example.gwy_backend.dto.UploadSessionStatus;
 import com.example.gwy_backend.entity.ErrorLogEntry; // 需要导入实体
 import com.example.gwy_backend.entity.KnowledgeItem;
+import com.example.gwy_backend.entity.StoredFile;
 import com.example.gwy_backend.repository.ErrorLogEntryRepository; // 需要导入 Repository
 import com.example.gwy_backend.repository.KnowledgeItemRepository;
+import com.example.gwy_backend.service.FileMetadataService;
 import com.example.gwy_backend.service.FileStorageStrategy;
+import com.example.gwy_backend.service.ThumbnailService;
+import com.example.gwy_backend.service.UploadSessionService;
+import com.example.gwy_backend.util.TransactionUtils;
+import com.example.gwy_backend.util.UserContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional; // 需要事务
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder; // 用于构建 URI
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Map; // 用于接收简单响应
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/files") // 文件操作的基础路径
@@ -28,19 +57,42 @@ public class FileController {
 
     private static final Logger log = LoggerFactory.getLogger(FileController.class);
 
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    // 显示名来自当前用户的条目时，Content-Disposition 因用户而异，不能由共享缓存保存
+    private static final String PRIVATE_IMMUTABLE_CACHE_CONTROL = "private, max-age=31536000, immutable";
+    // Tomcat sendfile 约定的请求属性 (NIO/NIO2 连接器默认支持)
+    private static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CHUNK_CHECKSUM_HEADER = "X-Chunk-SHA256";
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024; // 与 Tomcat DefaultServlet 的默认阈值一致，小文件直接写更省事
+
     private final FileStorageStrategy fileStorageStrategy;
     // 注入 Repository 以更新文件路径到实体 (简化处理，更好的方式是在 Service 中处理)
     private final ErrorLogEntryRepository errorLogRepo;
     private final KnowledgeItemRepository knowledgeRepo;
+    private final UploadSessionService uploadSessionService;
+    private final ThumbnailService thumbnailService;
+    private final FileMetadataService fileMetadataService;
+    private final DataVersions dataVersions;
 
 
     @Autowired
     public FileController(FileStorageStrategy fileStorageStrategy,
                           ErrorLogEntryRepository errorLogRepo,
-                          KnowledgeItemRepository knowledgeRepo) {
+                          KnowledgeItemRepository knowledgeRepo,
+                          UploadSessionService uploadSessionService,
+                          ThumbnailService thumbnailService,
+                          FileMetadataService fileMetadataService,
+                          DataVersions dataVersions) {
         this.fileStorageStrategy = fileStorageStrategy;
         this.errorLogRepo = errorLogRepo;
         this.knowledgeRepo = knowledgeRepo;
+        this.uploadSessionService = uploadSessionService;
+        this.thumbnailService = thumbnailService;
+        this.fileMetadataService = fileMetadataService;
+        this.dataVersions = dataVersions;
     }
 
     /**
@@ -59,46 +111,17 @@ public class FileController {
 
         log.info("Received file upload request: type={}, entityId={}, filename={}", type, entityId, file.getOriginalFilename());
 
-        String subDirectory;
-        String fileIdentifier;
-
-        // 根据类型确定子目录
-        if ("error".equalsIgnoreCase(type)) {
-            subDirectory = "errors";
-        } else if ("knowledge".equalsIgnoreCase(type)) {
-            subDirectory = "knowledge";
-        } else {
+        String subDirectory = subDirectoryFor(type);
+        if (subDirectory == null) {
             return ResponseEntity.badRequest().body("Invalid upload type.");
         }
 
         try {
             // 存储文件并获取标识符 (相对路径)
-            fileIdentifier = fileStorageStrategy.storeFile(file, subDirectory);
+            String fileIdentifier = fileStorageStrategy.storeFile(file, subDirectory);
 
             // 更新对应实体的文件字段
-            boolean updated = false;
-            if ("error".equalsIgnoreCase(type)) {
-                updated = errorLogRepo.findById(entityId).map(entry -> {
-                    // 如果之前有文件，先删除旧文件 (可选)
-                    if (entry.getImageFile() != null) {
-                        try { fileStorageStrategy.deleteFile(entry.getImageFile(), null); } // 假设旧标识符已包含子目录
-                        catch (Exception e) { log.warn("Could not delete old error image file: {}", entry.getImageFile(), e); }
-                    }
-                    entry.setImageFile(fileIdentifier); // 保存新的文件标识符
-                    errorLogRepo.save(entry);
-                    return true;
-                }).orElse(false);
-            } else if ("knowledge".equalsIgnoreCase(type)) {
-                updated = knowledgeRepo.findById(entityId).map(item -> {
-                    if (item.getLinkedFile() != null) {
-                        try { fileStorageStrategy.deleteFile(item.getLinkedFile(), null); }
-                        catch (Exception e) { log.warn("Could not delete old knowledge linked file: {}", item.getLinkedFile(), e); }
-                    }
-                    item.setLinkedFile(fileIdentifier);
-                    knowledgeRepo.save(item);
-                    return true;
-                }).orElse(false);
-            }
+            boolean updated = linkToEntity(type, entityId, fileIdentifier, StringUtils.cleanPath(file.getOriginalFilename()));
 
             if (!updated) {
                 log.warn("Entity not found for type {} and id {}, could not link uploaded file.", type, entityId);
@@ -130,36 +153,375 @@ public class FileController {
         }
     }
 
+    // 根据类型确定子目录，类型无效时返回 null
+    private static String subDirectoryFor(String type) {
+        if ("error".equalsIgnoreCase(type)) {
+            return "errors";
+        } else if ("knowledge".equalsIgnoreCase(type)) {
+            return "knowledge";
+        }
+        return null;
+    }
+
+    // 把文件标识符和原始文件名写入对应实体；实体不存在时返回 false
+    private boolean linkToEntity(String type, Long entityId, String fileIdentifier, String originalFilename) {
+        boolean linked = updateEntityFile(type, entityId, fileIdentifier,
+                truncate(originalFilename, StoredFile.ORIGINAL_FILENAME_MAX_LENGTH));
+        if (linked) {
+            // 提交后在后台生成缩略图 (非图片会被忽略)
+            TransactionUtils.afterCommit(() -> thumbnailService.generateAsync(fileIdentifier));
+        }
+        return linked;
+    }
+
+    // 只能关联当前用户自己的条目 (文件本身不区分用户)
+    private boolean updateEntityFile(String type, Long entityId, String fileIdentifier, String originalFilename) {
+        String userId = UserContext.currentUserId();
+        if ("error".equalsIgnoreCase(type)) {
+            return errorLogRepo.findByIdAndUserId(entityId, userId).map(entry -> {
+                String oldFile = entry.getImageFile();
+                entry.setImageFile(fileIdentifier); // 保存新的文件标识符
+                entry.setImageFileName(originalFilename); // 显示名随引用保存，不放在可能共享的文件元数据中
+                errorLogRepo.save(entry);
+                // 先保存新引用再释放旧文件：内容寻址存储下新旧文件可能相同，或旧文件仍被其他条目引用
+                releaseOldFile(oldFile);
+                return true;
+            }).orElse(false);
+        } else if ("knowledge".equalsIgnoreCase(type)) {
+            return knowledgeRepo.findByIdAndUserId(entityId, userId).map(item -> {
+                String oldFile = item.getLinkedFile();
+                item.setLinkedFile(fileIdentifier);
+                item.setLinkedFileName(originalFilename);
+                knowledgeRepo.save(item);
+                dataVersions.bump(DataVersions.KNOWLEDGE, userId); // 知识库列表带 linkedFile，使响应缓存失效
+                releaseOldFile(oldFile);
+                return true;
+            }).orElse(false);
+        }
+        return false;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    /**
+     * 创建可断点续传的分片上传会话 (大文件)。
+     * 之后按返回的 chunkSize 把文件切片，逐片 PUT 到 /uploads/{uploadId}?offset=...，
+     * 全部上传后调用 /uploads/{uploadId}/complete 完成存储和关联。
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> createUploadSession(@RequestBody UploadSessionRequest request) {
+        if (request == null || subDirectoryFor(request.type()) == null) {
+            return ResponseEntity.badRequest().body("Invalid upload type.");
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionService.createSession(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * 上传一个分片。请求体为分片的原始字节，X-Chunk-SHA256 头为分片内容的 SHA-256 (十六进制)。
+     * 同一分片可以重复上传 (例如上次传输中断)，校验通过后才计为已接收。
+     * 没有 Content-Length 的分块传输编码请求读取到请求体结束，长度同样须等于分片大小。
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String uploadId,
+                                         @RequestParam("offset") long offset,
+                                         @RequestHeader(value = CHUNK_CHECKSUM_HEADER, required = false) String sha256,
+                                         HttpServletRequest request) throws IOException {
+        try {
+            return uploadSessionService.writeChunk(uploadId, offset, request.getContentLengthLong(), sha256, request.getInputStream())
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected chunk for upload {} at offset {}: {}", uploadId, offset, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询上传会话状态 (断线重连后据此补传缺失的分片)。
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionStatus> getUploadSession(@PathVariable String uploadId) {
+        return uploadSessionService.getStatus(uploadId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 完成分片上传：文件移动到存储位置 (不再复制) 并关联到实体，返回值与 /upload 相同。
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    @Transactional
+    public ResponseEntity<?> completeUploadSession(@PathVariable String uploadId) {
+        Optional<UploadSessionService.CompletedUpload> completed;
+        try {
+            completed = uploadSessionService.complete(uploadId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        if (completed.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        UploadSessionService.CompletedUpload upload = completed.get();
+
+        String fileIdentifier;
+        try {
+            fileIdentifier = fileStorageStrategy.storeLocalFile(upload.file(), upload.originalFilename(),
+                    subDirectoryFor(upload.type()));
+        } catch (RuntimeException e) {
+            log.error("Could not store completed upload {} ({})", uploadId, upload.originalFilename(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not upload file: " + e.getMessage());
+        }
+
+        if (!linkToEntity(upload.type(), upload.entityId(), fileIdentifier, upload.originalFilename())) {
+            log.warn("Entity not found for type {} and id {}, could not link uploaded file.", upload.type(), upload.entityId());
+            try { fileStorageStrategy.deleteFile(fileIdentifier, null); }
+            catch (Exception e) { log.error("Could not delete unlinked uploaded file: {}", fileIdentifier, e); }
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Associated entity not found.");
+        }
+        log.info("Completed chunked upload {} as {}", uploadId, fileIdentifier);
+        return ResponseEntity.ok(Map.of(
+                "message", "File uploaded successfully!",
+                "fileIdentifier", fileIdentifier
+        ));
+    }
+
     /**
-     * 下载/访问文件
+     * 放弃分片上传会话并删除已上传的数据。
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUploadSession(@PathVariable String uploadId) {
+        return uploadSessionService.abort(uploadId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    // 当前用户的条目上记录的该文件显示名 (多个条目引用同一文件时取任意一个)
+    private Optional<String> referenceFilename(String subDirectory, String fileIdentifier) {
+        String userId = UserContext.currentUserId();
+        List<String> names;
+        if ("errors".equals(subDirectory)) {
+            names = errorLogRepo.findImageFileNames(userId, fileIdentifier);
+        } else if ("knowledge".equals(subDirectory)) {
+            names = knowledgeRepo.findLinkedFileNames(userId, fileIdentifier);
+        } else {
+            names = List.of();
+        }
+        return names.stream().findFirst();
+    }
+
+    // 释放实体原先关联的文件 (物理删除由存储策略在事务提交后决定)
+    private void releaseOldFile(String oldFile) {
+        if (oldFile == null) {
+            return;
+        }
+        try {
+            fileStorageStrategy.deleteFile(oldFile, null); // 旧标识符已包含子目录
+        } catch (Exception e) {
+            log.warn("Could not release old file: {}", oldFile, e);
+        }
+    }
+
+    /**
+     * 下载/访问文件。
+     * <p>
+     * 存储的文件名是随机生成的，同一个名字对应的内容永远不变，因此：
+     * <ul>
+     *   <li>使用强 ETag，并允许浏览器/代理长期缓存 (immutable)；</li>
+     *   <li>If-None-Match / If-Modified-Since 命中时返回 304；</li>
+     *   <li>支持单个 Range 请求 (206 / 416) 和 If-Range；</li>
+     *   <li>容器支持时通过 Tomcat sendfile 零拷贝发送，否则用 FileChannel.transferTo。</li>
+     * </ul>
+     * 图片可以通过 size 参数获取缩略图 (JPEG，长边不超过 size)，缩略图缺失时按需生成；
+     * 非图片或无法生成时返回原文件。
      * @param subDirectory 子目录 (路径的一部分)
      * @param filename 文件名 (路径的另一部分)
-     * @return 文件资源
+     * @param size 可选的缩略图尺寸，必须是 file.thumbnail.sizes 之一
      */
     @GetMapping("/download/{subDirectory}/{filename:.+}") // :.+ 匹配包含点的文件名
-    public ResponseEntity<Resource> downloadFile(@PathVariable String subDirectory, @PathVariable String filename) {
-        // 从策略加载文件资源
+    public void downloadFile(@PathVariable String subDirectory, @PathVariable String filename,
+                             @RequestParam(value = "size", required = false) Integer size,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
         String fileIdentifier = subDirectory + "/" + filename;
-        Resource resource = fileStorageStrategy.loadFileAsResource(fileIdentifier, null); // subDirectory 已在 identifier 中
+        // 响应头来自写入时记录的元数据 (有缓存)，直到发送内容前都不访问文件系统
+        Optional<FileMetadata> metadata;
+        try {
+            metadata = fileMetadataService.getMetadata(fileIdentifier); // 含路径穿越检查
+        } catch (UncheckedIOException e) {
+            log.error("Could not read metadata of {}", fileIdentifier, e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Rejected file request {}: {}", fileIdentifier, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (metadata.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path filePath = fileStorageStrategy.getFilePath(fileIdentifier, null); // 只计算路径
+        long length = metadata.get().size();
+        long lastModified = metadata.get().createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String contentType = metadata.get().contentType();
+        String servedFilename = filename;
+        // uuid 模式下每个标识符只有一个引用，显示名就在缓存的元数据中；内容寻址存储的文件在用户之间共享，
+        // 元数据中没有原始文件名，显示名取当前用户条目上记录的名字 (见下文，只在真正发送内容时查询)
+        String displayFilename = metadata.get().originalFilename();
+        boolean lookupReferenceFilename = size == null && displayFilename == null;
+        String cacheControl = lookupReferenceFilename ? PRIVATE_IMMUTABLE_CACHE_CONTROL : IMMUTABLE_CACHE_CONTROL;
+        if (size != null) {
+            if (!thumbnailService.getSizes().contains(size)) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "Unsupported thumbnail size, expected one of " + thumbnailService.getSizes());
+                return;
+            }
+            boolean servingThumbnail = false;
+            Optional<Path> thumbnail = thumbnailService.getThumbnail(fileIdentifier, size);
+            if (thumbnail.isPresent()) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(thumbnail.get(), BasicFileAttributes.class);
+                    filePath = thumbnail.get();
+                    length = attributes.size();
+                    lastModified = attributes.lastModifiedTime().toMillis();
+                    contentType = MediaType.IMAGE_JPEG_VALUE;
+                    servedFilename = filePath.getFileName().toString();
+                    displayFilename = servedFilename;
+                    servingThumbnail = true;
+                } catch (NoSuchFileException e) {
+                    log.warn("Thumbnail disappeared while serving {}, falling back to original.", fileIdentifier);
+                }
+            }
+            if (!servingThumbnail && thumbnailService.isThumbnailable(fileIdentifier)) {
+                // 缩略图暂时没能生成 (队列满、超时)：原图不能以缩略图 URL 长期缓存，下次重新验证
+                cacheControl = CacheControl.noCache().getHeaderValue();
+            }
+        }
+        String etag = strongETag(servedFilename, length);
+
+        // 条件请求：If-None-Match / If-Modified-Since -> 304，If-Match / If-Unmodified-Since 不满足 -> 412
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return;
+        }
+        if (lookupReferenceFilename) {
+            displayFilename = referenceFilename(subDirectory, fileIdentifier).orElse(null);
+        }
+        if (displayFilename == null) {
+            displayFilename = filename;
+        }
 
-        // 尝试确定文件的 Content-Type
-        String contentType = null;
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        // inline 让浏览器尝试直接显示 (图片、HTML 等)；文件名使用上传时的原始文件名
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(displayFilename, StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of(); // 无法解析的 Range 按 RFC 9110 忽略，返回完整内容
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long rangeStart;
+                long rangeEnd;
+                try {
+                    rangeStart = range.getRangeStart(length);
+                    rangeEnd = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    rangeStart = -1;
+                    rangeEnd = -1;
+                }
+                if (rangeStart < 0 || rangeStart >= length || rangeEnd < rangeStart) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = rangeStart;
+                end = rangeEnd;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            // 多个区间或无法解析：按 RFC 9110 可以忽略 Range，返回完整内容
+        }
+
+        long count = length == 0 ? 0 : end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
         try {
-            contentType = Files.probeContentType(fileStorageStrategy.getFilePath(fileIdentifier, null)); // 获取文件路径
-        } catch (IOException ex) {
-            log.info("Could not determine file type for: {}", fileIdentifier);
+            sendFileRegion(request, response, filePath, start, count);
+        } catch (NoSuchFileException e) {
+            // 元数据仍在缓存中但文件已被删除
+            log.warn("File {} disappeared before it could be sent.", fileIdentifier);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+        }
+    }
+
+    // 名字在存储中唯一且内容不可变，文件名 + 长度即可作为强校验器
+    private static String strongETag(String filename, long length) {
+        return "\"" + filename + "-" + Long.toHexString(length) + "\"";
+    }
+
+    // If-Range 只有与当前 ETag (强比较) 或最后修改时间一致时才按 Range 返回部分内容
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
         }
-        // 如果无法确定，则使用默认二进制流类型
-        if(contentType == null) {
-            contentType = "application/octet-stream";
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
         }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && lastModified / 1000 <= date / 1000; // HTTP 日期精度为秒
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                // 设置 Content-Disposition 让浏览器尝试显示或下载
-                // attachment; 会强制下载， inline; 会尝试在浏览器中打开
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+    private void sendFileRegion(HttpServletRequest request, HttpServletResponse response,
+                                Path filePath, long start, long count) throws IOException {
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(TOMCAT_SENDFILE_SUPPORT))) {
+            // 交给 Tomcat 在请求结束后用 sendfile 直接从文件发送到 socket，数据不经过 JVM 堆
+            request.setAttribute(TOMCAT_SENDFILE_FILENAME, filePath.toAbsolutePath().toString());
+            request.setAttribute(TOMCAT_SENDFILE_START, start);
+            request.setAttribute(TOMCAT_SENDFILE_END, start + count); // 不包含
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break; // 文件被截断
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
     }
 
     // --- 添加一个删除文件的端点 (如果需要前端直接删除文件) ---
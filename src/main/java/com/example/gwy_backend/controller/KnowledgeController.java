@@ -1,10 +1,13 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.dto.KnowledgeItemSummary;
 import com.example.gwy_backend.entity.KnowledgeItem;
 import com.example.gwy_backend.service.KnowledgeService;
+import com.example.gwy_backend.util.SparseFields;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -20,17 +23,45 @@ public class KnowledgeController {
         this.knowledgeService = knowledgeService;
     }
 
-    // GET /api/knowledge - 获取知识条目 (支持按分类和搜索词筛选)
+    // GET /api/knowledge - 获取知识条目列表 (支持按分类和搜索词筛选，不含正文)
+    // 传 fields (如 ?fields=title) 时只返回所选字段 (可以包含 content)，id 和 timestamp 总是返回
     @GetMapping
-    public ResponseEntity<List<KnowledgeItem>> getKnowledgeItems(
+    public ResponseEntity<?> getKnowledgeItems(
             @RequestParam(required = false) String category, // 可选分类参数 ?category=xxx
-            @RequestParam(required = false) String search // 可选搜索参数 ?search=yyy
+            @RequestParam(required = false) String search, // 可选搜索参数 ?search=yyy
+            @RequestParam(required = false) String fields // 可选字段列表 ?fields=title,category
     ) {
-        List<KnowledgeItem> items = knowledgeService.getKnowledgeItems(category, search);
+        if (StringUtils.hasText(fields)) {
+            try {
+                List<String> selected = SparseFields.parse(fields, KnowledgeService.SPARSE_FIELDS);
+                return ResponseEntity.ok(knowledgeService.getKnowledgeItems(category, search, selected));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage()); // 字段不在白名单中
+            }
+        }
+        List<KnowledgeItemSummary> items = knowledgeService.getKnowledgeItems(category, search);
         return ResponseEntity.ok(items);
     }
 
-    // GET /api/knowledge/{id} - 获取单个知识条目
+    // GET /api/knowledge/page?category=xxx&cursor=yyy&size=20&fields=zzz - 游标分页获取知识条目 (按时间倒序，不返回总数)
+    @GetMapping("/page")
+    public ResponseEntity<?> getKnowledgeItemPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor, // 上一页返回的 nextCursor，首页不传
+            @RequestParam(required = false) Integer size, // 默认 20，最大 100
+            @RequestParam(required = false) String fields) { // 可选，同 GET /api/knowledge
+        try {
+            if (StringUtils.hasText(fields)) {
+                List<String> selected = SparseFields.parse(fields, KnowledgeService.SPARSE_FIELDS);
+                return ResponseEntity.ok(knowledgeService.getKnowledgeItemPage(category, cursor, size, selected));
+            }
+            return ResponseEntity.ok(knowledgeService.getKnowledgeItemPage(category, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 游标无效或字段不在白名单中
+        }
+    }
+
+    // GET /api/knowledge/{id} - 获取单个知识条目 (包含正文)
     @GetMapping("/{id}")
     public ResponseEntity<KnowledgeItem> getKnowledgeItemById(@PathVariable Long id) {
         return knowledgeService.getKnowledgeItemById(id)
@@ -2,6 +2,7 @@ package com.example.gwy_backend.controller;
 
 import com.example.gwy_backend.entity.NoteEntry;
 import com.example.gwy_backend.service.NoteService;
+import com.example.gwy_backend.util.SparseFields;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,19 +27,45 @@ public class NoteController {
 
     /**
      * 获取所有笔记记录，按创建时间倒序排列。
+     * 传 fields (如 {@code ?fields=noteKey}) 时只返回所选字段，id 和 timestamp 总是返回，未选的列不会从数据库读取。
      */
     @GetMapping
-    public ResponseEntity<List<NoteEntry>> getAllNotesSorted() {
+    public ResponseEntity<?> getAllNotesSorted(@RequestParam(required = false) String fields) {
         log.info("Received request to get all notes.");
         try {
+            if (StringUtils.hasText(fields)) {
+                return ResponseEntity.ok(noteService.getAllNotes(SparseFields.parse(fields, NoteService.SPARSE_FIELDS)));
+            }
             List<NoteEntry> notes = noteService.getAllNotesSortedByTimestamp();
             return ResponseEntity.ok(notes);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid note fields: {}", fields);
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("Error fetching all notes", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * 游标分页获取笔记，按创建时间倒序；不返回总数，用 nextCursor 请求下一页。fields 同上。
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getNotePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields) {
+        try {
+            if (StringUtils.hasText(fields)) {
+                return ResponseEntity.ok(noteService.getNotePage(cursor, size, SparseFields.parse(fields, NoteService.SPARSE_FIELDS)));
+            }
+            return ResponseEntity.ok(noteService.getNotePage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid note page request: cursor={}, fields={}", cursor, fields);
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * 创建一条新的笔记记录。
      */
@@ -1,8 +1,11 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.dto.CursorPage;
+import com.example.gwy_backend.dto.StudyLogBatchResult;
 import com.example.gwy_backend.entity.PomodoroSettings;
 import com.example.gwy_backend.entity.StudyLog;
 import com.example.gwy_backend.service.PomodoroService; // 确保 PomodoroService 有 clearAllLogs 方法
+import com.example.gwy_backend.util.UserContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +19,6 @@ import java.util.Map;
 public class PomodoroController {
 
     private final PomodoroService pomodoroService;
-    private static final String DEFAULT_SETTINGS_KEY = "default_user"; // 默认设置 key
 
     @Autowired
     public PomodoroController(PomodoroService pomodoroService) {
@@ -25,17 +27,19 @@ public class PomodoroController {
 
     // --- Settings Endpoints ---
 
+    // 设置按用户保存，settingsKey 即当前用户 ID (请求头 X-User-Id，默认 default_user)
+
     // GET /api/pomodoro/settings - 获取番茄钟设置
     @GetMapping("/settings")
     public ResponseEntity<PomodoroSettings> getSettings() {
-        PomodoroSettings settings = pomodoroService.getSettings(DEFAULT_SETTINGS_KEY);
+        PomodoroSettings settings = pomodoroService.getSettings(UserContext.currentUserId());
         return ResponseEntity.ok(settings);
     }
 
     // PATCH /api/pomodoro/settings - 更新番茄钟设置
     @PatchMapping("/settings")
     public ResponseEntity<PomodoroSettings> updateSettings(@RequestBody Map<String, Integer> updates) {
-        return pomodoroService.updateSettings(DEFAULT_SETTINGS_KEY, updates)
+        return pomodoroService.updateSettings(UserContext.currentUserId(), updates)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build()); // 理论上不会发生
     }
@@ -54,17 +58,40 @@ public class PomodoroController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdLog);
     }
 
+    // POST /api/pomodoro/log/batch - 批量同步离线记录的学习日志 (每条需带 clientKey，重复提交会被忽略)
+    @PostMapping("/log/batch")
+    public ResponseEntity<StudyLogBatchResult> addStudyLogsBatch(@RequestBody List<StudyLog> studyLogs) {
+        try {
+            return ResponseEntity.ok(pomodoroService.addStudyLogsBatch(studyLogs));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // 空批次或超过最大条数
+        }
+    }
+
     // GET /api/pomodoro/log/recent - 获取最近的学习日志
     @GetMapping("/log/recent")
     public ResponseEntity<List<StudyLog>> getRecentLogs(
             @RequestParam(defaultValue = "50") int limit // 接收可选的 limit 参数，默认为 50
     ) {
         if (limit <= 0) limit = 50; // 简单验证
+        limit = Math.min(limit, CursorPage.MAX_PAGE_SIZE); // 限制单次返回数量，更早的记录用 /log/page 翻页
         List<StudyLog> logs = pomodoroService.getRecentStudyLogs(limit);
         return ResponseEntity.ok(logs);
     }
 
-    // DELETE /api/pomodoro/log/all - 清空所有学习日志  <<< 添加这个方法
+    // GET /api/pomodoro/log/page?cursor=xxx&size=20 - 游标分页获取学习日志 (按开始时间倒序，不返回总数)
+    @GetMapping("/log/page")
+    public ResponseEntity<CursorPage<StudyLog>> getStudyLogPage(
+            @RequestParam(required = false) String cursor, // 上一页返回的 nextCursor，首页不传
+            @RequestParam(required = false) Integer size) { // 默认 20，最大 100
+        try {
+            return ResponseEntity.ok(pomodoroService.getStudyLogPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // 游标无效
+        }
+    }
+
+    // DELETE /api/pomodoro/log/all - 清空当前用户的所有学习日志
     @DeleteMapping("/log/all")
     public ResponseEntity<Void> clearAllStudyLogs() {
         pomodoroService.clearAllLogs(); // 调用 Service 层的方法
@@ -1,5 +1,6 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.dto.ResourceView;
 import com.example.gwy_backend.entity.Resource;
 import com.example.gwy_backend.service.ResourceService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,11 +23,11 @@ public class ResourceController {
     }
 
     @GetMapping
-    public List<Resource> getAllResources() {
+    public List<ResourceView> getAllResources() {
         // 添加日志以确认方法被调用
         System.out.println(">>> 进入 ResourceController.getAllResources() 方法");
         try {
-            List<Resource> resources = resourceService.getAllResources();
+            List<ResourceView> resources = resourceService.getAllResources();
             System.out.println(">>> 从 Service 获取到 " + (resources != null ? resources.size() : "null") + " 条资源数据");
             return resources;
         } catch (Exception e) {
@@ -39,13 +40,13 @@ public class ResourceController {
     }
 
     @GetMapping("/category/{category}")
-    public List<Resource> getResourcesByCategory(@PathVariable String category) {
+    public List<ResourceView> getResourcesByCategory(@PathVariable String category) {
         System.out.println(">>> 进入 ResourceController.getResourcesByCategory(), category=" + category);
         return resourceService.getResourcesByCategory(category);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Resource> getResourceById(@PathVariable Long id) {
+    public ResponseEntity<ResourceView> getResourceById(@PathVariable Long id) {
          System.out.println(">>> 进入 ResourceController.getResourceById(), id=" + id);
         return resourceService.getResourceById(id)
                 .map(ResponseEntity::ok)
@@ -1,5 +1,6 @@
 package com.example.gwy_backend.controller;
 
+import com.example.gwy_backend.dto.TimelineTaskView;
 import com.example.gwy_backend.entity.TimelineTask;
 import com.example.gwy_backend.service.TimelineService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,7 +23,7 @@ public class TimelineController {
     }
 
     // --- 初始化数据 ---
-    // 应用启动后自动尝试初始化任务列表 (仅当数据库为空时)
+    // 登记初始任务模板，用户还没有任务列表时从模板复制
     @PostConstruct
     public void initTasks() {
         // 定义初始任务列表 (硬编码或从配置文件读取)
@@ -54,15 +55,15 @@ public class TimelineController {
 
     // GET /api/timeline/tasks - 获取所有任务 (平铺列表形式)
     @GetMapping("/tasks")
-    public ResponseEntity<List<TimelineTask>> getAllTasks() {
-        List<TimelineTask> tasks = timelineService.getAllTasksList();
+    public ResponseEntity<List<TimelineTaskView>> getAllTasks() {
+        List<TimelineTaskView> tasks = timelineService.getAllTasksList();
         return ResponseEntity.ok(tasks);
     }
 
     // GET /api/timeline/tasks/grouped - 获取所有任务 (按阶段分组形式)
     @GetMapping("/tasks/grouped")
-    public ResponseEntity<Map<String, List<TimelineTask>>> getAllTasksGrouped() {
-        Map<String, List<TimelineTask>> groupedTasks = timelineService.getAllTasksGroupedByPhase();
+    public ResponseEntity<Map<String, List<TimelineTaskView>>> getAllTasksGrouped() {
+        Map<String, List<TimelineTaskView>> groupedTasks = timelineService.getAllTasksGroupedByPhase();
         return ResponseEntity.ok(groupedTasks);
     }
 
@@ -0,0 +1,32 @@
+package com.example.gwy_backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 一整年的每日学习 / 在线时长 (热力图)。
+ * <p>
+ * 两个数组长度都等于当年天数，下标 i 对应 {@code firstDay.plusDays(i)}，没有记录的日期为 0。
+ * 往年的热力图会被缓存并在请求间共享，因此构造时复制传入的数组，访问方法每次返回副本，调用方无法改动缓存内容。
+ *
+ * @param year 年份
+ * @param firstDay 当年 1 月 1 日
+ * @param studySeconds 每天的学习秒数 (来自学习日志)
+ * @param onlineSeconds 每天的在线秒数 (来自心跳)
+ */
+public record ActivityHeatmap(int year, LocalDate firstDay, long[] studySeconds, long[] onlineSeconds) {
+
+    public ActivityHeatmap {
+        studySeconds = studySeconds.clone();
+        onlineSeconds = onlineSeconds.clone();
+    }
+
+    @Override
+    public long[] studySeconds() {
+        return studySeconds.clone();
+    }
+
+    @Override
+    public long[] onlineSeconds() {
+        return onlineSeconds.clone();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.gwy_backend.dto;
+
+import com.example.gwy_backend.util.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 基于游标 (keyset) 的分页结果。
+ * <p>
+ * 不返回总数，避免额外的 count(*) 查询；客户端把 nextCursor 原样带到下一次请求即可，
+ * hasMore 为 false 时 nextCursor 为 null。
+ *
+ * @param items 当前页数据
+ * @param nextCursor 下一页游标 (不透明字符串)
+ * @param hasMore 是否还有下一页
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasMore) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 把客户端请求的页大小限制在 [1, MAX_PAGE_SIZE]，未提供时使用默认值。
+     */
+    public static int clampSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 由多查询一条 (size + 1) 的结果构造分页：多出的那一条只用来判断是否还有下一页。
+     *
+     * @param rows 查询结果，最多 size + 1 条
+     * @param size 页大小
+     * @param keyOf 从最后一条数据提取游标键
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> keyOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(items), keyOf.apply(items.get(size - 1)).encode(), true);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.gwy_backend.dto;
+
+import com.example.gwy_backend.entity.ErrorStat;
+import com.example.gwy_backend.entity.ErrorStat.Level;
+
+/**
+ * 一个模块或知识点的错题统计。
+ * @param level SUBJECT 表示整个模块，KNOWLEDGE_POINT 表示模块下的一个知识点
+ * @param subject 模块 (未填写时为空字符串)
+ * @param knowledgePoint 知识点 (SUBJECT 行或未填写时为空字符串)
+ * @param totalCount 错题总数
+ * @param unreviewedCount 从未复习过的错题数
+ * @param averageReviews 平均复习次数
+ * @param addedRecently 最近 {@code recentDays} 天 (含今天) 新增的错题数
+ */
+public record ErrorStatSummary(Level level,
+                               String subject,
+                               String knowledgePoint,
+                               long totalCount,
+                               long unreviewedCount,
+                               double averageReviews,
+                               long addedRecently,
+                               int recentDays) {
+
+    public static ErrorStatSummary of(ErrorStat stat, long addedRecently, int recentDays) {
+        double average = stat.getTotalCount() > 0 ? (double) stat.getTotalReviews() / stat.getTotalCount() : 0;
+        return new ErrorStatSummary(stat.getLevel(), stat.getSubject(), stat.getKnowledgePoint(),
+                stat.getTotalCount(), stat.getUnreviewedCount(), Math.round(average * 100) / 100.0,
+                addedRecently, recentDays);
+    }
+}
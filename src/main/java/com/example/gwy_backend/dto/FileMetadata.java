@@ -0,0 +1,27 @@
+package com.example.gwy_backend.dto;
+
+import com.example.gwy_backend.entity.StoredFile;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件元数据 (缓存在内存中，下载时用来构造响应头)。
+ *
+ * @param identifier 存储标识符
+ * @param size 字节数
+ * @param contentType Content-Type
+ * @param sha256 内容摘要，元数据表之前存储的旧文件为 null
+ * @param originalFilename 上传时的原始文件名，未知或文件在多次上传之间共享 (内容寻址存储) 时为 null
+ * @param createdAt 写入时间 (用作 Last-Modified)
+ */
+public record FileMetadata(String identifier, long size, String contentType, String sha256,
+                           String originalFilename, LocalDateTime createdAt) {
+
+    public static FileMetadata from(StoredFile storedFile) {
+        // 内容寻址存储的文件名就是摘要，这类记录中早先写入的原始文件名属于首次上传者，不能给其他用户看到
+        String filename = storedFile.getIdentifier().substring(storedFile.getIdentifier().lastIndexOf('/') + 1);
+        boolean contentAddressed = storedFile.getSha256() != null && filename.startsWith(storedFile.getSha256());
+        return new FileMetadata(storedFile.getIdentifier(), storedFile.getSize(), storedFile.getContentType(),
+                storedFile.getSha256(), contentAddressed ? null : storedFile.getOriginalFilename(), storedFile.getCreatedAt());
+    }
+}
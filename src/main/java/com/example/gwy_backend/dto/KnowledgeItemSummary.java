@@ -0,0 +1,31 @@
+package com.example.gwy_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 知识条目列表视图 (不含正文 content)。
+ * <p>
+ * 由 JPQL 构造表达式直接查询需要的列，标签随后按 ID 批量一次查询再用 {@link #withTags} 填入，
+ * 列出 N 条只需要两条 SQL；完整内容通过 GET /api/knowledge/{id} 获取。
+ */
+public record KnowledgeItemSummary(Long id,
+                                   LocalDateTime timestamp,
+                                   String title,
+                                   String category,
+                                   List<String> tags,
+                                   String externalLink,
+                                   String linkedFile) {
+
+    /**
+     * JPQL 构造表达式使用，标签为空列表。
+     */
+    public KnowledgeItemSummary(Long id, LocalDateTime timestamp, String title, String category,
+                                String externalLink, String linkedFile) {
+        this(id, timestamp, title, category, List.of(), externalLink, linkedFile);
+    }
+
+    public KnowledgeItemSummary withTags(List<String> tags) {
+        return new KnowledgeItemSummary(id, timestamp, title, category, List.copyOf(tags), externalLink, linkedFile);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.gwy_backend.dto;
+
+import com.example.gwy_backend.entity.Resource;
+
+import java.time.LocalDateTime;
+
+/**
+ * 学习资源的只读快照，JSON 字段与 {@link Resource} 相同。
+ * <p>
+ * 缓存和读接口返回这个快照而不是托管实体：调用方无法修改缓存中的对象，也不会把它当作实体再保存。
+ */
+public record ResourceView(Long id,
+                           String title,
+                           String url,
+                           String icon,
+                           String category,
+                           String description,
+                           Integer displayOrder,
+                           LocalDateTime createdAt,
+                           LocalDateTime updatedAt) {
+
+    public static ResourceView from(Resource resource) {
+        return new ResourceView(resource.getId(), resource.getTitle(), resource.getUrl(), resource.getIcon(),
+                resource.getCategory(), resource.getDescription(), resource.getDisplayOrder(),
+                resource.getCreatedAt(), resource.getUpdatedAt());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.gwy_backend.dto;
+
+import java.util.List;
+
+/**
+ * 批量同步学习日志的结果。客户端可以据此把 CREATED 和 DUPLICATE 的记录标记为已同步，
+ * REJECTED 的记录需要修正后再提交。
+ *
+ * @param created 新插入的条数
+ * @param duplicates 已存在 (之前同步过或同一批中重复) 的条数
+ * @param rejected 校验失败的条数
+ * @param items 与请求顺序一一对应的逐条结果
+ */
+public record StudyLogBatchResult(int created, int duplicates, int rejected, List<Item> items) {
+
+    public enum Status { CREATED, DUPLICATE, REJECTED }
+
+    /**
+     * @param clientKey 客户端幂等键
+     * @param status 处理结果
+     * @param id 数据库 ID (REJECTED 时为 null)
+     * @param message 拒绝原因 (仅 REJECTED)
+     */
+    public record Item(String clientKey, Status status, Long id, String message) { }
+}
@@ -0,0 +1,17 @@
+package com.example.gwy_backend.dto;
+
+import com.example.gwy_backend.entity.TimelineTask;
+
+/**
+ * 时间线任务的只读快照，JSON 字段与 {@link TimelineTask} 相同。缓存和读接口返回这个快照而不是托管实体。
+ */
+public record TimelineTaskView(String userId,
+                               String id,
+                               String label,
+                               String phase,
+                               boolean completed) {
+
+    public static TimelineTaskView from(TimelineTask task) {
+        return new TimelineTaskView(task.getUserId(), task.getId(), task.getLabel(), task.getPhase(), task.isCompleted());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.gwy_backend.dto;
+
+/**
+ * 创建分片上传会话的请求。
+ *
+ * @param filename 原始文件名 (用于确定扩展名)
+ * @param size 文件总字节数
+ * @param type 关联类型 ("error" 或 "knowledge")，与普通上传接口一致
+ * @param entityId 关联的实体 ID
+ * @param chunkSize 期望的分片大小 (可选，服务端会限制在允许范围内)
+ */
+public record UploadSessionRequest(String filename, long size, String type, Long entityId, Integer chunkSize) { }
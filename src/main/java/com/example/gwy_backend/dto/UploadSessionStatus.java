@@ -0,0 +1,25 @@
+package com.example.gwy_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片上传会话的状态。客户端断线重连后据此只补传 missingChunks 中的分片。
+ * 第 i 个分片的偏移量为 i * chunkSize，除最后一片外长度都等于 chunkSize。
+ *
+ * @param uploadId 会话 ID
+ * @param filename 原始文件名
+ * @param size 文件总字节数
+ * @param chunkSize 分片大小
+ * @param totalChunks 分片总数
+ * @param receivedChunks 已成功接收 (校验通过) 的分片数
+ * @param missingChunks 尚未接收的分片序号
+ * @param expiresAt 无活动时的过期时间
+ */
+public record UploadSessionStatus(String uploadId, String filename, long size, int chunkSize, int totalChunks,
+                                  int receivedChunks, List<Integer> missingChunks, LocalDateTime expiresAt) {
+
+    public boolean isComplete() {
+        return receivedChunks == totalChunks;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
 import java.time.LocalDate;
 import java.time.LocalDateTime; // 可能需要 LocalDateTime 如果要精确时间
 
@@ -13,7 +14,7 @@ import java.time.LocalDateTime; // 可能需要 LocalDateTime 如果要精确时
 @AllArgsConstructor
 @Table(name = "daily_activity_log",
        indexes = {
-           @Index(name = "idx_activity_date", columnList = "activityDate", unique = true), // activityDate 唯一
+           @Index(name = "uk_activity_user_date", columnList = "userId, activityDate", unique = true), // 每个用户每天一行
            @Index(name = "idx_log_date", columnList = "logDate") // logDate 普通索引
        })
 public class DailyActivityLog {
@@ -22,8 +23,11 @@ public class DailyActivityLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private LocalDate activityDate; // 记录的活动日期 (保持唯一)
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
+    @Column(nullable = false)
+    private LocalDate activityDate; // 记录的活动日期 (同一用户内唯一)
 
     // **MODIFIED:** 添加 logDate 字段，并映射到数据库的 log_date 列
     // 假设它也需要存储日期，并且不允许为空
@@ -62,7 +66,8 @@ public class DailyActivityLog {
     // }
 
     // 提供一个方便的构造函数 (Lombok 的 @AllArgsConstructor 会生成所有字段的)
-    public DailyActivityLog(LocalDate activityDate) {
+    public DailyActivityLog(String userId, LocalDate activityDate) {
+        this.userId = userId;
         this.activityDate = activityDate;
         this.logDate = activityDate; // 默认 logDate 等于 activityDate
         this.totalOnlineSeconds = 0;
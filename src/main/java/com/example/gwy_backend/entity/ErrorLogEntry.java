@@ -4,12 +4,19 @@ import jakarta.persistence.*; // 使用 jakarta for Spring Boot 3+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
 import java.time.LocalDateTime; // 使用 Java 8+ 的日期时间 API
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_error_user_timestamp_id", columnList = "userId, timestamp, id"), // 游标分页
+        @Index(name = "idx_error_user_subject_timestamp_id", columnList = "userId, subject, timestamp, id"), // 按模块游标分页
+        @Index(name = "idx_error_image_file", columnList = "imageFile"), // 删除共享文件前检查引用 (文件在用户之间共享)
+        @Index(name = "idx_error_user_next_review_subject", columnList = "userId, nextReviewAt, subject") // 到期复习队列
+})
 public class ErrorLogEntry {
 
     @Id
@@ -17,6 +24,9 @@ public class ErrorLogEntry {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
     private LocalDateTime timestamp; // 记录时间
 
     @Column(columnDefinition = "TEXT") // 对于可能较长的文本，使用 TEXT 类型
@@ -35,14 +45,31 @@ public class ErrorLogEntry {
 
     private String imageFile; // 截图文件名 (仅保存文件名)
 
+    @Column(length = StoredFile.ORIGINAL_FILENAME_MAX_LENGTH)
+    private String imageFileName; // 截图上传时的原始文件名，下载时的显示名 (共享存储的文件各条目保留自己的名字)
+
     private int reviewCount = 0; // 复习次数，默认为 0
 
     private LocalDateTime lastReviewDate; // 上次复习时间 (可以为 null)
 
+    // --- 间隔重复 (SM-2) 调度状态，由 util.ReviewScheduler 维护 ---
+    private LocalDateTime nextReviewAt; // 下次应复习的时间
+
+    private double easeFactor = INITIAL_EASE_FACTOR; // 难度系数，越大间隔增长越快
+
+    private int intervalDays = 0; // 当前复习间隔 (天)
+
+    private int repetitions = 0; // 连续答对 (质量 >= 3) 的次数
+
+    public static final double INITIAL_EASE_FACTOR = 2.5;
+
     // 在添加新条目时自动设置当前时间
     @PrePersist
     protected void onCreate() {
         timestamp = LocalDateTime.now();
+        if (nextReviewAt == null) {
+            nextReviewAt = timestamp.plusDays(1); // 新错题第二天进入复习队列
+        }
     }
 
     // 在更新条目时自动更新上次复习时间 (如果 reviewCount 增加了)
@@ -0,0 +1,62 @@
+package com.example.gwy_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
+
+/**
+ * 错题统计预聚合表 (按模块 / 按模块下的知识点)。
+ * 由 ErrorLogService 在添加、复习、删除错题的同一事务中增量维护，薄弱点统计直接读取这里的少量行。
+ * <p>
+ * 模块、知识点为空时存为空字符串，SUBJECT 行的 knowledgePoint 固定为空字符串。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "error_stat",
+       indexes = {
+           @Index(name = "uk_error_stat_user_key", columnList = "userId, level, subject, knowledgePoint", unique = true) // 每个用户每个维度只有一行
+       })
+public class ErrorStat {
+
+    /**
+     * 统计维度：整个模块，或模块下的一个知识点。
+     */
+    public enum Level { SUBJECT, KNOWLEDGE_POINT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Level level;
+
+    @Column(nullable = false)
+    private String subject = "";
+
+    @Column(nullable = false)
+    private String knowledgePoint = "";
+
+    @Column(nullable = false)
+    private long totalCount = 0; // 错题总数
+
+    @Column(nullable = false)
+    private long unreviewedCount = 0; // 从未复习过的错题数
+
+    @Column(nullable = false)
+    private long totalReviews = 0; // 复习次数之和 (除以 totalCount 即平均复习次数)
+
+    public ErrorStat(String userId, Level level, String subject, String knowledgePoint) {
+        this.userId = userId;
+        this.level = level;
+        this.subject = subject;
+        this.knowledgePoint = knowledgePoint;
+    }
+}
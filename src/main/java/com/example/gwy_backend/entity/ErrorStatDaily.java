@@ -0,0 +1,47 @@
+package com.example.gwy_backend.entity;
+
+import com.example.gwy_backend.entity.ErrorStat.Level;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
+import java.time.LocalDate;
+
+/**
+ * 每天新增错题数 (维度同 {@link ErrorStat})，用于计算最近 N 天新增，
+ * 只需对少量日期行求和，而不是按时间扫描 error_log_entry。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "error_stat_daily",
+       indexes = {
+           @Index(name = "uk_error_stat_daily_user_key", columnList = "userId, statDate, level, subject, knowledgePoint", unique = true)
+       })
+public class ErrorStatDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
+    @Column(nullable = false)
+    private LocalDate statDate; // 错题记录日期
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Level level;
+
+    @Column(nullable = false)
+    private String subject = "";
+
+    @Column(nullable = false)
+    private String knowledgePoint = "";
+
+    @Column(nullable = false)
+    private long addedCount = 0; // 当天新增 (减去已删除) 的错题数
+}
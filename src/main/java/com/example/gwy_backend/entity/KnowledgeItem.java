@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.List; // 用于存储标签列表
 
@@ -11,12 +13,20 @@ import java.util.List; // 用于存储标签列表
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_knowledge_user_timestamp_id", columnList = "userId, timestamp, id"), // 游标分页
+        @Index(name = "idx_knowledge_user_category_timestamp_id", columnList = "userId, category, timestamp, id"), // 按分类游标分页
+        @Index(name = "idx_knowledge_linked_file", columnList = "linkedFile") // 删除共享文件前检查引用
+})
 public class KnowledgeItem {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
     private LocalDateTime timestamp; // 添加时间
 
     @Column(nullable = false)
@@ -31,7 +41,9 @@ public class KnowledgeItem {
 
     // 使用 @ElementCollection 存储简单的字符串列表 (标签)
     // 这会在数据库中创建一张额外的表来存储标签和 KnowledgeItem 的关联
-    @ElementCollection(fetch = FetchType.EAGER) // EAGER 表示加载 KnowledgeItem 时同时加载标签
+    // LAZY：列表接口走 KnowledgeItemSummary 投影并按 ID 批量查询标签，详情接口用实体图一次加载
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100) // 其他路径访问多个条目的标签时按 IN (...) 批量初始化，避免 N+1
     @CollectionTable(name = "knowledge_item_tags", joinColumns = @JoinColumn(name = "item_id")) // 指定关联表的名称和外键列名
     @Column(name = "tag") // 指定存储标签值的列名
     private List<String> tags; // 标签列表
@@ -40,6 +52,9 @@ public class KnowledgeItem {
 
     private String linkedFile; // 关联文件名 (可以为 null)
 
+    @Column(length = StoredFile.ORIGINAL_FILENAME_MAX_LENGTH)
+    private String linkedFileName; // 关联文件上传时的原始文件名，下载时的显示名 (共享存储的文件各条目保留自己的名字)
+
     @PrePersist
     protected void onCreate() {
         timestamp = LocalDateTime.now();
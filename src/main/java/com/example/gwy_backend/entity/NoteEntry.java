@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
 import java.time.LocalDateTime;
 
 @Entity
@@ -12,13 +13,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 // 移除 noteKey 的唯一索引，可以保留普通索引或 lastUpdated 索引
 @Table(name = "note_entry",
-        indexes = { @Index(name = "idx_note_timestamp", columnList = "timestamp DESC") }) // 按时间戳降序索引
+        indexes = { @Index(name = "idx_note_user_timestamp_id", columnList = "userId, timestamp DESC, id DESC") }) // 按 (用户, 时间戳, ID) 索引，支持游标分页
 public class NoteEntry {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
     // noteKey 不再唯一，仅作为分类或来源标识 (可以为 null)
     @Column(length = 100)
     private String noteKey;
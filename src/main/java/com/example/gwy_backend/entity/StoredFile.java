@@ -0,0 +1,63 @@
+package com.example.gwy_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * 已存储文件的元数据，写入时记录一次，下载时直接使用。
+ * 内容寻址存储模式下相同内容只在磁盘上保存一份，文件名即内容的 SHA-256，refCount 记录有多少次上传引用了它；
+ * uuid 模式下每个文件一条记录，refCount 固定为 1。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stored_file",
+       indexes = {
+           @Index(name = "uk_stored_file_identifier", columnList = "identifier", unique = true)
+       })
+public class StoredFile {
+
+    public static final int ORIGINAL_FILENAME_MAX_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String identifier; // 存储标识符 (子目录/摘要.扩展名)，与实体中保存的文件字段一致
+
+    @Column(nullable = false, length = 64)
+    private String sha256; // 内容摘要 (十六进制)
+
+    @Column(nullable = false)
+    private long size; // 字节数
+
+    @Column(length = 127)
+    private String contentType; // 写入时确定的 Content-Type (旧记录可能为空)
+
+    @Column(length = ORIGINAL_FILENAME_MAX_LENGTH)
+    private String originalFilename; // 上传时的原始文件名 (只有 uuid 模式记录；内容寻址模式下文件在用户之间共享，显示名保存在引用它的条目上)
+
+    @Column(nullable = false)
+    private long refCount = 0; // 引用计数，降到 0 且没有实体引用时才删除物理文件
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public StoredFile(String identifier, String sha256, long size, String contentType, String originalFilename) {
+        this.identifier = identifier;
+        this.sha256 = sha256;
+        this.size = size;
+        this.contentType = contentType;
+        this.originalFilename = originalFilename;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.gwy_backend.entity; // 替换为你的包名
 
+import com.example.gwy_backend.util.UserContext;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data; // Lombok: 自动生成 getter, setter, toString, equals, hashCode
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -12,12 +16,16 @@ import lombok.AllArgsConstructor;
 @Data   // Lombok: 自动生成常用方法
 @NoArgsConstructor // Lombok: 生成无参构造函数 (JPA 需要)
 @AllArgsConstructor // Lombok: 生成包含所有字段的构造函数
+@Table(indexes = { @Index(name = "idx_goal_user_id", columnList = "userId, id") }) // 按用户列出目标
 public class StudyGoal {
 
     @Id // 标记这是主键
     @GeneratedValue(strategy = GenerationType.IDENTITY) // 主键自增生成策略
     private Long id;
 
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
     private String text; // 目标内容
 
     private boolean completed; // 是否完成
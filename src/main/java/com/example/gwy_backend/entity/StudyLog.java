@@ -4,18 +4,27 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_study_log_user_start_time_id", columnList = "userId, startTime, id"), // 最近日志 / 游标分页
+        @Index(name = "uk_study_log_user_client_key", columnList = "userId, clientKey", unique = true) // 离线同步去重 (每个用户各自唯一)
+})
 public class StudyLog {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
     @Column(nullable = false)
     private LocalDateTime startTime; // 开始时间
 
@@ -30,6 +39,15 @@ public class StudyLog {
 
     private String source = "pomodoro"; // 来源 (例如 'pomodoro', 'manual')
 
-    // 可以考虑添加用户关联字段 (如果实现用户系统)
-    // private Long userId;
+    // 客户端生成的幂等键 (离线记录补传时去重)，在线直接提交的记录可以为 null
+    @Column(length = StudyLog.CLIENT_KEY_MAX_LENGTH)
+    private String clientKey;
+
+    // 批量同步时写入的批次标记：重复键的行保持原值，按 (clientKey, syncToken) 即可查出由本批插入的行
+    @JsonIgnore
+    @Column(length = StudyLog.SYNC_TOKEN_LENGTH)
+    private String syncToken;
+
+    public static final int CLIENT_KEY_MAX_LENGTH = 64;
+    public static final int SYNC_TOKEN_LENGTH = 36; // UUID
 }
\ No newline at end of file
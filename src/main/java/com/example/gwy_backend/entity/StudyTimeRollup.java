@@ -0,0 +1,54 @@
+package com.example.gwy_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
+import java.time.LocalDate;
+
+/**
+ * 学习时长预聚合表 (按天 / 按月)。
+ * 由 StudyLogAddedEvent 增量维护，统计接口直接读取这里的少量行，而不是扫描整张 study_log 表。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "study_time_rollup",
+       indexes = {
+           @Index(name = "uk_rollup_user_period", columnList = "userId, periodType, periodStart", unique = true) // 每个用户每个周期只有一行
+       })
+public class StudyTimeRollup {
+
+    /**
+     * 聚合粒度。DAY 行的 periodStart 为当天，MONTH 行的 periodStart 为当月 1 号。
+     */
+    public enum Period { DAY, MONTH }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Period periodType;
+
+    @Column(nullable = false)
+    private LocalDate periodStart; // 周期起始日期
+
+    @Column(nullable = false)
+    private long totalSeconds = 0; // 该周期内的学习总秒数
+
+    @Column(nullable = false)
+    private long logCount = 0; // 该周期内的学习日志条数
+
+    public StudyTimeRollup(String userId, Period periodType, LocalDate periodStart) {
+        this.userId = userId;
+        this.periodType = periodType;
+        this.periodStart = periodStart;
+    }
+}
@@ -4,15 +4,33 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.gwy_backend.util.UserContext;
+
+import java.io.Serializable;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-// 添加索引，特别是如果经常按 phase 查询
-@Table(indexes = { @Index(name = "idx_task_phase", columnList = "phase") })
+// 主键为 (userId, id)：每个用户各有一份任务列表，按用户查询直接走主键前缀
+@IdClass(TimelineTask.Key.class)
 public class TimelineTask {
 
+    /**
+     * 复合主键。
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String userId;
+        private String id;
+    }
+
+    @Id
+    @Column(length = UserContext.USER_ID_MAX_LENGTH)
+    private String userId = UserContext.DEFAULT_USER_ID; // 所属用户 (请求头 X-User-Id)
+
     @Id
     // 注意：这次我们可能使用前端定义的 ID (例如 "task-phase1-1-timeline") 作为主键，
     // 因为任务列表是相对固定的。或者仍然让数据库生成 Long ID，并添加一个唯一的 taskKey 字段。
@@ -32,4 +50,11 @@ public class TimelineTask {
     // private int sortOrder;
 
     // 注意：如果使用前端ID做主键，就不需要 @GeneratedValue 了
+
+    public TimelineTask(String id, String label, String phase, boolean completed) {
+        this.id = id;
+        this.label = label;
+        this.phase = phase;
+        this.completed = completed;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.gwy_backend.event;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.util.Assert;
+
+import java.util.Set;
+
+/**
+ * 缓冲的在线时长已写入 daily_activity_log。每轮定时刷新最多发布一次，只包含本轮有增量的用户。
+ */
+public class OnlineDurationFlushedEvent extends ApplicationEvent {
+
+    private final Set<String> userIds;
+
+    /**
+     * @param source 事件源
+     * @param userIds 本轮写入了在线时长的用户 (不能为空)
+     */
+    public OnlineDurationFlushedEvent(Object source, Set<String> userIds) {
+        super(source);
+        Assert.notEmpty(userIds, "UserIds cannot be empty for OnlineDurationFlushedEvent");
+        this.userIds = Set.copyOf(userIds);
+    }
+
+    public Set<String> getUserIds() {
+        return userIds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.gwy_backend.event; // <<< 确认包名
 
 import com.example.gwy_backend.entity.StudyLog; // <<< 确认实体路径
+import com.example.gwy_backend.listener.StudyLogFence;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.util.Assert; // 用于参数校验
 
@@ -10,16 +11,20 @@ import org.springframework.util.Assert; // 用于参数校验
 public class StudyLogAddedEvent extends ApplicationEvent {
 
     private final StudyLog studyLog;
+    private final StudyLogFence.Stamp stamp;
 
     /**
      * 创建一个新的 StudyLogAddedEvent.
      * @param source 事件源 (通常是发布事件的服务实例，例如 PomodoroServiceImpl)
      * @param studyLog 新添加的 StudyLog 对象 (不能为 null)
+     * @param stamp 写入时的代数 (见 {@link StudyLogFence#enterLogWrite})
      */
-    public StudyLogAddedEvent(Object source, StudyLog studyLog) {
+    public StudyLogAddedEvent(Object source, StudyLog studyLog, StudyLogFence.Stamp stamp) {
         super(source);
         Assert.notNull(studyLog, "StudyLog cannot be null for StudyLogAddedEvent"); // 添加校验
+        Assert.notNull(stamp, "Stamp cannot be null for StudyLogAddedEvent");
         this.studyLog = studyLog;
+        this.stamp = stamp;
     }
 
     /**
@@ -29,4 +34,8 @@ public class StudyLogAddedEvent extends ApplicationEvent {
     public StudyLog getStudyLog() {
         return studyLog;
     }
+
+    public StudyLogFence.Stamp getStamp() {
+        return stamp;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.gwy_backend.event;
+
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.listener.StudyLogFence;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * 一批学习日志 (离线同步) 已成功添加的领域事件。
+ * 与 {@link StudyLogAddedEvent} 相同的语义，但整批只发布一次。
+ */
+public class StudyLogsBatchAddedEvent extends ApplicationEvent {
+
+    private final List<StudyLog> studyLogs;
+    private final StudyLogFence.Stamp stamp;
+
+    /**
+     * @param source 事件源
+     * @param studyLogs 本批新插入的日志 (同一用户，不含重复提交被忽略的记录，不能为空)
+     * @param stamp 写入时的代数 (见 {@link StudyLogFence#enterLogWrite})
+     */
+    public StudyLogsBatchAddedEvent(Object source, List<StudyLog> studyLogs, StudyLogFence.Stamp stamp) {
+        super(source);
+        Assert.notEmpty(studyLogs, "StudyLogs cannot be empty for StudyLogsBatchAddedEvent");
+        Assert.notNull(stamp, "Stamp cannot be null for StudyLogsBatchAddedEvent");
+        this.studyLogs = List.copyOf(studyLogs);
+        this.stamp = stamp;
+    }
+
+    public List<StudyLog> getStudyLogs() {
+        return studyLogs;
+    }
+
+    public StudyLogFence.Stamp getStamp() {
+        return stamp;
+    }
+}
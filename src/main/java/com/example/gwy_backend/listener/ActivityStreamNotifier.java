@@ -0,0 +1,40 @@
+package com.example.gwy_backend.listener;
+
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.event.OnlineDurationFlushedEvent;
+import com.example.gwy_backend.service.ActivityStreamService;
+import com.example.gwy_backend.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 学习统计变化时通知实时推送：新学习日志 (经由 StudyLogEventPipeline，排在聚合表更新之后，推送的统计已包含这些日志)
+ * 和在线时长刷新写库。这里只标记用户，统计由 {@link ActivityStreamService} 合并后计算。
+ */
+@Component
+public class ActivityStreamNotifier implements StudyLogBatchConsumer {
+
+    private final ActivityStreamService activityStreamService;
+
+    @Autowired
+    public ActivityStreamNotifier(ActivityStreamService activityStreamService) {
+        this.activityStreamService = activityStreamService;
+    }
+
+    @Override
+    public void onStudyLogs(List<StudyLog> logs) {
+        Set<String> userIds = logs.stream().map(StudyLog::getUserId).collect(Collectors.toSet());
+        // 聚合表的更新与本批在同一个事务中，提交后再计算统计
+        TransactionUtils.afterCommit(() -> activityStreamService.statsChanged(userIds));
+    }
+
+    @EventListener
+    public void onOnlineDurationFlushed(OnlineDurationFlushedEvent event) {
+        activityStreamService.statsChanged(event.getUserIds());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.gwy_backend.listener;
+
+import com.example.gwy_backend.entity.StudyLog;
+
+import java.util.List;
+
+/**
+ * 学习日志事件的批量消费者。
+ * <p>
+ * 由 {@link StudyLogEventPipeline} 在事务提交后、在独立的消费线程上调用，一次收到一批 (可能来自多个事件的) 日志。
+ * 实现类如需写库应自行开启新事务 (REQUIRES_NEW)：队列已满时管道会退化为在发布者线程上直接调用，
+ * 此时仍处于原事务的 afterCommit 阶段，加入该事务的写操作不会被提交。
+ * 多个消费者按 {@link org.springframework.core.annotation.Order} 顺序调用。
+ */
+public interface StudyLogBatchConsumer {
+
+    /**
+     * 处理一批新增的学习日志。
+     * @param logs 已提交的学习日志 (不为空)
+     */
+    void onStudyLogs(List<StudyLog> logs);
+}
@@ -0,0 +1,43 @@
+package com.example.gwy_backend.listener;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 学习日志事件队列满 (CALLER_RUNS) 时，把发布者线程上的处理推迟到请求处理完成之后。
+ * <p>
+ * 事件在发布者事务的提交回调中到达，此时发布者仍占着自己的连接 (open-in-view 时一直到请求结束)，
+ * 就地处理要再借一个连接；在过滤器中请求已经处理完，EntityManager 已关闭、连接已归还，处理只需要一个连接。
+ * 处理完成前响应不会结束，慢下来的仍然是产生事件的请求。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // 最外层，在其他过滤器和 open-in-view 都结束之后处理
+public class StudyLogCallerRunsFilter extends OncePerRequestFilter {
+
+    private final StudyLogEventPipeline pipeline;
+
+    @Autowired
+    public StudyLogCallerRunsFilter(StudyLogEventPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        pipeline.beginCallerRunsScope();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            pipeline.endCallerRunsScope();
+        }
+    }
+}
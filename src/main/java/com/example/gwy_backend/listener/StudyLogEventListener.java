@@ -1,54 +1,52 @@
 package com.example.gwy_backend.listener; // <<< 确认包名
 
 import com.example.gwy_backend.entity.StudyLog;
-import com.example.gwy_backend.event.StudyLogAddedEvent; // <<< 导入事件
+import com.example.gwy_backend.service.StudyRollupService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.event.EventListener; // <<< 导入注解
-import org.springframework.scheduling.annotation.Async; // <<< 可选：异步处理
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
- * 监听并处理学习日志相关事件的组件。
+ * 处理学习日志相关事件的组件。
+ * 事件由 StudyLogEventPipeline 在事务提交后异步、批量地投递过来，不再阻塞 addStudyLog 请求。
  */
 @Component // 标记为 Spring Bean
-public class StudyLogEventListener {
+@Order(Ordered.HIGHEST_PRECEDENCE) // 聚合表要先于其他消费者更新，后续消费者读取到的统计才是最新的
+public class StudyLogEventListener implements StudyLogBatchConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(StudyLogEventListener.class);
 
-    // 未来可以注入其他 Service，例如用于更新统计缓存或成就系统
-    // @Autowired
-    // private SomeOtherService someOtherService;
+    // 学习时长预聚合表由此监听器增量维护
+    private final StudyRollupService studyRollupService;
+
+    @Autowired
+    public StudyLogEventListener(StudyRollupService studyRollupService) {
+        this.studyRollupService = studyRollupService;
+    }
 
     /**
-     * 处理学习日志添加事件。
-     * 使用 @EventListener 注解订阅 StudyLogAddedEvent。
-     * 使用 @Async (可选) 使事件处理在单独的线程中异步执行，避免阻塞发布者。
-     * @param event 包含新添加日志的事件对象
+     * 处理一批新增的学习日志。
+     * @param logs 已提交的学习日志
      */
-    @EventListener
-    // @Async // 如果希望异步处理，需要先在启动类上加 @EnableAsync
-    public void handleStudyLogAdded(StudyLogAddedEvent event) {
-        StudyLog addedLog = event.getStudyLog();
-        // 添加简单的延迟，模拟处理耗时（仅用于演示异步效果）
-        // try { Thread.sleep(1000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
-
-        log.info("[Listener] Received StudyLogAddedEvent: ID={}, Activity='{}', Duration={}s. Source={}",
-                addedLog.getId(),
-                addedLog.getActivity(),
-                addedLog.getDurationSeconds(),
-                event.getSource().getClass().getSimpleName()); // 打印事件源类名
+    @Override
+    public void onStudyLogs(List<StudyLog> logs) {
+        if (log.isDebugEnabled()) {
+            for (StudyLog addedLog : logs) {
+                log.debug("[Listener] Received study log: ID={}, Activity='{}', Duration={}s.",
+                        addedLog.getId(), addedLog.getActivity(), addedLog.getDurationSeconds());
+            }
+        }
+        log.info("[Listener] Processing batch of {} study log(s).", logs.size());
 
         // 在这里执行与日志添加相关的解耦操作:
-        // - 更新相关统计缓存（如果未使用实时计算）
+        // - 更新学习时长预聚合表 (在管道的分派事务中，一批只发一次 UPDATE/天)
         // - 检查是否触发成就
         // - 发送通知等...
-        // 例如: someOtherService.processNewLog(addedLog);
-
-        // 目前仅打印日志
+        studyRollupService.applyStudyLogs(logs);
     }
-
-     // 可以添加处理其他事件的方法
-     // @EventListener
-     // public void handleAnotherAppEvent(AnotherEvent event) { ... }
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+package com.example.gwy_backend.listener;
+
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.event.StudyLogAddedEvent;
+import com.example.gwy_backend.event.StudyLogsBatchAddedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 学习日志事件的异步处理管道。
+ * <p>
+ * 1. 事务提交后 (AFTER_COMMIT) 才接收事件，回滚的日志不会被处理；<br>
+ * 2. 事件进入有界队列，由一个专用消费线程取出；<br>
+ * 3. 消费线程做微批：拿到第一条后最多再等待 max-batch-wait-ms 或凑满 max-batch-size，
+ *    然后把整批日志一次交给所有 {@link StudyLogBatchConsumer}；<br>
+ * 4. 记录队列深度、丢弃数、处理数和延迟 (事件创建到被消费的时间)。
+ * <p>
+ * 每批依次交给各个消费者，每个消费者各用一个事务，并持有 {@link StudyLogFence} 的读锁直到提交：
+ * 清空或重建聚合表之前已提交的日志的事件在这里丢弃 (已被删除或已被重建计入)，也不会有一批与清空 / 重建交错执行。
+ * 一个消费者失败只回滚它自己的更新；整批失败时该消费者逐个事件重试，只有出错的事件被跳过并计入 consumerErrors。
+ * <p>
+ * 背压策略 (events.study-log.backpressure)：队列满时先等待 offer-timeout-ms，仍然满则
+ * <ul>
+ *   <li>CALLER_RUNS (默认)：在发布者线程上同步处理这一批，不丢数据，但会拖慢该请求，从而自然限流。
+ *       发布者在提交回调中还占着自己的连接，这时处理需要第二个连接；因此在请求线程上
+ *       (见 {@link StudyLogCallerRunsFilter}) 推迟到请求处理完、连接归还之后再处理；</li>
+ *   <li>DROP：丢弃该事件并计数。学习时长聚合等派生数据可能因此缺失，需要通过重建接口修复。</li>
+ * </ul>
+ * 应用关闭时会停止接收并把队列中剩余的事件处理完。
+ */
+@Component
+public class StudyLogEventPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StudyLogEventPipeline.class);
+
+    public enum BackpressurePolicy { CALLER_RUNS, DROP }
+
+    /** 队列中的元素：一次事件携带的日志 + 事件创建时间 (用于计算延迟) + 写入时的代数。 */
+    private record Envelope(List<StudyLog> logs, long createdAtMillis, StudyLogFence.Stamp stamp) { }
+
+    private final List<StudyLogBatchConsumer> consumers;
+    private final StudyLogFence fence;
+    private final TransactionTemplate dispatchTransaction;
+    private final BlockingQueue<Envelope> queue;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final long maxBatchWaitMillis;
+    private final long offerTimeoutMillis;
+    private final BackpressurePolicy backpressurePolicy;
+
+    private final ThreadLocal<List<Envelope>> deferredCallerRuns = new ThreadLocal<>(); // 推迟到请求结束再处理的批次
+    private volatile boolean running = true;
+    private Thread worker;
+
+    // --- 指标 ---
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder staleEvents = new LongAdder();
+    private final LongAdder processedEvents = new LongAdder();
+    private final LongAdder processedBatches = new LongAdder();
+    private final LongAdder consumerErrors = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    @Autowired
+    public StudyLogEventPipeline(List<StudyLogBatchConsumer> consumers, // Spring 按 @Order 排好序注入
+                                 StudyLogFence fence,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${events.study-log.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${events.study-log.max-batch-size:200}") int maxBatchSize,
+                                 @Value("${events.study-log.max-batch-wait-ms:50}") long maxBatchWaitMillis,
+                                 @Value("${events.study-log.offer-timeout-ms:100}") long offerTimeoutMillis,
+                                 @Value("${events.study-log.backpressure:CALLER_RUNS}") BackpressurePolicy backpressurePolicy) {
+        this.consumers = consumers;
+        this.fence = fence;
+        // 没有推迟时 CALLER_RUNS 在发布者事务的提交回调中处理，需要新事务
+        this.dispatchTransaction = new TransactionTemplate(transactionManager);
+        this.dispatchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchWaitMillis = Math.max(0, maxBatchWaitMillis);
+        this.offerTimeoutMillis = Math.max(0, offerTimeoutMillis);
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::runLoop, "study-log-events");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Study log event pipeline started: capacity={}, maxBatch={}, maxWait={}ms, policy={}, consumers={}",
+                queueCapacity, maxBatchSize, maxBatchWaitMillis, backpressurePolicy, consumers.size());
+    }
+
+    /**
+     * 事务提交后接收事件 (没有事务时立即接收)，放入队列。
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudyLogAdded(StudyLogAddedEvent event) {
+        enqueue(new Envelope(List.of(event.getStudyLog()), event.getTimestamp(), event.getStamp()));
+    }
+
+    /**
+     * 批量同步的事件：整批作为一个队列元素，与单条事件一样在提交后入队。
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudyLogsBatchAdded(StudyLogsBatchAddedEvent event) {
+        enqueue(new Envelope(event.getStudyLogs(), event.getTimestamp(), event.getStamp()));
+    }
+
+    private void enqueue(Envelope envelope) {
+        published.increment();
+        try {
+            if (running && queue.offer(envelope, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (backpressurePolicy == BackpressurePolicy.DROP) {
+            dropped.increment();
+            log.warn("Study log event queue is full (capacity {}), dropping event with {} log(s).", queueCapacity, envelope.logs().size());
+        } else {
+            callerRuns.increment();
+            List<Envelope> deferred = deferredCallerRuns.get();
+            if (deferred != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                log.debug("Study log event queue is full, processing on caller thread after the request.");
+                deferred.add(envelope);
+            } else {
+                log.debug("Study log event queue is full, processing on caller thread.");
+                dispatch(List.of(envelope));
+            }
+        }
+    }
+
+    /**
+     * 开始在当前线程上推迟 CALLER_RUNS 的处理，直到 {@link #endCallerRunsScope()}。
+     */
+    public void beginCallerRunsScope() {
+        deferredCallerRuns.set(new ArrayList<>());
+    }
+
+    /**
+     * 处理当前线程上推迟的批次。调用时当前线程不能再持有事务或数据库连接。
+     */
+    public void endCallerRunsScope() {
+        List<Envelope> deferred = deferredCallerRuns.get();
+        deferredCallerRuns.remove();
+        if (deferred != null) {
+            dispatch(deferred);
+        }
+    }
+
+    private void runLoop() {
+        List<Envelope> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Envelope first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchWaitMillis);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Envelope next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    queue.drainTo(batch);
+                    dispatch(batch);
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("Unexpected error in study log event pipeline.", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        log.info("Study log event pipeline worker stopped.");
+    }
+
+    private void dispatch(List<Envelope> envelopes) {
+        if (envelopes.isEmpty()) {
+            return;
+        }
+        long oldest = Long.MAX_VALUE;
+        for (Envelope envelope : envelopes) {
+            oldest = Math.min(oldest, envelope.createdAtMillis());
+        }
+        long lag = Math.max(0, System.currentTimeMillis() - oldest);
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+
+        for (int i = 0; i < consumers.size(); i++) {
+            dispatchTo(consumers.get(i), envelopes, i == 0);
+        }
+        processedEvents.add(envelopes.size());
+        processedBatches.increment();
+    }
+
+    // 整批在一个事务中交给该消费者；失败时逐个事件各用一个事务重试，一个出错的事件不会让整批的派生数据丢失
+    private void dispatchTo(StudyLogBatchConsumer consumer, List<Envelope> envelopes, boolean countStale) {
+        try {
+            dispatchTransaction.executeWithoutResult(status -> dispatchCurrent(consumer, envelopes, countStale));
+            return;
+        } catch (RuntimeException e) {
+            if (envelopes.size() == 1) {
+                consumerFailed(consumer, envelopes.get(0), e);
+                return;
+            }
+            log.warn("Study log consumer {} failed for a batch of {} event(s), retrying one event at a time: {}",
+                    consumer.getClass().getSimpleName(), envelopes.size(), e.toString());
+        }
+        for (Envelope envelope : envelopes) {
+            try {
+                dispatchTransaction.executeWithoutResult(status -> dispatchCurrent(consumer, List.of(envelope), false));
+            } catch (RuntimeException e) {
+                consumerFailed(consumer, envelope, e);
+            }
+        }
+    }
+
+    // 在分派事务中执行：先取得栅栏读锁 (提交时释放)，丢弃清空 / 重建之前的事件，再交给消费者
+    private void dispatchCurrent(StudyLogBatchConsumer consumer, List<Envelope> envelopes, boolean countStale) {
+        fence.enterDispatch();
+        List<StudyLog> logs = new ArrayList<>();
+        for (Envelope envelope : envelopes) {
+            if (fence.isCurrent(envelope.stamp())) {
+                logs.addAll(envelope.logs());
+            } else if (countStale) {
+                staleEvents.increment(); // 每个事件只计一次
+            }
+        }
+        if (!logs.isEmpty()) {
+            consumer.onStudyLogs(logs);
+        }
+    }
+
+    private void consumerFailed(StudyLogBatchConsumer consumer, Envelope envelope, RuntimeException e) {
+        consumerErrors.increment();
+        log.error("Study log consumer {} failed for an event with {} log(s), skipping it.",
+                consumer.getClass().getSimpleName(), envelope.logs().size(), e);
+    }
+
+    /**
+     * 管道运行指标 (队列深度、丢弃数、延迟等)。
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("backpressurePolicy", backpressurePolicy.name());
+        metrics.put("published", published.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("callerRuns", callerRuns.sum());
+        metrics.put("staleEvents", staleEvents.sum()); // 清空 / 重建之前已提交、被丢弃的事件
+        metrics.put("processedEvents", processedEvents.sum());
+        metrics.put("processedBatches", processedBatches.sum());
+        metrics.put("consumerErrors", consumerErrors.sum()); // 被跳过的 (消费者, 事件) 数
+        metrics.put("lastLagMillis", lastLagMillis.get());
+        metrics.put("maxLagMillis", maxLagMillis.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        log.info("Stopping study log event pipeline, {} event(s) left in queue.", queue.size());
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        if (worker.isAlive()) {
+            log.warn("Study log event pipeline did not drain within 10s, {} event(s) left.", queue.size());
+            worker.interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.gwy_backend.listener;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 学习日志事件与聚合表清空 / 重建之间的栅栏。
+ * <p>
+ * 事件管道在日志提交之后才应用到聚合表，清空或重建时队列里可能还有之前已提交日志的事件：
+ * 清空后再应用会让已删除的日志重新计入，重建后再应用会重复计入。因此：
+ * <ul>
+ *   <li>写入日志的事务在写入前取得读锁，提交时释放，并在事件中记下当时的代数 ({@link Stamp})；</li>
+ *   <li>清空 (按用户) 和重建 (全部用户) 在读写数据前取得写锁，等待进行中的日志事务结束，提交后递增对应的代数；</li>
+ *   <li>事件管道在读锁内丢弃代数已过期的事件再交给消费者 —— 这些日志在清空 / 重建之前已提交，已被删除或已被重建计入。</li>
+ * </ul>
+ * 锁随事务释放，所有方法都必须在事务中调用。清空 / 重建期间新的日志写入会等待它们完成。
+ * 调用方在取锁前不能持有数据库行锁，也不能在持有锁时再申请数据库连接，否则可能与等待锁的事务互相等待。
+ */
+@Component
+public class StudyLogFence {
+
+    /**
+     * 日志写入时的代数。
+     *
+     * @param userId 日志所属用户
+     * @param global 重建代数
+     * @param user 该用户的清空代数
+     */
+    public record Stamp(String userId, long global, long user) { }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Long> userGenerations = new ConcurrentHashMap<>(); // 只记录清空过的用户
+    private volatile long globalGeneration;
+
+    /**
+     * 在写入学习日志的事务中、写入之前调用。
+     * @return 随事件发布的代数
+     */
+    public Stamp enterLogWrite(String userId) {
+        hold(lock.readLock(), null);
+        return new Stamp(userId, globalGeneration, userGenerations.getOrDefault(userId, 0L));
+    }
+
+    /**
+     * 在应用事件的事务中、判断代数之前调用，持有读锁直到应用结果提交。
+     */
+    public void enterDispatch() {
+        hold(lock.readLock(), null);
+    }
+
+    /**
+     * 在清空该用户的日志或聚合的事务中、删除之前调用。提交后该用户之前的事件全部过期。
+     */
+    public void enterClear(String userId) {
+        hold(lock.writeLock(), () -> userGenerations.merge(userId, 1L, Long::sum));
+    }
+
+    /**
+     * 在重建聚合表的事务中、第一次读取之前调用。提交后之前的事件全部过期。
+     */
+    public void enterRebuild() {
+        hold(lock.writeLock(), () -> globalGeneration++);
+    }
+
+    /**
+     * 事件的日志之后是否没有发生过清空 / 重建 (需要在 {@link #enterDispatch()} 之后调用)。
+     */
+    public boolean isCurrent(Stamp stamp) {
+        return stamp.global() == globalGeneration && stamp.user() == userGenerations.getOrDefault(stamp.userId(), 0L);
+    }
+
+    // 取得锁，事务提交时先执行 onCommit 再释放，回滚时直接释放
+    private void hold(Lock acquired, Runnable onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("StudyLogFence must be entered inside a transaction.");
+        }
+        acquired.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean released;
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE; // 先于提交后发布事件的监听器释放，CALLER_RUNS 时发布线程不会带着锁处理事件
+            }
+
+            @Override
+            public void afterCommit() {
+                if (onCommit != null) {
+                    onCommit.run();
+                }
+                release();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                release();
+            }
+
+            private void release() {
+                if (!released) {
+                    released = true;
+                    acquired.unlock();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.gwy_backend.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定内存、可并发记录的延迟直方图 (单位：微秒)，分桶方式与 HdrHistogram 相同：
+ * 每个 2 的幂区间再线性分成 16 个子桶，任意取值的相对误差不超过 1/16 (约 6%)。
+ * 记录只有几次原子自增，不加锁；取快照时不阻塞记录 (快照可能与并发写入有微小偏差)。
+ * 只增不减，不提供清零：滚动窗口的时间片过期时整体替换 (见 {@link LatencyTimer})。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36; // 2^36 微秒 ≈ 19 小时，更大的值计入最后一个桶
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+    private static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long micros, boolean error) {
+        long value = Math.max(0, Math.min(micros, MAX_TRACKABLE));
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sumMicros.add(value);
+        if (error) {
+            errors.increment();
+        }
+        long max = maxMicros.get();
+        while (value > max && !maxMicros.compareAndSet(max, value)) {
+            max = maxMicros.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(count.sum(), errors.sum(), sumMicros.sum(), maxMicros.get(), copy);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    // 桶的代表值 (区间中点)
+    static long bucketMidpoint(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lower = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+
+    /**
+     * 直方图快照。多个快照 (例如滚动窗口的各个时间片) 可以合并。
+     */
+    public record Snapshot(long count, long errors, long sumMicros, long maxMicros, long[] counts) {
+
+        public static Snapshot empty() {
+            return new Snapshot(0, 0, 0, 0, new long[BUCKET_COUNT]);
+        }
+
+        public Snapshot merge(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(count + other.count, errors + other.errors, sumMicros + other.sumMicros,
+                    Math.max(maxMicros, other.maxMicros), merged);
+        }
+
+        /**
+         * 分位数 (微秒)，例如 0.99。没有数据时为 0。
+         */
+        public long percentile(double quantile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketMidpoint(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        public double meanMicros() {
+            return count == 0 ? 0 : (double) sumMicros / count;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.gwy_backend.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内延迟指标注册表。接口路由和仓库方法各自一个计时器，首次调用时创建。
+ * 由 {@link RequestLatencyInterceptor} 和 {@link RepositoryLatencyPostProcessor} 写入，
+ * 通过 /api/admin/metrics 读取。
+ */
+@Component
+public class LatencyMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyMetrics.class);
+
+    public enum Category { HTTP, REPOSITORY }
+
+    private final boolean enabled;
+    private final long sliceMillis;
+    private final int sliceCount;
+    private final Map<Category, ConcurrentHashMap<String, LatencyTimer>> timers = new LinkedHashMap<>();
+
+    public LatencyMetrics(@Value("${metrics.latency.enabled:true}") boolean enabled,
+                          @Value("${metrics.latency.window-slice:10s}") Duration windowSlice,
+                          @Value("${metrics.latency.window-slices:30}") int windowSlices) {
+        this.enabled = enabled;
+        this.sliceMillis = Math.max(1000, windowSlice.toMillis());
+        this.sliceCount = Math.max(1, windowSlices);
+        for (Category category : Category.values()) {
+            timers.put(category, new ConcurrentHashMap<>());
+        }
+        log.info("Latency metrics {}: rolling window up to {}s in {}s slices.",
+                enabled ? "enabled" : "disabled", getMaxWindow().toSeconds(), sliceMillis / 1000);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 滚动窗口的最大长度 (时间片长度 × 时间片数)。
+     */
+    public Duration getMaxWindow() {
+        return Duration.ofMillis(sliceMillis * sliceCount);
+    }
+
+    public void record(Category category, String name, long elapsedNanos, boolean error) {
+        if (!enabled) {
+            return;
+        }
+        LatencyTimer timer = timers.get(category).computeIfAbsent(name, n -> new LatencyTimer(sliceMillis, sliceCount));
+        timer.record(System.currentTimeMillis(), TimeUnit.NANOSECONDS.toMicros(elapsedNanos), error);
+    }
+
+    /**
+     * 所有计时器的快照，按名称排序。
+     * @param window 滚动窗口长度，null 表示启动以来的累计值
+     * @throws IllegalArgumentException 窗口不在 (0, {@link #getMaxWindow()}] 范围内
+     */
+    public Map<Category, Map<String, LatencyHistogram.Snapshot>> snapshot(Duration window) {
+        int windowSlices = 0;
+        if (window != null) {
+            if (window.isNegative() || window.isZero() || window.compareTo(getMaxWindow()) > 0) {
+                throw new IllegalArgumentException("Window must be between 1s and " + getMaxWindow().toSeconds() + "s.");
+            }
+            windowSlices = (int) Math.max(1, (window.toMillis() + sliceMillis - 1) / sliceMillis);
+        }
+        long now = System.currentTimeMillis();
+        Map<Category, Map<String, LatencyHistogram.Snapshot>> result = new LinkedHashMap<>();
+        for (Map.Entry<Category, ConcurrentHashMap<String, LatencyTimer>> entry : timers.entrySet()) {
+            Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+            int slices = windowSlices;
+            entry.getValue().forEach((name, timer) -> snapshots.put(name, timer.snapshot(now, slices)));
+            result.put(entry.getKey(), snapshots);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.gwy_backend.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 一个被计时的操作：启动以来的累计直方图，加上由若干时间片组成的滚动窗口。
+ * 时间片按时间轮转：进入新的时间片时用一个新的直方图 (CAS) 替换该位置上过期的时间片，而不是清零复用，
+ * 在旧时间片上停顿过久的写入只会落到已被替换下来的对象上，不会混进新的时间片。
+ */
+final class LatencyTimer {
+
+    private static final class Slice {
+        private final long epoch; // 时间片序号 = 时间 / 时间片长度
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Slice(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final AtomicReferenceArray<Slice> slices; // 尚未写入过的位置为 null
+    private final long sliceMillis;
+
+    LatencyTimer(long sliceMillis, int sliceCount) {
+        this.sliceMillis = sliceMillis;
+        this.slices = new AtomicReferenceArray<>(sliceCount);
+    }
+
+    void record(long nowMillis, long micros, boolean error) {
+        total.record(micros, error);
+        long epoch = nowMillis / sliceMillis;
+        int index = (int) (epoch % slices.length());
+        Slice slice = slices.get(index);
+        while (slice == null || slice.epoch < epoch) {
+            Slice fresh = new Slice(epoch);
+            slice = slices.compareAndSet(index, slice, fresh) ? fresh : slices.get(index);
+        }
+        if (slice.epoch != epoch) {
+            return; // 线程在旧时间片上停顿过久，该位置已属于更新的时间片：只计入累计值
+        }
+        slice.histogram.record(micros, error);
+    }
+
+    /**
+     * @param windowSlices 窗口包含的时间片数 (含当前未结束的时间片)，0 表示启动以来的累计值
+     */
+    LatencyHistogram.Snapshot snapshot(long nowMillis, int windowSlices) {
+        if (windowSlices <= 0) {
+            return total.snapshot();
+        }
+        long currentEpoch = nowMillis / sliceMillis;
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty();
+        for (int i = 0; i < slices.length(); i++) {
+            Slice slice = slices.get(i);
+            if (slice != null && slice.epoch > currentEpoch - windowSlices && slice.epoch <= currentEpoch) {
+                merged = merged.merge(slice.histogram.snapshot());
+            }
+        }
+        return merged;
+    }
+}
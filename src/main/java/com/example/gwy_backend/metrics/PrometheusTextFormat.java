@@ -0,0 +1,54 @@
+package com.example.gwy_backend.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 把延迟快照输出为 Prometheus 文本格式 (summary 类型，单位秒)。
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private PrometheusTextFormat() {
+    }
+
+    public static String format(Map<LatencyMetrics.Category, Map<String, LatencyHistogram.Snapshot>> snapshots) {
+        StringBuilder out = new StringBuilder();
+        writeSummary(out, "gwy_http_request_seconds", "route", "HTTP request latency by route.",
+                snapshots.getOrDefault(LatencyMetrics.Category.HTTP, Map.of()));
+        writeSummary(out, "gwy_repository_call_seconds", "method", "Spring Data repository call latency.",
+                snapshots.getOrDefault(LatencyMetrics.Category.REPOSITORY, Map.of()));
+        return out.toString();
+    }
+
+    private static void writeSummary(StringBuilder out, String metric, String label, String help,
+                                     Map<String, LatencyHistogram.Snapshot> snapshots) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(" summary\n");
+        snapshots.forEach((name, snapshot) -> {
+            String labelValue = label + "=\"" + escape(name) + "\"";
+            for (double quantile : QUANTILES) {
+                out.append(metric).append('{').append(labelValue).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(snapshot.percentile(quantile))).append('\n');
+            }
+            out.append(metric).append("_sum{").append(labelValue).append("} ").append(seconds(snapshot.sumMicros())).append('\n');
+            out.append(metric).append("_count{").append(labelValue).append("} ").append(snapshot.count()).append('\n');
+        });
+        String errorMetric = metric.replace("_seconds", "_errors_total");
+        out.append("# HELP ").append(errorMetric).append(" Failed calls (exception or 5xx).\n");
+        out.append("# TYPE ").append(errorMetric).append(" counter\n");
+        snapshots.forEach((name, snapshot) -> out.append(errorMetric).append('{').append(label).append("=\"")
+                .append(escape(name)).append("\"} ").append(snapshot.errors()).append('\n'));
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
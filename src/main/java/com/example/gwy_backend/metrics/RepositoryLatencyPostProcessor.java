@@ -0,0 +1,76 @@
+package com.example.gwy_backend.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 给所有 Spring Data 仓库加上计时：在仓库代理最外层插入一个拦截器，
+ * 按 "仓库接口.方法名" (例如 "KnowledgeItemRepository.findAllById") 记录耗时，包含事务开启和提交。
+ */
+@Component
+public class RepositoryLatencyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<LatencyMetrics> latencyMetricsProvider; // BeanPostProcessor 创建得早，延迟获取
+    private volatile LatencyMetrics latencyMetrics;
+
+    @Autowired
+    public RepositoryLatencyPostProcessor(ObjectProvider<LatencyMetrics> latencyMetrics) {
+        this.latencyMetricsProvider = latencyMetrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository<?, ?>) || !(bean instanceof Advised advised)) {
+            return bean;
+        }
+        Class<?> repositoryInterface = Arrays.stream(advised.getProxiedInterfaces())
+                .filter(Repository.class::isAssignableFrom)
+                .filter(type -> !type.getName().startsWith("org.springframework."))
+                .findFirst()
+                .orElse(null);
+        if (repositoryInterface == null) {
+            return bean;
+        }
+        String prefix = repositoryInterface.getSimpleName() + ".";
+        MethodInterceptor timing = invocation -> {
+            LatencyMetrics metrics = metrics();
+            if (!metrics.isEnabled()) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            boolean error = true;
+            try {
+                Object result = invocation.proceed();
+                error = false;
+                return result;
+            } finally {
+                metrics.record(LatencyMetrics.Category.REPOSITORY, prefix + invocation.getMethod().getName(),
+                        System.nanoTime() - start, error);
+            }
+        };
+        if (!advised.isFrozen()) {
+            advised.addAdvice(0, timing);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(timing);
+        return proxyFactory.getProxy();
+    }
+
+    private LatencyMetrics metrics() {
+        LatencyMetrics metrics = latencyMetrics;
+        if (metrics == null) {
+            metrics = latencyMetricsProvider.getObject();
+            latencyMetrics = metrics;
+        }
+        return metrics;
+    }
+}
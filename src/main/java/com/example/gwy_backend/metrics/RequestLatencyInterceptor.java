@@ -0,0 +1,46 @@
+package com.example.gwy_backend.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 按路由 (HTTP 方法 + 路径模板，例如 "GET /api/errors/{id}") 记录接口耗时。
+ * 异步请求 (流式导出等) 从第一次进入到异步处理结束整体计时。
+ * 抛出异常或状态码 >= 500 计为错误。
+ */
+@Component
+public class RequestLatencyInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RequestLatencyInterceptor.class.getName() + ".start";
+
+    private final LatencyMetrics latencyMetrics;
+
+    @Autowired
+    public RequestLatencyInterceptor(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) { // 异步请求再次分派时保留最初的开始时间
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        request.removeAttribute(START_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED");
+        boolean error = ex != null || response.getStatus() >= 500;
+        latencyMetrics.record(LatencyMetrics.Category.HTTP, route, System.nanoTime() - start, error);
+    }
+}
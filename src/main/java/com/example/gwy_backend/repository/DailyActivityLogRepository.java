@@ -15,19 +15,23 @@ import java.util.List;
 @Repository
 public interface DailyActivityLogRepository extends JpaRepository<DailyActivityLog, Long> {
 
-    // 根据 activityDate 查找记录 (保持不变)
-    Optional<DailyActivityLog> findByActivityDate(LocalDate activityDate);
+    // 以下查询都按用户隔离 (唯一索引 uk_activity_user_date)
 
-    // 增加指定 activityDate 的在线时长 (保持不变)
+    // 根据用户和 activityDate 查找记录
+    Optional<DailyActivityLog> findByUserIdAndActivityDate(String userId, LocalDate activityDate);
+
+    // 增加指定用户、指定 activityDate 的在线时长
     @Modifying
     @Transactional
-    @Query("UPDATE DailyActivityLog d SET d.totalOnlineSeconds = d.totalOnlineSeconds + :secondsToAdd WHERE d.activityDate = :date")
-    int incrementOnlineSeconds(@Param("date") LocalDate date, @Param("secondsToAdd") long secondsToAdd);
+    @Query("UPDATE DailyActivityLog d SET d.totalOnlineSeconds = d.totalOnlineSeconds + :secondsToAdd " +
+            "WHERE d.userId = :userId AND d.activityDate = :date")
+    int incrementOnlineSeconds(@Param("userId") String userId, @Param("date") LocalDate date,
+                               @Param("secondsToAdd") long secondsToAdd);
 
-    // 获取指定日期范围内的记录 (保持不变, 仍按 activityDate 查)
-    List<DailyActivityLog> findByActivityDateBetweenOrderByActivityDateDesc(LocalDate startDate, LocalDate endDate);
+    // 获取指定用户、指定日期范围内的记录
+    List<DailyActivityLog> findByUserIdAndActivityDateBetweenOrderByActivityDateDesc(String userId, LocalDate startDate, LocalDate endDate);
 
-    // 获取总的在线时长（所有记录）(保持不变)
-    @Query("SELECT COALESCE(SUM(d.totalOnlineSeconds), 0) FROM DailyActivityLog d")
-    long getTotalOnlineSecondsSum();
+    // 获取指定用户总的在线时长
+    @Query("SELECT COALESCE(SUM(d.totalOnlineSeconds), 0) FROM DailyActivityLog d WHERE d.userId = :userId")
+    long getTotalOnlineSecondsSum(@Param("userId") String userId);
 }
\ No newline at end of file
@@ -1,22 +1,123 @@
 package com.example.gwy_backend.repository;
 
 import com.example.gwy_backend.entity.ErrorLogEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query; // 用于自定义 JPQL 查询
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ErrorLogEntryRepository extends JpaRepository<ErrorLogEntry, Long> {
 
-    // Spring Data JPA 会根据方法名自动生成查询
-    // 例如，按模块筛选 (忽略大小写)
-    List<ErrorLogEntry> findBySubjectIgnoreCase(String subject);
+    // 以下查询 (existsByImageFile 除外) 都按用户隔离，对应以 userId 开头的复合索引
 
-    // 如果需要按时间倒序获取所有条目
-    List<ErrorLogEntry> findAllByOrderByTimestampDesc();
+    Optional<ErrorLogEntry> findByIdAndUserId(Long id, String userId);
 
-    // 也可以使用 JPQL 自定义查询
-    // @Query("SELECT e FROM ErrorLogEntry e WHERE e.subject = :subject ORDER BY e.timestamp DESC")
-    // List<ErrorLogEntry> findBySubjectSorted(@Param("subject") String subject);
+    // 按模块筛选 (忽略大小写)
+    List<ErrorLogEntry> findByUserIdAndSubjectIgnoreCase(String userId, String subject);
+
+    // 是否还有错题引用该文件 (内容寻址存储下多个条目可能共享同一文件，文件不区分用户)
+    boolean existsByImageFile(String imageFile);
+
+    // 当前用户引用该文件的条目上记录的原始文件名 (下载时的显示名)
+    @Query("SELECT e.imageFileName FROM ErrorLogEntry e " +
+            "WHERE e.userId = :userId AND e.imageFile = :imageFile AND e.imageFileName IS NOT NULL")
+    List<String> findImageFileNames(@Param("userId") String userId, @Param("imageFile") String imageFile);
+
+    // 按时间倒序获取当前用户的所有条目
+    List<ErrorLogEntry> findByUserIdOrderByTimestampDesc(String userId);
+
+    // --- 游标分页：按 (timestamp, id) 倒序，只取 limit 条，不做 count 查询 ---
+    // 对应索引 idx_error_user_timestamp_id / idx_error_user_subject_timestamp_id
+
+    List<ErrorLogEntry> findByUserIdOrderByTimestampDescIdDesc(String userId, Limit limit);
+
+    @Query("SELECT e FROM ErrorLogEntry e WHERE e.userId = :userId AND " +
+            "(e.timestamp < :timestamp OR (e.timestamp = :timestamp AND e.id < :id)) " +
+            "ORDER BY e.timestamp DESC, e.id DESC")
+    List<ErrorLogEntry> findPageAfter(@Param("userId") String userId,
+                                      @Param("timestamp") LocalDateTime timestamp,
+                                      @Param("id") Long id, Limit limit);
+
+    // subject 使用等值比较以便走索引 (MySQL 默认排序规则本身不区分大小写)
+    List<ErrorLogEntry> findByUserIdAndSubjectOrderByTimestampDescIdDesc(String userId, String subject, Limit limit);
+
+    @Query("SELECT e FROM ErrorLogEntry e WHERE e.userId = :userId AND e.subject = :subject AND " +
+            "(e.timestamp < :timestamp OR (e.timestamp = :timestamp AND e.id < :id)) " +
+            "ORDER BY e.timestamp DESC, e.id DESC")
+    List<ErrorLogEntry> findPageBySubjectAfter(@Param("userId") String userId,
+                                               @Param("subject") String subject,
+                                               @Param("timestamp") LocalDateTime timestamp,
+                                               @Param("id") Long id, Limit limit);
+
+    // --- 到期复习队列：按 nextReviewAt 正序，只取 limit 条，对应索引 idx_error_user_next_review_subject ---
+
+    List<ErrorLogEntry> findByUserIdAndNextReviewAtLessThanEqualOrderByNextReviewAtAscIdAsc(String userId, LocalDateTime now, Limit limit);
+
+    List<ErrorLogEntry> findByUserIdAndSubjectAndNextReviewAtLessThanEqualOrderByNextReviewAtAscIdAsc(String userId, String subject,
+                                                                                                     LocalDateTime now, Limit limit);
+
+    long countByNextReviewAtIsNull();
+
+    /**
+     * 为升级前的旧错题补齐复习调度状态：从上次复习 (没有则从创建时间) 起立即到期。
+     */
+    @Modifying
+    @Query("UPDATE ErrorLogEntry e SET e.nextReviewAt = COALESCE(e.lastReviewDate, e.timestamp), " +
+            "e.easeFactor = " + ErrorLogEntry.INITIAL_EASE_FACTOR + ", e.intervalDays = 0, e.repetitions = 0 " +
+            "WHERE e.nextReviewAt IS NULL")
+    int initializeReviewSchedule();
+
+    // --- 错题统计重建 (ErrorStatsService.rebuild，全部用户)，模块 / 知识点为 null 时按空字符串分组 ---
+
+    /**
+     * 按用户 + 模块统计。每一行为 [String 用户, String 模块, Long 总数, Long 未复习数, Long 复习次数之和]。
+     */
+    @Query("SELECT e.userId, COALESCE(e.subject, ''), COUNT(e), SUM(CASE WHEN e.reviewCount = 0 THEN 1 ELSE 0 END), SUM(e.reviewCount) " +
+            "FROM ErrorLogEntry e GROUP BY e.userId, COALESCE(e.subject, '')")
+    List<Object[]> countGroupBySubject();
+
+    /**
+     * 按用户 + 模块 + 知识点统计。每一行为 [String 用户, String 模块, String 知识点, Long 总数, Long 未复习数, Long 复习次数之和]。
+     */
+    @Query("SELECT e.userId, COALESCE(e.subject, ''), COALESCE(e.knowledgePoint, ''), COUNT(e), " +
+            "SUM(CASE WHEN e.reviewCount = 0 THEN 1 ELSE 0 END), SUM(e.reviewCount) " +
+            "FROM ErrorLogEntry e GROUP BY e.userId, COALESCE(e.subject, ''), COALESCE(e.knowledgePoint, '')")
+    List<Object[]> countGroupByKnowledgePoint();
+
+    /**
+     * 按用户 + 日期 + 模块统计新增数。每一行为 [String 用户, LocalDate 日期, String 模块, Long 新增数]。
+     */
+    @Query("SELECT e.userId, CAST(e.timestamp AS LocalDate), COALESCE(e.subject, ''), COUNT(e) FROM ErrorLogEntry e " +
+            "WHERE e.timestamp IS NOT NULL GROUP BY e.userId, CAST(e.timestamp AS LocalDate), COALESCE(e.subject, '')")
+    List<Object[]> countGroupByDayAndSubject();
+
+    /**
+     * 按用户 + 日期 + 模块 + 知识点统计新增数。每一行为 [String 用户, LocalDate 日期, String 模块, String 知识点, Long 新增数]。
+     */
+    @Query("SELECT e.userId, CAST(e.timestamp AS LocalDate), COALESCE(e.subject, ''), COALESCE(e.knowledgePoint, ''), COUNT(e) " +
+            "FROM ErrorLogEntry e WHERE e.timestamp IS NOT NULL " +
+            "GROUP BY e.userId, CAST(e.timestamp AS LocalDate), COALESCE(e.subject, ''), COALESCE(e.knowledgePoint, '')")
+    List<Object[]> countGroupByDayAndKnowledgePoint();
+
+    /**
+     * 按 (timestamp, id) 正序流式读取指定用户的全部错题，用于导出。
+     * 必须在事务中使用并在用完后关闭 Stream；调用方应逐条 detach，使内存占用与总行数无关。
+     * 读完之前同一连接上不能执行其他语句 (MySQL 驱动的流式结果集)。
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE), // MySQL 驱动逐行流式读取，只作用于这条查询
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")  // 只读实体，不保留脏检查快照
+    })
+    @Query("SELECT e FROM ErrorLogEntry e WHERE e.userId = :userId ORDER BY e.timestamp ASC, e.id ASC")
+    Stream<ErrorLogEntry> streamAllForExport(@Param("userId") String userId);
 }
\ No newline at end of file
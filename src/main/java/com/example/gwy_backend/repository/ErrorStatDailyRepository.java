@@ -0,0 +1,41 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.entity.ErrorStatDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ErrorStatDailyRepository extends JpaRepository<ErrorStatDaily, Long> {
+
+    // 累加日统计行 (可以为负)，没有行时插入，做法同 ErrorStatRepository#upsertIncrement
+    @Modifying
+    @Query(value = "INSERT INTO error_stat_daily (user_id, stat_date, level, subject, knowledge_point, added_count) " +
+            "VALUES (:userId, :statDate, :level, :subject, :knowledgePoint, :count) " +
+            "ON DUPLICATE KEY UPDATE added_count = added_count + :count",
+            nativeQuery = true)
+    void upsertIncrement(@Param("userId") String userId,
+                         @Param("statDate") LocalDate statDate,
+                         @Param("level") String level,
+                         @Param("subject") String subject,
+                         @Param("knowledgePoint") String knowledgePoint,
+                         @Param("count") long count);
+
+    /**
+     * 指定用户在指定日期 (包含) 之后每个维度的新增数。
+     * 每一行为 [Level, String 模块, String 知识点, Long 新增数]。
+     */
+    @Query("SELECT d.level, d.subject, d.knowledgePoint, SUM(d.addedCount) FROM ErrorStatDaily d " +
+            "WHERE d.userId = :userId AND d.statDate >= :since GROUP BY d.level, d.subject, d.knowledgePoint")
+    List<Object[]> sumAddedSince(@Param("userId") String userId, @Param("since") LocalDate since);
+
+    // 全部用户，只用于全量重建
+    @Modifying
+    @Query("DELETE FROM ErrorStatDaily d")
+    void deleteAllStats();
+}
@@ -0,0 +1,45 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.entity.ErrorStat;
+import com.example.gwy_backend.entity.ErrorStat.Level;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ErrorStatRepository extends JpaRepository<ErrorStat, Long> {
+
+    // 以下查询按用户隔离 (唯一索引 uk_error_stat_user_key)
+
+    List<ErrorStat> findByUserIdOrderBySubjectAscLevelAscKnowledgePointAsc(String userId);
+
+    List<ErrorStat> findByUserIdAndSubjectOrderByLevelAscKnowledgePointAsc(String userId, String subject);
+
+    /**
+     * 累加统计行 (可以为负)，该维度还没有行时插入。
+     * 单条 INSERT ... ON DUPLICATE KEY UPDATE 由唯一索引判断插入或累加，并发首次写入同一维度时不会因重复键失败。
+     * level 传 {@link Level#name()} (列按 EnumType.STRING 存储)。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO error_stat (user_id, level, subject, knowledge_point, total_count, unreviewed_count, total_reviews) " +
+            "VALUES (:userId, :level, :subject, :knowledgePoint, :total, :unreviewed, :reviews) " +
+            "ON DUPLICATE KEY UPDATE total_count = total_count + :total, " +
+            "unreviewed_count = unreviewed_count + :unreviewed, total_reviews = total_reviews + :reviews",
+            nativeQuery = true)
+    void upsertIncrement(@Param("userId") String userId,
+                         @Param("level") String level,
+                         @Param("subject") String subject,
+                         @Param("knowledgePoint") String knowledgePoint,
+                         @Param("total") long total,
+                         @Param("unreviewed") long unreviewed,
+                         @Param("reviews") long reviews);
+
+    // 全部用户，只用于全量重建
+    @Modifying
+    @Query("DELETE FROM ErrorStat s")
+    void deleteAllStats();
+}
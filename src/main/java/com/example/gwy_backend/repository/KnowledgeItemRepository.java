@@ -1,54 +1,122 @@
 package com.example.gwy_backend.repository;
 
+import com.example.gwy_backend.dto.KnowledgeItemSummary;
 import com.example.gwy_backend.entity.KnowledgeItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface KnowledgeItemRepository extends JpaRepository<KnowledgeItem, Long> {
 
+    // 是否还有知识条目引用该文件 (内容寻址存储下多个条目可能共享同一文件，文件不区分用户)
+    boolean existsByLinkedFile(String linkedFile);
+
+    // 当前用户引用该文件的条目上记录的原始文件名 (下载时的显示名)
+    @Query("SELECT k.linkedFileName FROM KnowledgeItem k " +
+            "WHERE k.userId = :userId AND k.linkedFile = :linkedFile AND k.linkedFileName IS NOT NULL")
+    List<String> findLinkedFileNames(@Param("userId") String userId, @Param("linkedFile") String linkedFile);
+
+    // 以下查询都按用户隔离，对应以 userId 开头的复合索引
+
+    Optional<KnowledgeItem> findByIdAndUserId(Long id, String userId);
+
+    // 详情：连同标签一次查询 (tags 为 LAZY)
+    @EntityGraph(attributePaths = "tags")
+    Optional<KnowledgeItem> findWithTagsByIdAndUserId(Long id, String userId);
+
+    // --- 列表视图：只查询 KnowledgeItemSummary 需要的列 (不读取 TEXT 正文)，标签由 findTagsByItemIds 批量补齐 ---
+
+    String SUMMARY_COLUMNS = "new com.example.gwy_backend.dto.KnowledgeItemSummary(" +
+            "k.id, k.timestamp, k.title, k.category, k.externalLink, k.linkedFile) ";
+    String SUMMARY = "SELECT " + SUMMARY_COLUMNS;
+
     // 按时间倒序获取所有条目
-    List<KnowledgeItem> findAllByOrderByTimestampDesc();
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId ORDER BY k.timestamp DESC")
+    List<KnowledgeItemSummary> findAllSummaries(@Param("userId") String userId);
+
+    // 按分类筛选 (等值比较以便走索引，MySQL 默认排序规则本身不区分大小写)，并按时间倒序
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId AND k.category = :category ORDER BY k.timestamp DESC")
+    List<KnowledgeItemSummary> findSummariesByCategory(@Param("userId") String userId, @Param("category") String category);
+
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId AND k.id IN :ids")
+    List<KnowledgeItemSummary> findSummariesByIdIn(@Param("userId") String userId, @Param("ids") Collection<Long> ids);
 
-    // 按分类筛选 (忽略大小写)，并按时间倒序
-    List<KnowledgeItem> findByCategoryIgnoreCaseOrderByTimestampDesc(String category);
+    /**
+     * 批量读取多个条目的标签，每一行为 [Long 条目 ID, String 标签]。
+     */
+    @Query("SELECT k.id, t FROM KnowledgeItem k JOIN k.tags t WHERE k.id IN :ids")
+    List<Object[]> findTagsByItemIds(@Param("ids") Collection<Long> ids);
+
+    // --- 游标分页：按 (timestamp, id) 倒序，只取 limit 条，不做 count 查询 ---
+    // 对应索引 idx_knowledge_user_timestamp_id / idx_knowledge_user_category_timestamp_id
+
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId ORDER BY k.timestamp DESC, k.id DESC")
+    List<KnowledgeItemSummary> findFirstPage(@Param("userId") String userId, Limit limit);
+
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId AND " +
+            "(k.timestamp < :timestamp OR (k.timestamp = :timestamp AND k.id < :id)) " +
+            "ORDER BY k.timestamp DESC, k.id DESC")
+    List<KnowledgeItemSummary> findPageAfter(@Param("userId") String userId,
+                                             @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId AND k.category = :category " +
+            "ORDER BY k.timestamp DESC, k.id DESC")
+    List<KnowledgeItemSummary> findFirstPageByCategory(@Param("userId") String userId, @Param("category") String category, Limit limit);
+
+    @Query(SUMMARY + "FROM KnowledgeItem k WHERE k.userId = :userId AND k.category = :category AND " +
+            "(k.timestamp < :timestamp OR (k.timestamp = :timestamp AND k.id < :id)) " +
+            "ORDER BY k.timestamp DESC, k.id DESC")
+    List<KnowledgeItemSummary> findPageByCategoryAfter(@Param("userId") String userId,
+                                                       @Param("category") String category,
+                                                       @Param("timestamp") LocalDateTime timestamp,
+                                                       @Param("id") Long id, Limit limit);
 
     /**
      * 搜索标题、内容或标签 (不区分大小写，但内容字段 content 除外)。
      * 注意：对 content 字段的搜索是区分大小写的，因为数据库的 LOWER() 函数通常不支持 LOB/TEXT 类型。
      * 如果需要对 content 进行不区分大小写的搜索，建议使用数据库特定的全文搜索功能。
      *
+     * @param userId 所属用户
      * @param searchTerm 搜索关键词
      * @return 匹配的知识条目列表，按时间倒序排列
      */
-    @Query("SELECT DISTINCT k FROM KnowledgeItem k LEFT JOIN k.tags t WHERE " +
+    @Query("SELECT DISTINCT " + SUMMARY_COLUMNS + "FROM KnowledgeItem k LEFT JOIN k.tags t WHERE " +
+            "k.userId = :userId AND (" +
             "LOWER(k.title) LIKE LOWER(concat('%', :searchTerm, '%')) OR " +
             // --- 修改点：移除了 k.content 外的 LOWER() ---
             "k.content LIKE concat('%', :searchTerm, '%') OR " +
-            "LOWER(t) LIKE LOWER(concat('%', :searchTerm, '%')) " +
-            "ORDER BY k.timestamp DESC")
-    List<KnowledgeItem> searchByTermOrderByTimestampDesc(@Param("searchTerm") String searchTerm);
+            "LOWER(t) LIKE LOWER(concat('%', :searchTerm, '%'))" +
+            ") ORDER BY k.timestamp DESC")
+    List<KnowledgeItemSummary> searchByTermOrderByTimestampDesc(@Param("userId") String userId,
+                                                                @Param("searchTerm") String searchTerm);
 
 
     /**
      * 按分类筛选并搜索标题、内容或标签 (不区分大小写，但内容字段 content 除外)。
      * 注意：对 content 字段的搜索是区分大小写的。
      *
+     * @param userId 所属用户
      * @param category 分类名称
      * @param searchTerm 搜索关键词
      * @return 匹配的知识条目列表，按时间倒序排列
      */
-    @Query("SELECT DISTINCT k FROM KnowledgeItem k LEFT JOIN k.tags t WHERE " +
-            "k.category = :category AND (" + // 保持分类条件
+    @Query("SELECT DISTINCT " + SUMMARY_COLUMNS + "FROM KnowledgeItem k LEFT JOIN k.tags t WHERE " +
+            "k.userId = :userId AND k.category = :category AND (" + // 保持分类条件
             "LOWER(k.title) LIKE LOWER(concat('%', :searchTerm, '%')) OR " +
             // --- 修改点：移除了 k.content 外的 LOWER() ---
             "k.content LIKE concat('%', :searchTerm, '%') OR " +
             "LOWER(t) LIKE LOWER(concat('%', :searchTerm, '%'))" +
             ") ORDER BY k.timestamp DESC")
-    List<KnowledgeItem> findByCategoryAndSearchTermOrderByTimestampDesc(
+    List<KnowledgeItemSummary> findByCategoryAndSearchTermOrderByTimestampDesc(
+            @Param("userId") String userId,
             @Param("category") String category,
             @Param("searchTerm") String searchTerm);
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.example.gwy_backend.repository;
 
 import com.example.gwy_backend.entity.NoteEntry;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query; // 如果没有其他 @Query 可以移除
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 // import java.util.Optional; // 不再需要 Optional
 
@@ -12,8 +15,22 @@ public interface NoteEntryRepository extends JpaRepository<NoteEntry, Long> {
 
     // Optional<NoteEntry> findByNoteKey(String noteKey); // <<< 移除这个方法
 
-    // 获取所有笔记条目，并按创建时间降序排列。
-    @Query("SELECT ne FROM NoteEntry ne ORDER BY ne.timestamp DESC") // 保留这个排序方法
-    List<NoteEntry> findAllByOrderByTimestampDesc();
+    // 以下查询都按用户隔离 (索引 idx_note_user_timestamp_id)
+
+    // 获取指定用户的所有笔记条目，并按创建时间降序排列。
+    @Query("SELECT ne FROM NoteEntry ne WHERE ne.userId = :userId ORDER BY ne.timestamp DESC")
+    List<NoteEntry> findAllByOrderByTimestampDesc(@Param("userId") String userId);
+
+    // --- 游标分页：按 (timestamp, id) 倒序，只取 limit 条，不做 count 查询 ---
+
+    List<NoteEntry> findByUserIdOrderByTimestampDescIdDesc(String userId, Limit limit);
+
+    @Query("SELECT ne FROM NoteEntry ne WHERE ne.userId = :userId AND " +
+            "(ne.timestamp < :timestamp OR (ne.timestamp = :timestamp AND ne.id < :id)) " +
+            "ORDER BY ne.timestamp DESC, ne.id DESC")
+    List<NoteEntry> findPageAfter(@Param("userId") String userId,
+                                  @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    boolean existsByIdAndUserId(Long id, String userId);
 
 }
\ No newline at end of file
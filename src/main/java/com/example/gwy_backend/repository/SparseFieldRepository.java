@@ -0,0 +1,106 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.util.KeysetCursor;
+import com.example.gwy_backend.util.SparseFields;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按字段投影的查询：只 SELECT 调用方选择的列，结果是 字段名 → 值 的有序 Map。
+ * <p>
+ * 用于列表接口的 {@code fields} 参数，未选择的列 (尤其是 TEXT 正文) 既不从 MySQL 读取也不序列化。
+ * 字段名直接作为实体属性路径使用，调用方必须先用 {@link SparseFields#parse} 按白名单校验。
+ * 实体需要有 id、userId 和 timestamp 属性。
+ */
+@Repository
+public class SparseFieldRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 按 (timestamp, id) 倒序查询当前用户的数据。
+     * @param columns 要读取的实体属性，必须包含 id 和 timestamp
+     * @param filters 属性 → 值 的等值筛选条件
+     * @param after 上一页最后一条的游标，首页传 null
+     * @param limit 最多返回条数，null 表示不限制
+     */
+    public List<Map<String, Object>> findPage(Class<?> entityType, List<String> columns, String userId,
+                                              Map<String, ?> filters, KeysetCursor after, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        query.multiselect(selections(root, columns));
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(root.get("userId"), userId));
+        filters.forEach((attribute, value) -> where.add(cb.equal(root.get(attribute), value)));
+        Path<LocalDateTime> timestamp = root.get(SparseFields.TIMESTAMP);
+        Path<Long> id = root.get(SparseFields.ID);
+        if (after != null) {
+            where.add(cb.or(cb.lessThan(timestamp, after.time()),
+                    cb.and(cb.equal(timestamp, after.time()), cb.lessThan(id, after.id()))));
+        }
+        query.where(where.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(timestamp), cb.desc(id));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (limit != null) {
+            typed.setMaxResults(limit);
+        }
+        return toMaps(typed.getResultList(), columns);
+    }
+
+    /**
+     * 按 ID 查询当前用户的数据，不保证顺序；不存在或不属于该用户的 ID 会被跳过。
+     * @param columns 要读取的实体属性，必须包含 id
+     */
+    public List<Map<String, Object>> findByIds(Class<?> entityType, List<String> columns, String userId,
+                                               Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        query.multiselect(selections(root, columns));
+        query.where(cb.equal(root.get("userId"), userId), root.get(SparseFields.ID).in(ids));
+        return toMaps(entityManager.createQuery(query).getResultList(), columns);
+    }
+
+    private static List<Selection<?>> selections(Root<?> root, List<String> columns) {
+        List<Selection<?>> selections = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            selections.add(root.get(column).alias(column));
+        }
+        return selections;
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> tuples, List<String> columns) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String column : columns) {
+                row.put(column, tuple.get(column));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.entity.StoredFile;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    Optional<StoredFile> findByIdentifier(String identifier);
+
+    // 加锁读取 (SELECT ... FOR UPDATE)：等待进行中的引用事务提交后再判断引用计数
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.identifier = :identifier")
+    Optional<StoredFile> findByIdentifierForUpdate(@Param("identifier") String identifier);
+
+    /**
+     * 记录一次引用：没有记录时插入 (引用计数 1)，已有记录时引用计数 +1，其余元数据保持首次写入时的值。
+     * 文件在用户之间共享，不记录原始文件名 (显示名保存在引用它的条目上)。
+     * 单条 INSERT ... ON DUPLICATE KEY UPDATE，并发上传相同内容时不会因唯一索引冲突失败。
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_file (identifier, sha256, size, content_type, original_filename, ref_count, created_at) " +
+            "VALUES (:identifier, :sha256, :size, :contentType, NULL, 1, :createdAt) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+            nativeQuery = true)
+    void upsertReference(@Param("identifier") String identifier,
+                         @Param("sha256") String sha256,
+                         @Param("size") long size,
+                         @Param("contentType") String contentType,
+                         @Param("createdAt") LocalDateTime createdAt);
+
+    // 引用计数 -1 (不会小于 0)
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount - 1 WHERE f.identifier = :identifier AND f.refCount > 0")
+    int decrementRefCount(@Param("identifier") String identifier);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile f WHERE f.identifier = :identifier")
+    int deleteByIdentifier(@Param("identifier") String identifier);
+}
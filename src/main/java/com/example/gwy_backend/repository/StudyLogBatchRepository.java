@@ -0,0 +1,23 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.entity.StudyLog;
+
+import java.util.List;
+
+/**
+ * {@link StudyLogRepository} 的自定义片段：JDBC 批量插入。
+ * <p>
+ * IDENTITY 主键下 Hibernate 无法做 JDBC 批量插入，逐条 save 会一条一条地往返数据库，
+ * 这里直接用 JdbcTemplate 批量执行 (数据源开启 rewriteBatchedStatements，驱动合并为多行 INSERT，一批一次往返)。
+ * 合并后的语句不返回每行的受影响行数，本次插入的行由写入的批次标记 syncToken 识别。
+ */
+public interface StudyLogBatchRepository {
+
+    /**
+     * 批量插入 (INSERT ... ON DUPLICATE KEY UPDATE id = id)，同一用户下 clientKey 已存在的行保持不变 (包括 syncToken)。
+     * 不回填 ID，调用方按 clientKey 和 syncToken 重新查询即得到由本次插入的行。
+     * @param logs 待插入的日志，userId 和 clientKey 不能为空
+     * @param syncToken 本次调用唯一的批次标记，写入每个新插入的行
+     */
+    void insertNew(List<StudyLog> logs, String syncToken);
+}
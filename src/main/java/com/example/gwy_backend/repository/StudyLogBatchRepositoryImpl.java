@@ -0,0 +1,43 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.entity.StudyLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * {@link StudyLogBatchRepository} 的实现，类名后缀 Impl 由 Spring Data 自动识别为仓库片段。
+ */
+public class StudyLogBatchRepositoryImpl implements StudyLogBatchRepository {
+
+    private static final int JDBC_BATCH_SIZE = 100;
+
+    // 重复键时 id = id 不修改任何列 (syncToken 保留原值)：与 INSERT IGNORE 不同，其他错误 (截断、非空约束等) 照常报错
+    private static final String INSERT_NEW_SQL =
+            "INSERT INTO study_log (user_id, start_time, end_time, duration_seconds, activity, source, client_key, sync_token) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public StudyLogBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertNew(List<StudyLog> logs, String syncToken) {
+        jdbcTemplate.batchUpdate(INSERT_NEW_SQL, logs, JDBC_BATCH_SIZE, (ps, studyLog) -> {
+            // 与 Hibernate 一致按 Timestamp 绑定，保证两条写入路径的时区处理相同
+            ps.setString(1, studyLog.getUserId());
+            ps.setTimestamp(2, Timestamp.valueOf(studyLog.getStartTime()));
+            ps.setTimestamp(3, Timestamp.valueOf(studyLog.getEndTime()));
+            ps.setLong(4, studyLog.getDurationSeconds());
+            ps.setString(5, studyLog.getActivity());
+            ps.setString(6, studyLog.getSource());
+            ps.setString(7, studyLog.getClientKey());
+            ps.setString(8, syncToken);
+        });
+    }
+}
@@ -1,37 +1,80 @@
 package com.example.gwy_backend.repository;
 
 import com.example.gwy_backend.entity.StudyLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying; // <<< 导入 @Modifying
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface StudyLogRepository extends JpaRepository<StudyLog, Long> {
+public interface StudyLogRepository extends JpaRepository<StudyLog, Long>, StudyLogBatchRepository {
 
-    // 获取所有日志，按开始时间倒序
-    List<StudyLog> findAllByOrderByStartTimeDesc();
+    // 以下查询都按用户隔离，对应以 userId 开头的复合索引
 
     // 获取指定时间范围内的日志 (示例)
-    List<StudyLog> findByStartTimeBetweenOrderByStartTimeDesc(LocalDateTime start, LocalDateTime end);
+    List<StudyLog> findByUserIdAndStartTimeBetweenOrderByStartTimeDesc(String userId, LocalDateTime start, LocalDateTime end);
+
+    // 离线同步去重：按客户端幂等键查询 (唯一索引 uk_study_log_user_client_key)
+    Optional<StudyLog> findByUserIdAndClientKey(String userId, String clientKey);
+
+    List<StudyLog> findByUserIdAndClientKeyIn(String userId, Collection<String> clientKeys);
+
+    // 批量同步中由本次调用插入的行 (见 StudyLogBatchRepository#insertNew)
+    List<StudyLog> findByUserIdAndClientKeyInAndSyncToken(String userId, Collection<String> clientKeys, String syncToken);
+
+    // --- 游标分页：按 (startTime, id) 倒序，只取 limit 条，不做 count 查询 (索引 idx_study_log_user_start_time_id) ---
+
+    List<StudyLog> findByUserIdOrderByStartTimeDescIdDesc(String userId, Limit limit);
+
+    @Query("SELECT s FROM StudyLog s WHERE s.userId = :userId AND " +
+            "(s.startTime < :startTime OR (s.startTime = :startTime AND s.id < :id)) " +
+            "ORDER BY s.startTime DESC, s.id DESC")
+    List<StudyLog> findPageAfter(@Param("userId") String userId,
+                                 @Param("startTime") LocalDateTime startTime, @Param("id") Long id, Limit limit);
 
     // 计算指定时间范围内的总时长 (使用 JPQL SUM)
-    @Query("SELECT COALESCE(SUM(s.durationSeconds), 0) FROM StudyLog s WHERE s.startTime >= :start AND s.startTime < :end")
-    long sumDurationSecondsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    @Query("SELECT COALESCE(SUM(s.durationSeconds), 0) FROM StudyLog s " +
+            "WHERE s.userId = :userId AND s.startTime >= :start AND s.startTime < :end")
+    long sumDurationSecondsBetween(@Param("userId") String userId,
+                                   @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     /**
-     * 删除所有的 StudyLog 记录。
+     * 按 (开始时间, ID) 正序流式读取全部日志，用于导出。
+     * 必须在事务中使用并在用完后关闭 Stream；调用方应逐条 detach，使内存占用与总行数无关。
+     * 读完之前同一连接上不能执行其他语句 (MySQL 驱动的流式结果集)。
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE), // MySQL 驱动逐行流式读取，只作用于这条查询
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")  // 只读实体，不保留脏检查快照
+    })
+    @Query("SELECT s FROM StudyLog s WHERE s.userId = :userId ORDER BY s.startTime ASC, s.id ASC")
+    Stream<StudyLog> streamAllForExport(@Param("userId") String userId);
+
+    /**
+     * 按用户、开始日期分组统计时长与条数，用于重建学习时长聚合表 (全部用户)。
+     * 每一行为 [String 用户, LocalDate 日期, Long 总秒数, Long 条数]，只统计正时长。
+     */
+    @Query("SELECT s.userId, CAST(s.startTime AS LocalDate), SUM(s.durationSeconds), COUNT(s) FROM StudyLog s " +
+            "WHERE s.durationSeconds > 0 GROUP BY s.userId, CAST(s.startTime AS LocalDate)")
+    List<Object[]> sumDurationGroupByUserAndDay();
+
+    /**
+     * 删除指定用户的所有 StudyLog 记录。
      * 使用 @Modifying 注解表明这是一个更新/删除操作。
      * 使用 @Query 定义 JPQL 删除语句。
      */
-    @Modifying // <<< 添加 @Modifying 注解
-    @Query("DELETE FROM StudyLog sl") // <<< JPQL 删除语句 (sl 是别名，可以省略)
-    void deleteAllLogs(); // <<< 添加方法声明
-
-    // 可以添加按用户 ID 查询的方法 (如果实现用户系统)
-    // List<StudyLog> findByUserIdOrderByStartTimeDesc(Long userId);
+    @Modifying
+    @Query("DELETE FROM StudyLog sl WHERE sl.userId = :userId")
+    void deleteAllLogs(@Param("userId") String userId);
 }
\ No newline at end of file
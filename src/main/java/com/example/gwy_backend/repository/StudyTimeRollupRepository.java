@@ -0,0 +1,57 @@
+package com.example.gwy_backend.repository;
+
+import com.example.gwy_backend.entity.StudyTimeRollup;
+import com.example.gwy_backend.entity.StudyTimeRollup.Period;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudyTimeRollupRepository extends JpaRepository<StudyTimeRollup, Long> {
+
+    // 以下查询都按用户隔离 (唯一索引 uk_rollup_user_period)
+
+    Optional<StudyTimeRollup> findByUserIdAndPeriodTypeAndPeriodStart(String userId, Period periodType, LocalDate periodStart);
+
+    List<StudyTimeRollup> findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(String userId, Period periodType,
+                                                                                              LocalDate start, LocalDate end);
+
+    // 在该周期的聚合行上累加，没有行时插入 (单条语句，并发的首次写入由唯一索引 uk_rollup_user_period 合并，不会冲突)
+    @Modifying
+    @Query(value = "INSERT INTO study_time_rollup (user_id, period_type, period_start, total_seconds, log_count) " +
+            "VALUES (:userId, :periodType, :periodStart, :seconds, :count) " +
+            "ON DUPLICATE KEY UPDATE total_seconds = total_seconds + :seconds, log_count = log_count + :count",
+            nativeQuery = true)
+    void upsertIncrement(@Param("userId") String userId,
+                         @Param("periodType") String periodType,
+                         @Param("periodStart") LocalDate periodStart,
+                         @Param("seconds") long seconds,
+                         @Param("count") long count);
+
+    // 指定粒度、日期区间 (包含两端) 内的总秒数
+    @Query("SELECT COALESCE(SUM(r.totalSeconds), 0) FROM StudyTimeRollup r " +
+            "WHERE r.userId = :userId AND r.periodType = :periodType AND r.periodStart >= :start AND r.periodStart <= :end")
+    long sumSecondsBetween(@Param("userId") String userId,
+                           @Param("periodType") Period periodType,
+                           @Param("start") LocalDate start,
+                           @Param("end") LocalDate end);
+
+    // 指定粒度的全部秒数 (对 MONTH 行求和即为历史总时长)
+    @Query("SELECT COALESCE(SUM(r.totalSeconds), 0) FROM StudyTimeRollup r WHERE r.userId = :userId AND r.periodType = :periodType")
+    long sumSeconds(@Param("userId") String userId, @Param("periodType") Period periodType);
+
+    @Modifying
+    @Query("DELETE FROM StudyTimeRollup r WHERE r.userId = :userId")
+    void deleteByUserId(@Param("userId") String userId);
+
+    // 全部用户，只用于全量重建
+    @Modifying
+    @Query("DELETE FROM StudyTimeRollup r")
+    void deleteAllRollups();
+}
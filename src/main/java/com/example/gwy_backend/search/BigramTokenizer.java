@@ -0,0 +1,107 @@
+package com.example.gwy_backend.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 适合中文的分词器：中日韩文字按相邻两字切分 (bigram)，字母数字按整词切分并转小写。
+ * <p>
+ * 例如 "行测判断推理 Java" 建索引时得到：行、测、判、断、推、理 (单字) 以及
+ * 行测、测判、判断、断推、推理 (双字)，再加上 java。
+ * 查询时长度 ≥ 2 的中文片段只用双字词条，单个汉字才用单字词条，从而保持与子串匹配相近的语义。
+ */
+public final class BigramTokenizer {
+
+    private BigramTokenizer() {
+    }
+
+    /**
+     * 建索引用的分词：中文同时产出单字和双字词条。
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        List<String> tokens = new ArrayList<>();
+        forEachRun(text, (run, cjk) -> {
+            if (!cjk) {
+                tokens.add(run);
+                return;
+            }
+            int[] cps = run.codePoints().toArray(); // 按码点切分，避免拆开扩展区汉字的代理对
+            for (int i = 0; i < cps.length; i++) {
+                tokens.add(new String(cps, i, 1));
+                if (i + 1 < cps.length) {
+                    tokens.add(new String(cps, i, 2));
+                }
+            }
+        });
+        return tokens;
+    }
+
+    /**
+     * 查询用的分词：中文片段长度 ≥ 2 时只产出双字词条。
+     */
+    public static List<Token> tokenizeQuery(String text) {
+        List<Token> tokens = new ArrayList<>();
+        forEachRun(text, (run, cjk) -> {
+            if (!cjk) {
+                tokens.add(new Token(run, false));
+                return;
+            }
+            int[] cps = run.codePoints().toArray();
+            if (cps.length == 1) {
+                tokens.add(new Token(run, true));
+            } else {
+                for (int i = 0; i + 1 < cps.length; i++) {
+                    tokens.add(new Token(new String(cps, i, 2), true));
+                }
+            }
+        });
+        return tokens;
+    }
+
+    /**
+     * 查询词条。cjk 为 false 的字母数字词按前缀匹配 (边输入边搜索)。
+     */
+    public record Token(String text, boolean cjk) { }
+
+    private interface RunHandler {
+        void accept(String run, boolean cjk);
+    }
+
+    // 把文本切成连续的中文片段和字母数字片段，其余字符 (空白、标点) 作为分隔
+    private static void forEachRun(String text, RunHandler handler) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder run = new StringBuilder();
+        boolean runIsCjk = false;
+        for (int i = 0; i < lower.length(); ) {
+            int cp = lower.codePointAt(i);
+            i += Character.charCount(cp);
+            boolean cjk = isCjk(cp);
+            boolean word = !cjk && Character.isLetterOrDigit(cp);
+            if ((!cjk && !word) || (run.length() > 0 && cjk != runIsCjk)) {
+                if (run.length() > 0) {
+                    handler.accept(run.toString(), runIsCjk);
+                    run.setLength(0);
+                }
+            }
+            if (cjk || word) {
+                run.appendCodePoint(cp);
+                runIsCjk = cjk;
+            }
+        }
+        if (run.length() > 0) {
+            handler.accept(run.toString(), runIsCjk);
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.gwy_backend.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 知识库条目的内存倒排索引 (标题、内容、标签)。
+ * <p>
+ * 分词见 {@link BigramTokenizer}；多个查询词条之间是 AND 关系，结果按 BM25 相关度排序，
+ * 相关度相同时较新的条目 (ID 较大) 在前。标题命中权重 3，标签 2，内容 1。
+ * 索引只保存 ID 和词频，条目本身仍从数据库读取。所有用户共用一份索引 (IDF 按全部条目计算)，搜索时按用户过滤。
+ */
+@Component
+public class KnowledgeSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeSearchIndex.class);
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * 被索引的条目内容。
+     */
+    public record Document(Long id, String userId, String category, String title, String content, List<String> tags) { }
+
+    private record DocEntry(String userId, String category, Set<String> terms, int length) { }
+
+    /** 一份完整的索引数据，重建时先构建新的一份再整体替换。 */
+    private static final class IndexData {
+        private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>(); // 词条 -> (条目 ID -> 加权词频)
+        private final Map<Long, DocEntry> docs = new HashMap<>();
+        private long totalLength;
+
+        private void add(Document doc) {
+            remove(doc.id());
+            Map<String, Integer> termFreq = new HashMap<>();
+            int length = addTerms(termFreq, doc.title(), TITLE_WEIGHT)
+                    + addTerms(termFreq, doc.content(), CONTENT_WEIGHT);
+            if (doc.tags() != null) {
+                for (String tag : doc.tags()) {
+                    length += addTerms(termFreq, tag, TAG_WEIGHT);
+                }
+            }
+            termFreq.forEach((term, freq) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.id(), freq));
+            String category = doc.category() == null ? "" : doc.category().toLowerCase(Locale.ROOT);
+            docs.put(doc.id(), new DocEntry(doc.userId(), category, termFreq.keySet(), length));
+            totalLength += length;
+        }
+
+        private void remove(Long id) {
+            DocEntry entry = docs.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (String term : entry.terms()) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= entry.length();
+        }
+
+        private static int addTerms(Map<String, Integer> termFreq, String text, int weight) {
+            List<String> tokens = BigramTokenizer.tokenizeForIndex(text);
+            for (String token : tokens) {
+                termFreq.merge(token, weight, Integer::sum);
+            }
+            return tokens.size();
+        }
+    }
+
+    /**
+     * 一次重建过程。通过 {@link #startRebuild()} 获得，逐条 {@link #add(Document)} 后交给 {@link #finishRebuild(Rebuild)}。
+     */
+    public static final class Rebuild {
+        private final IndexData data = new IndexData();
+
+        public void add(Document doc) {
+            data.add(doc);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    private List<Consumer<IndexData>> pendingOps; // 重建期间发生的增删，替换前重放到新索引上
+    private volatile boolean ready = false;
+
+    /**
+     * 索引是否已完成首次构建。未就绪时调用方应回退到数据库查询。
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Document doc) {
+        lock.writeLock().lock();
+        try {
+            data.add(doc);
+            if (pendingOps != null) {
+                pendingOps.add(d -> d.add(doc));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            data.remove(id);
+            if (pendingOps != null) {
+                pendingOps.add(d -> d.remove(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Rebuild startRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingOps = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Rebuild();
+    }
+
+    public void finishRebuild(Rebuild rebuild) {
+        lock.writeLock().lock();
+        try {
+            if (pendingOps != null) {
+                pendingOps.forEach(op -> op.accept(rebuild.data));
+            }
+            pendingOps = null;
+            data = rebuild.data;
+            ready = true;
+            log.info("Knowledge search index rebuilt: {} documents, {} terms.", data.docs.size(), data.postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingOps = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索。
+     * @param query 查询文本
+     * @param category 可选的分类过滤 (忽略大小写)，null 表示不过滤
+     * @param userId 只返回该用户的条目
+     * @return 按相关度排序的条目 ID
+     */
+    public List<Long> search(String query, String category, String userId) {
+        Set<BigramTokenizer.Token> tokens = new LinkedHashSet<>(BigramTokenizer.tokenizeQuery(query));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        String categoryFilter = category == null ? null : category.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            int docCount = data.docs.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = Math.max(1.0, (double) data.totalLength / docCount);
+
+            Map<Long, Double> scores = null;
+            for (BigramTokenizer.Token token : tokens) {
+                Map<Long, Integer> termFreqs = token.cjk()
+                        ? data.postings.getOrDefault(token.text(), Collections.emptyMap())
+                        : prefixPostings(token.text());
+                if (termFreqs.isEmpty()) {
+                    return List.of(); // AND 语义：任一词条无结果即整体无结果
+                }
+                double idf = Math.log(1 + (docCount - termFreqs.size() + 0.5) / (termFreqs.size() + 0.5));
+                Set<Long> candidates = scores == null ? termFreqs.keySet() : scores.keySet();
+                Map<Long, Double> next = new HashMap<>();
+                for (Long docId : candidates) {
+                    Integer tf = termFreqs.get(docId);
+                    if (tf == null) {
+                        continue;
+                    }
+                    DocEntry entry = data.docs.get(docId);
+                    if (!userId.equals(entry.userId())) {
+                        continue;
+                    }
+                    if (categoryFilter != null && !categoryFilter.equals(entry.category())) {
+                        continue;
+                    }
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * entry.length() / avgLength));
+                    next.put(docId, (scores == null ? 0 : scores.get(docId)) + idf * norm);
+                }
+                if (next.isEmpty()) {
+                    return List.of();
+                }
+                scores = next;
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+            List<Long> ids = new ArrayList<>(ranked.size());
+            ranked.forEach(e -> ids.add(e.getKey()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 字母数字词条按前缀匹配，把所有以该前缀开头的词条的词频合并
+    private Map<Long, Integer> prefixPostings(String prefix) {
+        Map<String, Map<Long, Integer>> matching = data.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matching.size() == 1) {
+            return matching.values().iterator().next();
+        }
+        Map<Long, Integer> merged = new HashMap<>();
+        matching.values().forEach(posting -> posting.forEach((id, tf) -> merged.merge(id, tf, Integer::sum)));
+        return merged;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.gwy_backend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 学习统计的实时推送 (Server-Sent Events)。
+ * <p>
+ * 每个用户的统计在数据变化时只计算一次，再推送给该用户的所有连接；连接各有一个有界发送队列，
+ * 队列满 (客户端读取太慢) 时断开该连接，客户端的 EventSource 会自动重连并重新收到最新统计。
+ */
+public interface ActivityStreamService {
+
+    /**
+     * 连接数已达上限，客户端稍后重试。
+     */
+    class TooManyConnectionsException extends RuntimeException {
+        public TooManyConnectionsException(int maxConnections) {
+            super("Too many activity stream connections (max " + maxConnections + ").");
+        }
+    }
+
+    /**
+     * 为当前用户打开一个推送连接，连接建立后立即推送一次当前统计。
+     * @throws TooManyConnectionsException 连接数已达上限
+     */
+    SseEmitter subscribe();
+
+    /**
+     * 标记这些用户的统计已变化。同一用户的多次变化会合并为一次计算，没有连接的用户直接忽略。
+     */
+    void statsChanged(Collection<String> userIds);
+
+    /**
+     * 推送运行指标 (连接数、计算次数、发送数、因读取太慢被断开的连接数等)。
+     */
+    Map<String, Object> getMetrics();
+}
@@ -1,5 +1,6 @@
 package com.example.gwy_backend.service;
 
+import com.example.gwy_backend.dto.ActivityHeatmap;
 import com.example.gwy_backend.entity.DailyActivityLog; // 确保导入 DailyActivityLog
 
 import java.time.LocalDate;
@@ -10,14 +11,14 @@ import java.util.Map;
 public interface DailyActivityLogService { // 接口名保持 DailyActivityLogService 或改为 StatsService
 
     /**
-     * 增加指定日期的在线时长。如果当天记录不存在，则会创建。
+     * 增加指定日期的在线时长。增量先写入内存缓冲，定时合并写库 (当天记录不存在时创建)。
      * @param date 日期
      * @param secondsToAdd 要增加的秒数 (应为正数)
      */
     void addOnlineDuration(LocalDate date, long secondsToAdd);
 
     /**
-     * 获取指定日期的总在线时长（秒）。
+     * 获取指定日期的总在线时长（秒），包含尚未刷新到数据库的缓冲部分。
      * @param date 日期
      * @return 当天的总在线秒数，如果当天无记录则返回 0
      */
@@ -37,6 +38,14 @@ public interface DailyActivityLogService { // 接口名保持 DailyActivityLogSe
      */
     List<DailyActivityLog> getLogsForDateRange(LocalDate startDate, LocalDate endDate);
 
+    /**
+     * 获取一整年每天的学习时长和在线时长 (热力图)。
+     * 学习时长读取 DAY 预聚合行，在线时长读取一次 daily_activity_log 区间；往年的结果会被缓存。
+     * @param year 年份，不能晚于今年
+     * @throws IllegalArgumentException 年份超出范围
+     */
+    ActivityHeatmap getHeatmap(int year);
+
     /**
      * 获取聚合的学习统计数据 (总计、本周、本月 - 基于 StudyLog)
      * 和今日在线时长 (基于 DailyActivityLog)。
@@ -1,7 +1,9 @@
 package com.example.gwy_backend.service;
 
+import com.example.gwy_backend.dto.CursorPage;
 import com.example.gwy_backend.entity.ErrorLogEntry;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ErrorLogService {
@@ -10,11 +12,55 @@ public interface ErrorLogService {
 
     List<ErrorLogEntry> getErrorLogsBySubject(String subject); // 按模块获取错题
 
+    /**
+     * 游标分页获取错题，按 (时间, ID) 倒序。
+     * @param subject 可选的模块筛选，null 或空表示全部
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 页大小，会被限制在 {@link CursorPage#MAX_PAGE_SIZE} 以内
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<ErrorLogEntry> getErrorLogPage(String subject, String cursor, Integer size);
+
+    /**
+     * 列表接口 fields 参数允许选择的字段 (id 和 timestamp 总是返回)。
+     */
+    List<String> SPARSE_FIELDS = List.of("subject", "knowledgePoint", "question", "myAnswer", "correctAnswer",
+            "reason", "imageFile", "reviewCount", "lastReviewDate", "nextReviewAt", "easeFactor", "intervalDays",
+            "repetitions");
+
+    /**
+     * 获取错题的部分字段 (按时间倒序)，只读取所选的列。
+     * @param subject 可选的模块筛选，null 或空表示全部
+     * @param fields {@link com.example.gwy_backend.util.SparseFields#parse} 校验过的字段
+     */
+    List<Map<String, Object>> getErrorLogs(String subject, List<String> fields);
+
+    /**
+     * 与 {@link #getErrorLogPage(String, String, Integer)} 相同，但只读取所选的字段。
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<Map<String, Object>> getErrorLogPage(String subject, String cursor, Integer size, List<String> fields);
+
     Optional<ErrorLogEntry> getErrorLogById(Long id); // 按 ID 获取错题
 
     ErrorLogEntry addErrorLog(ErrorLogEntry errorLogEntry); // 添加错题
 
-    Optional<ErrorLogEntry> markAsReviewed(Long id); // 标记为已复习
+    /**
+     * 记录一次复习，按 SM-2 更新难度系数、复习间隔和下次复习时间。
+     * @param quality 回忆质量 0 ~ 5 (0 完全不记得，5 轻松答对)
+     * @throws IllegalArgumentException 质量超出范围
+     */
+    Optional<ErrorLogEntry> markAsReviewed(Long id, int quality);
+
+    /**
+     * 获取已到期需要复习的错题，最早到期的在前。
+     * @param subject 可选的模块筛选，null 或空表示全部
+     * @param limit 最多返回条数，默认 {@value #DEFAULT_DUE_LIMIT}，最大 {@value #MAX_DUE_LIMIT}
+     */
+    List<ErrorLogEntry> getDueForReview(String subject, Integer limit);
+
+    int DEFAULT_DUE_LIMIT = 50;
+    int MAX_DUE_LIMIT = 200;
 
     boolean deleteErrorLog(Long id); // 删除错题
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.gwy_backend.service;
+
+import com.example.gwy_backend.dto.ErrorStatSummary;
+import com.example.gwy_backend.entity.ErrorLogEntry;
+
+import java.util.List;
+
+/**
+ * 错题统计预聚合 (按模块 / 按知识点) 的维护与查询。
+ * 维护方法必须在修改错题的同一事务中调用，统计与错题一起提交或回滚。
+ * 统计行按错题所属用户维护，查询只返回当前请求用户的统计。
+ */
+public interface ErrorStatsService {
+
+    /**
+     * 新增了一条错题 (已保存，timestamp 已设置)。
+     */
+    void onErrorAdded(ErrorLogEntry entry);
+
+    /**
+     * 错题被复习了一次。
+     * @param firstReview 这是否是该错题的第一次复习 (未复习数需要减一)
+     */
+    void onErrorReviewed(ErrorLogEntry entry, boolean firstReview);
+
+    /**
+     * 即将删除一条错题 (使用删除前的复习次数)。
+     */
+    void onErrorDeleted(ErrorLogEntry entry);
+
+    /**
+     * 获取统计，模块行在前、其下的知识点行在后，按模块、知识点排序。
+     * @param subject 可选的模块筛选，null 或空表示全部
+     */
+    List<ErrorStatSummary> getStats(String subject);
+
+    /**
+     * 根据 error_log_entry 全量重建统计表 (全部用户)。
+     * @return 重建后的统计行数量 (模块 + 知识点)
+     */
+    int rebuild();
+}
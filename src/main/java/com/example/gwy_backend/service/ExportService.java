@@ -0,0 +1,57 @@
+package com.example.gwy_backend.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * 历史数据导出 (离线分析用)。
+ * <p>
+ * 数据从数据库流式读取并逐行写出，内存占用与导出的总行数无关。
+ */
+public interface ExportService {
+
+    /**
+     * 导出格式。
+     */
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 解析请求参数 (忽略大小写)。
+         * @throws IllegalArgumentException 不支持的格式
+         */
+        public static Format parse(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * 把全部学习日志按开始时间正序写到输出流。
+     * @return 导出的行数
+     */
+    long exportStudyLogs(Format format, OutputStream out) throws IOException;
+
+    /**
+     * 把全部错题记录按记录时间正序写到输出流。
+     * @return 导出的行数
+     */
+    long exportErrorLogs(Format format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,19 @@
+package com.example.gwy_backend.service;
+
+import com.example.gwy_backend.dto.FileMetadata;
+
+import java.util.Optional;
+
+/**
+ * 已存储文件的元数据查询 (带进程内缓存)。
+ */
+public interface FileMetadataService {
+
+    /**
+     * 查询文件元数据。优先使用写入时记录的元数据；没有记录的旧文件从文件系统探测一次。
+     * @param fileIdentifier 存储标识符
+     * @return 元数据；文件不存在时为空
+     * @throws RuntimeException 标识符无效 (例如路径穿越)
+     */
+    Optional<FileMetadata> getMetadata(String fileIdentifier);
+}
@@ -18,6 +18,17 @@ public interface FileStorageStrategy {
      */
     String storeFile(MultipartFile file, String subDirectory) throws RuntimeException;
 
+    /**
+     * 存储服务器本地已有的完整文件 (例如分片上传拼好的临时文件)。
+     * 实现应尽量移动而不是复制该文件；无论成功与否，调用后源文件都不再可用。
+     * @param sourceFile 源文件，应与存储目录在同一文件系统上
+     * @param originalFilename 原始文件名 (用于确定扩展名)
+     * @param subDirectory 可选的子目录
+     * @return 与 storeFile 相同格式的标识符
+     * @throws RuntimeException 如果存储失败
+     */
+    String storeLocalFile(Path sourceFile, String originalFilename, String subDirectory) throws RuntimeException;
+
     /**
      * 根据文件标识符加载文件资源。
      * @param fileIdentifier storeFile 方法返回的标识符 (包含子目录)
@@ -28,10 +39,11 @@ public interface FileStorageStrategy {
     Resource loadFileAsResource(String fileIdentifier, String subDirectory) throws RuntimeException;
 
     /**
-     * 根据文件标识符删除文件。
+     * 释放 storeFile 返回的一次文件引用 (实体不再使用该文件时调用)。
+     * 实现可以推迟到事务提交后再删除物理文件；共享存储 (内容寻址) 下仍被引用的文件不会被删除。
      * @param fileIdentifier storeFile 方法返回的标识符 (包含子目录)
      * @param subDirectory 此参数在 LocalStorageStrategy 中可能不再需要
-     * @throws RuntimeException 如果删除失败
+     * @throws RuntimeException 如果标识符无效
      */
     void deleteFile(String fileIdentifier, String subDirectory) throws RuntimeException;
 
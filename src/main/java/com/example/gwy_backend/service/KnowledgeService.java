@@ -1,18 +1,53 @@
 package com.example.gwy_backend.service;
 
+import com.example.gwy_backend.dto.CursorPage;
+import com.example.gwy_backend.dto.KnowledgeItemSummary;
 import com.example.gwy_backend.entity.KnowledgeItem;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface KnowledgeService {
 
-    // 根据筛选条件获取知识条目列表
+    // 根据筛选条件获取知识条目列表 (不含正文，完整内容用 getKnowledgeItemById 获取)
     // category 和 searchTerm 都可以为 null 或空
-    List<KnowledgeItem> getKnowledgeItems(String category, String searchTerm);
+    List<KnowledgeItemSummary> getKnowledgeItems(String category, String searchTerm);
 
-    Optional<KnowledgeItem> getKnowledgeItemById(Long id);
+    /**
+     * 游标分页获取知识条目，按 (时间, ID) 倒序。搜索结果按相关度排序，不走游标分页。
+     * @param category 可选的分类筛选，null、空或 "all" 表示全部
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 页大小，会被限制在 {@link CursorPage#MAX_PAGE_SIZE} 以内
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<KnowledgeItemSummary> getKnowledgeItemPage(String category, String cursor, Integer size);
+
+    /**
+     * 列表接口 fields 参数允许选择的字段 (id 和 timestamp 总是返回)。tags 通过一次批量查询补齐。
+     */
+    List<String> SPARSE_FIELDS = List.of("title", "category", "content", "tags", "externalLink", "linkedFile");
+
+    /**
+     * 与 {@link #getKnowledgeItems(String, String)} 相同，但只读取所选的字段 (可以包含正文)。
+     * @param fields {@link com.example.gwy_backend.util.SparseFields#parse} 校验过的字段
+     */
+    List<Map<String, Object>> getKnowledgeItems(String category, String searchTerm, List<String> fields);
+
+    /**
+     * 与 {@link #getKnowledgeItemPage(String, String, Integer)} 相同，但只读取所选的字段。
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<Map<String, Object>> getKnowledgeItemPage(String category, String cursor, Integer size, List<String> fields);
+
+    Optional<KnowledgeItem> getKnowledgeItemById(Long id); // 包含正文和标签
 
     KnowledgeItem addKnowledgeItem(KnowledgeItem knowledgeItem);
 
     boolean deleteKnowledgeItem(Long id);
+
+    /**
+     * 从数据库全量重建内存全文索引 (启动时自动执行一次)。
+     * @return 索引的条目数量
+     */
+    int rebuildSearchIndex();
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.example.gwy_backend.service;
 
+import com.example.gwy_backend.dto.CursorPage;
 import com.example.gwy_backend.entity.NoteEntry;
 import java.util.List;
+import java.util.Map;
 // 移除了 Optional
 
 public interface NoteService {
@@ -12,6 +14,31 @@ public interface NoteService {
      */
     List<NoteEntry> getAllNotesSortedByTimestamp();
 
+    /**
+     * 游标分页获取笔记，按 (创建时间, ID) 倒序。
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 页大小，会被限制在 {@link CursorPage#MAX_PAGE_SIZE} 以内
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<NoteEntry> getNotePage(String cursor, Integer size);
+
+    /**
+     * 列表接口 fields 参数允许选择的字段 (id 和 timestamp 总是返回)。
+     */
+    List<String> SPARSE_FIELDS = List.of("noteKey", "content");
+
+    /**
+     * 获取所有笔记的部分字段 (按创建时间倒序)，只读取所选的列。
+     * @param fields {@link com.example.gwy_backend.util.SparseFields#parse} 校验过的字段
+     */
+    List<Map<String, Object>> getAllNotes(List<String> fields);
+
+    /**
+     * 与 {@link #getNotePage(String, Integer)} 相同，但只读取所选的字段。
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<Map<String, Object>> getNotePage(String cursor, Integer size, List<String> fields);
+
     /**
      * 创建一条新的笔记记录。
      * @param noteEntry 包含 content 和可选 noteKey 的新笔记对象 (ID 应为 null)
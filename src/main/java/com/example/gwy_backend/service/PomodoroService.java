@@ -1,5 +1,7 @@
 package com.example.gwy_backend.service; // <<< 确认包名
 
+import com.example.gwy_backend.dto.CursorPage;
+import com.example.gwy_backend.dto.StudyLogBatchResult;
 import com.example.gwy_backend.entity.PomodoroSettings; // <<< 确认 Entity 路径
 import com.example.gwy_backend.entity.StudyLog;       // <<< 确认 Entity 路径
 import java.util.List;
@@ -32,6 +34,16 @@ public interface PomodoroService {
      */
     StudyLog addStudyLog(StudyLog studyLog);
 
+    /**
+     * 批量添加学习日志 (客户端离线记录补传)。
+     * 每条记录必须带 clientKey；已存在的 clientKey 视为重复提交直接跳过，因此整批重发是安全的。
+     * 新记录在一个事务内用 JDBC 批量插入，并只发布一次 StudyLogsBatchAddedEvent。
+     * @param studyLogs 待同步的日志
+     * @return 逐条处理结果 (与请求顺序一致)
+     * @throws IllegalArgumentException 批次为空或超过允许的最大条数
+     */
+    StudyLogBatchResult addStudyLogsBatch(List<StudyLog> studyLogs);
+
     /**
      * 获取最近指定数量的学习日志记录，按开始时间倒序排列。
      * @param limit 要获取的记录数量
@@ -39,6 +51,14 @@ public interface PomodoroService {
      */
     List<StudyLog> getRecentStudyLogs(int limit);
 
+    /**
+     * 游标分页获取学习日志，按 (开始时间, ID) 倒序。
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 页大小，会被限制在 {@link CursorPage#MAX_PAGE_SIZE} 以内
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<StudyLog> getStudyLogPage(String cursor, Integer size);
+
     /**
      * 清空所有的学习日志记录。
      */
@@ -1,8 +1,13 @@
 package com.example.gwy_backend.service;
 
+import com.example.gwy_backend.cache.DataVersions;
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.dto.ResourceView;
 import com.example.gwy_backend.entity.Resource;
 import com.example.gwy_backend.repository.ResourceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,25 +16,37 @@ import java.util.Optional;
 @Service
 public class ResourceService {
 
+    // 键中带数据版本号 (读取开始时的版本)：写操作提交后版本递增，提交前开始的读取即使随后放入旧数据，也放在不会再被命中的旧键下
+    private static final String VERSION_KEY = "@dataVersions.current('" + DataVersions.RESOURCES + "', null) + ':'";
+
     private final ResourceRepository resourceRepository;
+    private final DataVersions dataVersions;
 
     @Autowired
-    public ResourceService(ResourceRepository resourceRepository) {
+    public ResourceService(ResourceRepository resourceRepository, DataVersions dataVersions) {
         this.resourceRepository = resourceRepository;
+        this.dataVersions = dataVersions;
     }
 
-    public List<Resource> getAllResources() {
-        return resourceRepository.findAllByOrderByDisplayOrderAscCreatedAtDesc();
+    // 资源很少修改，列表和单个资源都走缓存 (键前缀区分)，缓存的是不可变快照；任何写操作提交后清空整个缓存，并递增版本号
+    @Cacheable(cacheNames = CacheConfig.RESOURCES, key = VERSION_KEY + " + 'all'")
+    public List<ResourceView> getAllResources() {
+        return resourceRepository.findAllByOrderByDisplayOrderAscCreatedAtDesc().stream().map(ResourceView::from).toList();
     }
 
-    public List<Resource> getResourcesByCategory(String category) {
-        return resourceRepository.findByCategoryOrderByDisplayOrderAscCreatedAtDesc(category);
+    @Cacheable(cacheNames = CacheConfig.RESOURCES, key = VERSION_KEY + " + 'category:' + #category")
+    public List<ResourceView> getResourcesByCategory(String category) {
+        return resourceRepository.findByCategoryOrderByDisplayOrderAscCreatedAtDesc(category).stream()
+                .map(ResourceView::from)
+                .toList();
     }
 
-    public Optional<Resource> getResourceById(Long id) {
-        return resourceRepository.findById(id);
+    @Cacheable(cacheNames = CacheConfig.RESOURCES, key = VERSION_KEY + " + 'id:' + #id", unless = "#result == null") // 不缓存 "不存在"
+    public Optional<ResourceView> getResourceById(Long id) {
+        return resourceRepository.findById(id).map(ResourceView::from);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.RESOURCES, allEntries = true)
     public Resource createResource(Resource resource) {
         // 设置默认值
         if (resource.getIcon() == null || resource.getIcon().isEmpty()) {
@@ -41,9 +58,12 @@ public class ResourceService {
         if (resource.getDisplayOrder() == null) {
             resource.setDisplayOrder(0);
         }
-        return resourceRepository.save(resource);
+        Resource saved = resourceRepository.save(resource);
+        dataVersions.bumpAll(DataVersions.RESOURCES);
+        return saved;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.RESOURCES, allEntries = true)
     public Optional<Resource> updateResource(Long id, Resource resourceDetails) {
         return resourceRepository.findById(id)
                 .map(existingResource -> {
@@ -66,14 +86,18 @@ public class ResourceService {
                         existingResource.setDisplayOrder(resourceDetails.getDisplayOrder());
                     }
                     
-                    return resourceRepository.save(existingResource);
+                    Resource saved = resourceRepository.save(existingResource);
+                    dataVersions.bumpAll(DataVersions.RESOURCES);
+                    return saved;
                 });
     }
 
+    @CacheEvict(cacheNames = CacheConfig.RESOURCES, allEntries = true)
     public boolean deleteResource(Long id) {
         return resourceRepository.findById(id)
                 .map(resource -> {
                     resourceRepository.delete(resource);
+                    dataVersions.bumpAll(DataVersions.RESOURCES);
                     return true;
                 })
                 .orElse(false);
@@ -0,0 +1,56 @@
+package com.example.gwy_backend.service;
+
+import com.example.gwy_backend.entity.StudyLog;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * 学习时长预聚合 (按天 / 按月) 的维护与查询。
+ * <p>
+ * 聚合行按用户区分：写入使用日志自身的 userId，查询与清空作用于当前请求用户 ({@link com.example.gwy_backend.util.UserContext})。
+ */
+public interface StudyRollupService {
+
+    /**
+     * 将新增的学习日志累加到对应的日、月聚合行。
+     * @param logs 已保存的学习日志 (时长非正的会被忽略)
+     */
+    void applyStudyLogs(Collection<StudyLog> logs);
+
+    /**
+     * 清空当前用户的所有聚合行 (与清空学习日志配合使用)。
+     */
+    void clearAll();
+
+    /**
+     * 根据 study_log 全量重建聚合表 (全部用户)。
+     * @return 重建后的 DAY 行数量
+     */
+    int rebuild();
+
+    /**
+     * 历史总学习时长 (秒)。
+     */
+    long getTotalSeconds();
+
+    /**
+     * 日期区间内的学习时长 (秒)。
+     * @param startDate 开始日期 (包含)
+     * @param endDate 结束日期 (包含)
+     */
+    long getSecondsBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 日期区间内每天的学习时长 (秒)，一次读取区间内的 DAY 聚合行。
+     * @param startDate 开始日期 (包含)，对应数组下标 0
+     * @param endDate 结束日期 (包含)
+     * @return 长度为区间天数的数组，没有学习记录的日期为 0
+     */
+    long[] getDailySeconds(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 指定日期所在月份的学习时长 (秒)。
+     */
+    long getMonthSeconds(LocalDate anyDayInMonth);
+}
@@ -0,0 +1,38 @@
+package com.example.gwy_backend.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 图片缩略图 (派生文件) 服务。
+ * <p>
+ * 缩略图保存在原文件旁边，命名为 {@code <原文件名>.thumb-<尺寸>.jpg}，尺寸指长边像素。
+ * 上传后由有界线程池在后台生成；访问时缺失的缩略图会按需生成，同一原图同时只生成一次。
+ */
+public interface ThumbnailService {
+
+    /**
+     * 配置的缩略图尺寸 (长边像素)，从小到大。
+     */
+    List<Integer> getSizes();
+
+    /**
+     * 文件是否是可以生成缩略图的图片 (按扩展名判断，缩略图本身除外；近期解码失败或像素过多的图片也返回 false)。
+     */
+    boolean isThumbnailable(String fileIdentifier);
+
+    /**
+     * 提交后台任务生成该文件所有缺失的缩略图。非图片直接忽略；线程池队列已满时跳过 (之后访问时会按需生成)。
+     */
+    void generateAsync(String fileIdentifier);
+
+    /**
+     * 获取指定尺寸的缩略图，缺失时生成并等待完成。
+     * @param fileIdentifier 原文件标识符
+     * @param size 缩略图尺寸，必须是 {@link #getSizes()} 之一
+     * @return 缩略图路径；不是图片、无法解码或生成超时时为空 (调用方可以回退到原图)
+     * @throws IllegalArgumentException 尺寸不受支持
+     */
+    Optional<Path> getThumbnail(String fileIdentifier, int size);
+}
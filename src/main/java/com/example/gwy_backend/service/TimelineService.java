@@ -1,18 +1,19 @@
 package com.example.gwy_backend.service;
 
+import com.example.gwy_backend.dto.TimelineTaskView;
 import com.example.gwy_backend.entity.TimelineTask;
 import java.util.List;
 import java.util.Map; // 用于返回按阶段分组的任务
 
 public interface TimelineService {
 
-    // 获取所有任务，按阶段分组返回 Map<phase, List<Task>>
-    Map<String, List<TimelineTask>> getAllTasksGroupedByPhase();
+    // 获取所有任务，按阶段分组返回 Map<phase, List<Task>> (不可变快照)
+    Map<String, List<TimelineTaskView>> getAllTasksGroupedByPhase();
 
-    // 获取所有任务的平铺列表 (按阶段排序)
-    List<TimelineTask> getAllTasksList();
+    // 获取所有任务的平铺列表 (按阶段排序，不可变快照)
+    List<TimelineTaskView> getAllTasksList();
 
-    // 初始化或重置任务列表 (如果后端还没有数据)
+    // 登记初始任务模板 (默认用户在启动完成、旧数据回填之后初始化，其他用户首次访问时从模板复制)
     void initializeTasks(List<TimelineTask> initialTasks);
 
     // 更新单个任务的完成状态
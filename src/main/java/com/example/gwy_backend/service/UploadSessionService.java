@@ -0,0 +1,63 @@
+package com.example.gwy_backend.service;
+
+import com.example.gwy_backend.dto.UploadSessionRequest;
+import com.example.gwy_backend.dto.UploadSessionStatus;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * 可断点续传的分片上传会话。
+ * <p>
+ * 流程：创建会话 (预分配目标大小的文件) -> 按偏移量上传各分片 (可乱序、可重传) -> 查询状态 -> 完成。
+ * 分片直接写入预分配文件的对应位置，完成后整个文件交给存储策略移动到最终位置，不再复制。
+ * 长时间无活动的会话会被自动清理。会话只属于创建它的用户，其他用户按不存在处理。会话只保存在内存中，应用重启后需要重新上传。
+ */
+public interface UploadSessionService {
+
+    /**
+     * 完成后交给调用方存储和关联的文件。
+     *
+     * @param file 已写满的临时文件 (调用方负责移走或删除)
+     * @param originalFilename 原始文件名
+     * @param type 关联类型
+     * @param entityId 关联的实体 ID
+     */
+    record CompletedUpload(Path file, String originalFilename, String type, Long entityId) { }
+
+    /**
+     * 创建会话。
+     * @throws IllegalArgumentException 参数无效或文件超过允许的大小
+     * @throws IllegalStateException 活动会话数已达上限
+     */
+    UploadSessionStatus createSession(UploadSessionRequest request);
+
+    /**
+     * 写入一个分片。
+     * @param uploadId 会话 ID
+     * @param offset 分片偏移量，必须是分片大小的整数倍
+     * @param length 分片长度 (请求的 Content-Length)；分块传输编码时为 -1，此时读取到请求体结束，总长度仍须等于分片大小
+     * @param sha256 分片内容的 SHA-256 (十六进制)，校验不通过时该分片不计为已接收 (即使之前已成功上传过)
+     * @param content 分片内容
+     * @return 写入后的会话状态；会话不存在 (或已过期、不属于当前用户) 时为空
+     * @throws IllegalArgumentException 偏移量、长度或校验和不正确
+     * @throws IllegalStateException 会话已完成，或同一分片正在被另一个请求写入
+     */
+    Optional<UploadSessionStatus> writeChunk(String uploadId, long offset, long length, String sha256, InputStream content);
+
+    Optional<UploadSessionStatus> getStatus(String uploadId);
+
+    /**
+     * 结束会话并返回完整的文件。
+     * @return 会话不存在时为空
+     * @throws IllegalStateException 还有分片未上传
+     */
+    Optional<CompletedUpload> complete(String uploadId);
+
+    /**
+     * 放弃会话并删除临时文件。
+     * @return 会话是否存在
+     */
+    boolean abort(String uploadId);
+}
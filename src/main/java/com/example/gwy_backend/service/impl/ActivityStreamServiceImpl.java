@@ -0,0 +1,349 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.service.ActivityStreamService;
+import com.example.gwy_backend.service.DailyActivityLogService;
+import com.example.gwy_backend.util.UserContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ActivityStreamService} 的实现。
+ * <p>
+ * 1. 学习日志事件和在线时长刷新只把用户标记为 "已变化"；<br>
+ * 2. 调度线程每 coalesce-ms 取出已变化的用户，每个用户调用一次 getActivityStats 并序列化一次，
+ *    同一个事件对象放进该用户所有连接的发送队列；<br>
+ * 3. 发送线程池逐个连接串行写出；发送队列满的连接视为慢消费者并断开，不会拖住其他连接；<br>
+ * 4. 每隔 heartbeat-interval-ms 向所有连接发送注释行，防止代理断开空闲连接，也能及时发现已断开的客户端。
+ * <p>
+ * 注意：断开慢消费者不会中断已经阻塞在该连接 socket 写入上的发送线程，它会在写超时后释放；
+ * 因此发送线程不止一个，单个卡住的连接不会让其他连接停止推送。
+ */
+@Service
+public class ActivityStreamServiceImpl implements ActivityStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityStreamServiceImpl.class);
+    private static final String STATS_EVENT = "stats";
+
+    /** 一次推送的内容 (已序列化)，同一对象可以发送给多个连接。 */
+    private static final class Event {
+        private final Set<ResponseBodyEmitter.DataWithMediaType> data;
+
+        private Event(SseEmitter.SseEventBuilder builder) {
+            this.data = builder.build();
+        }
+    }
+
+    /** 一个 SSE 连接：有界发送队列，同一时刻最多一个发送任务在写。 */
+    private static final class Connection {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Connection(String userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    /**
+     * 一个用户的所有连接和最近一次推送的统计 (新连接直接复用，不重新计算)。
+     * 更新 latest 并放入各连接队列、新连接读取 latest 并放入自己的队列，都在 lock 内进行，
+     * 新连接不会在较新的统计之后又收到较旧的。持有 lock 时只操作发送队列：调度发送和断开慢消费者
+     * (会进入 channels 的 compute 并结束 emitter) 都在释放之后进行。
+     */
+    private static final class UserChannel {
+        private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Event latest;
+    }
+
+    private final DailyActivityLogService activityLogService;
+    private final ObjectMapper objectMapper;
+    private final int maxConnections;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long heartbeatIntervalMillis;
+    private final long coalesceMillis;
+    private final int senderThreads;
+
+    private final Map<String, UserChannel> channels = new ConcurrentHashMap<>();
+    private final Set<String> changedUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Event heartbeat = new Event(SseEmitter.event().comment("heartbeat"));
+    private ScheduledExecutorService scheduler;
+    private ExecutorService senders;
+
+    // --- 指标 ---
+    private final LongAdder computations = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder heartbeatsSent = new LongAdder();
+    private final LongAdder slowConsumersEvicted = new LongAdder();
+    private final LongAdder sendErrors = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    @Autowired
+    public ActivityStreamServiceImpl(DailyActivityLogService activityLogService,
+                                     ObjectMapper objectMapper,
+                                     @Value("${activity.stream.max-connections:1000}") int maxConnections,
+                                     @Value("${activity.stream.buffer-size:16}") int bufferSize,
+                                     @Value("${activity.stream.timeout-ms:1800000}") long timeoutMillis,
+                                     @Value("${activity.stream.heartbeat-interval-ms:15000}") long heartbeatIntervalMillis,
+                                     @Value("${activity.stream.coalesce-ms:500}") long coalesceMillis,
+                                     @Value("${activity.stream.sender-threads:4}") int senderThreads) {
+        this.activityLogService = activityLogService;
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatIntervalMillis = Math.max(1000, heartbeatIntervalMillis);
+        this.coalesceMillis = Math.max(10, coalesceMillis);
+        this.senderThreads = Math.max(1, senderThreads);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("activity-stream"));
+        senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("activity-stream-sender"));
+        scheduler.scheduleWithFixedDelay(this::pushChangedStats, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Activity stream started: maxConnections={}, buffer={}, heartbeat={}ms, coalesce={}ms, senders={}",
+                maxConnections, bufferSize, heartbeatIntervalMillis, coalesceMillis, senderThreads);
+    }
+
+    @Override
+    public SseEmitter subscribe() {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            rejectedConnections.increment();
+            throw new TooManyConnectionsException(maxConnections);
+        }
+        String userId = UserContext.currentUserId();
+        Connection connection = new Connection(userId, new SseEmitter(timeoutMillis), bufferSize);
+        connection.emitter.onCompletion(() -> remove(connection));
+        connection.emitter.onTimeout(() -> remove(connection));
+        connection.emitter.onError(e -> remove(connection));
+
+        UserChannel channel = channels.compute(userId, (key, existing) -> {
+            UserChannel result = existing != null ? existing : new UserChannel();
+            result.connections.add(connection);
+            return result;
+        });
+        boolean queued = false;
+        channel.lock.lock(); // 在 compute 之外加锁，与 remove 的 computeIfPresent 不会互相等待
+        try {
+            Event latest = channel.latest;
+            if (latest != null) {
+                queued = offer(connection, latest); // 该用户已有连接时直接复用最近一次的统计
+            } else {
+                changedUsers.add(userId); // 第一个连接：由调度线程计算后推送
+            }
+        } finally {
+            channel.lock.unlock();
+        }
+        if (queued) {
+            scheduleDrain(connection);
+        }
+        log.debug("Activity stream opened for user {}, {} connection(s) in total.", userId, connectionCount.get());
+        return connection.emitter;
+    }
+
+    @Override
+    public void statsChanged(Collection<String> userIds) {
+        for (String userId : userIds) {
+            if (channels.containsKey(userId)) {
+                changedUsers.add(userId);
+            }
+        }
+    }
+
+    // 调度线程：每个已变化的用户只计算一次，推送给该用户的所有连接
+    private void pushChangedStats() {
+        for (Iterator<String> it = changedUsers.iterator(); it.hasNext(); ) {
+            String userId = it.next();
+            it.remove();
+            UserChannel channel = channels.get(userId);
+            if (channel == null) {
+                continue;
+            }
+            try {
+                Map<String, Long> stats = UserContext.callAs(userId, activityLogService::getActivityStats);
+                computations.increment();
+                Event event = new Event(SseEmitter.event()
+                        .name(STATS_EVENT)
+                        .data(objectMapper.writeValueAsString(stats), MediaType.APPLICATION_JSON));
+                List<Connection> queued = new ArrayList<>();
+                List<Connection> slow = new ArrayList<>();
+                channel.lock.lock();
+                try {
+                    channel.latest = event;
+                    for (Connection connection : channel.connections) {
+                        if (offer(connection, event)) {
+                            queued.add(connection);
+                        } else if (!connection.closed.get()) {
+                            slow.add(connection);
+                        }
+                    }
+                } finally {
+                    channel.lock.unlock();
+                }
+                queued.forEach(this::scheduleDrain);
+                slow.forEach(this::evictSlowConsumer);
+            } catch (Exception e) {
+                log.error("Failed to compute activity stats for user {}, will retry on next change.", userId, e);
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (UserChannel channel : channels.values()) {
+            for (Connection connection : channel.connections) {
+                enqueue(connection, heartbeat);
+            }
+        }
+    }
+
+    private void enqueue(Connection connection, Event event) {
+        if (offer(connection, event)) {
+            scheduleDrain(connection);
+        } else if (!connection.closed.get()) {
+            evictSlowConsumer(connection);
+        }
+    }
+
+    // 只放入发送队列，可以在 UserChannel.lock 内调用；已关闭或队列已满时返回 false
+    private static boolean offer(Connection connection, Event event) {
+        return !connection.closed.get() && connection.pending.offer(event);
+    }
+
+    private void evictSlowConsumer(Connection connection) {
+        slowConsumersEvicted.increment();
+        log.warn("Activity stream for user {} has {} unsent events, closing slow connection.",
+                connection.userId, bufferSize);
+        close(connection);
+    }
+
+    private void scheduleDrain(Connection connection) {
+        if (connection.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(connection));
+            } catch (RuntimeException e) { // 关闭过程中线程池已停止
+                connection.draining.set(false);
+            }
+        }
+    }
+
+    // 发送线程：串行写出该连接队列中的事件
+    private void drain(Connection connection) {
+        try {
+            Event event;
+            while (!connection.closed.get() && (event = connection.pending.poll()) != null) {
+                connection.emitter.send(event.data);
+                if (event == heartbeat) {
+                    heartbeatsSent.increment();
+                } else {
+                    eventsSent.increment();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或连接已结束
+            sendErrors.increment();
+            log.debug("Activity stream send failed for user {}: {}", connection.userId, e.getMessage());
+            close(connection);
+        } finally {
+            connection.draining.set(false);
+        }
+        // 释放标记后再检查一次，避免与 enqueue 并发时漏掉刚放入的事件
+        if (!connection.closed.get() && !connection.pending.isEmpty()) {
+            scheduleDrain(connection);
+        }
+    }
+
+    private void close(Connection connection) {
+        remove(connection);
+        try {
+            connection.emitter.complete();
+        } catch (RuntimeException e) {
+            log.debug("Ignoring error while completing activity stream: {}", e.getMessage());
+        }
+    }
+
+    private void remove(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return; // 已经移除 (完成、超时、出错回调可能先后触发)
+        }
+        connection.pending.clear();
+        channels.computeIfPresent(connection.userId, (key, channel) -> {
+            channel.connections.remove(connection);
+            return channel.connections.isEmpty() ? null : channel; // 最后一个连接关闭时丢弃缓存的统计
+        });
+        connectionCount.decrementAndGet();
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("connections", connectionCount.get());
+        metrics.put("maxConnections", maxConnections);
+        metrics.put("users", channels.size());
+        metrics.put("pendingUsers", changedUsers.size());
+        metrics.put("computations", computations.sum());
+        metrics.put("eventsSent", eventsSent.sum());
+        metrics.put("heartbeatsSent", heartbeatsSent.sum());
+        metrics.put("slowConsumersEvicted", slowConsumersEvicted.sum());
+        metrics.put("sendErrors", sendErrors.sum());
+        metrics.put("rejectedConnections", rejectedConnections.sum());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        List<Connection> open = new ArrayList<>();
+        channels.values().forEach(channel -> open.addAll(channel.connections));
+        log.info("Stopping activity stream, closing {} connection(s).", open.size());
+        open.forEach(this::close);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
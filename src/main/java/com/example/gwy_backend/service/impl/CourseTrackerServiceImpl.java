@@ -1,9 +1,12 @@
 package com.example.gwy_backend.service.impl;
 
+import com.example.gwy_backend.config.CacheConfig;
 import com.example.gwy_backend.entity.CourseTracker;
 import com.example.gwy_backend.repository.CourseTrackerRepository;
 import com.example.gwy_backend.service.CourseTrackerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +24,7 @@ public class CourseTrackerServiceImpl implements CourseTrackerService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.COURSE_TRACKER, key = "#courseKey") // 命中时不查库也不开事务
     @Transactional // 可能涉及写入操作 (创建默认值)
     public CourseTracker getCourseTracker(String courseKey) {
         // 查找，如果找不到，则创建一个新的默认 CourseTracker 并保存
@@ -34,6 +38,7 @@ public class CourseTrackerServiceImpl implements CourseTrackerService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.COURSE_TRACKER, key = "#courseKey") // 事务提交后失效，下次读取重新加载
     @Transactional
     public Optional<CourseTracker> updateCourseTracker(String courseKey, Map<String, Object> updates) {
         Optional<CourseTracker> existingTrackerOptional = courseTrackerRepository.findByCourseKey(courseKey);
@@ -1,20 +1,24 @@
 package com.example.gwy_backend.service.impl;
 
 // 保持 DailyActivityLog 相关的导入，因为还需要处理在线时长
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.dto.ActivityHeatmap;
 import com.example.gwy_backend.entity.DailyActivityLog;
 import com.example.gwy_backend.repository.DailyActivityLogRepository;
-// 导入 StudyLog 相关的 Repository
-import com.example.gwy_backend.repository.StudyLogRepository; // <<< 导入 StudyLogRepository
 import com.example.gwy_backend.service.DailyActivityLogService; // <<< 接口名可能需要调整
+import com.example.gwy_backend.service.StudyRollupService;
+import com.example.gwy_backend.util.UserContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalDateTime; // <<< 导入 LocalDateTime
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.util.HashMap;
 import java.util.List;
@@ -25,60 +29,47 @@ import java.util.Optional;
 public class DailyActivityLogServiceImpl implements DailyActivityLogService { // <<< 类名和接口名可能需调整
 
     private static final Logger log = LoggerFactory.getLogger(DailyActivityLogServiceImpl.class);
+    private static final int MIN_HEATMAP_YEAR = 2000;
     private final DailyActivityLogRepository activityLogRepository;
-    private final StudyLogRepository studyLogRepository; // <<< 注入 StudyLogRepository
+    private final StudyRollupService studyRollupService; // 学习时长来自预聚合表，不再扫描 study_log
+    private final OnlineDurationBuffer onlineDurationBuffer; // 心跳写后缓冲
 
     @Autowired
     public DailyActivityLogServiceImpl(DailyActivityLogRepository activityLogRepository,
-                                       StudyLogRepository studyLogRepository) { // <<< 修改构造函数
+                                       StudyRollupService studyRollupService,
+                                       OnlineDurationBuffer onlineDurationBuffer) {
         this.activityLogRepository = activityLogRepository;
-        this.studyLogRepository = studyLogRepository; // <<< 注入
+        this.studyRollupService = studyRollupService;
+        this.onlineDurationBuffer = onlineDurationBuffer;
     }
 
-    // addOnlineDuration, getOnlineSecondsForDate, getTodayOnlineSeconds, getLogsForDateRange 方法保持不变
-    // 因为它们仍然负责处理 daily_activity_log 表的在线时长数据
+    // addOnlineDuration 只写入内存缓冲，由 OnlineDurationBuffer 定时按 (用户, 日期) 合并后写入 daily_activity_log
     @Override
-    @Transactional
     public void addOnlineDuration(LocalDate date, long secondsToAdd) {
         if (secondsToAdd <= 0) {
             log.warn("Attempted to add non-positive duration ({}) for date {}", secondsToAdd, date);
             return;
         }
-        log.debug("Adding {} seconds online duration for date {}", secondsToAdd, date);
-
-        int updatedRows = activityLogRepository.incrementOnlineSeconds(date, secondsToAdd);
-
-        if (updatedRows == 0) {
-            log.info("No existing activity log found for date {}, creating new entry.", date);
-            // **MODIFIED:** 创建新记录时，确保 logDate 也被设置
-            // 使用接受 activityDate 的构造函数，它内部会设置 logDate
-            DailyActivityLog newLog = new DailyActivityLog(date);
-            // 或者手动设置:
-            // DailyActivityLog newLog = new DailyActivityLog();
-            // newLog.setActivityDate(date);
-            // newLog.setLogDate(date); // <<< 确保 logDate 被设置
-
-            newLog.setTotalOnlineSeconds(secondsToAdd);
-            try {
-                activityLogRepository.save(newLog);
-            } catch (Exception e) {
-                log.error("Error saving new activity log for date {} after increment failed.", date, e);
-                // 可以考虑再次尝试 increment 或抛出异常
-            }
-        }
+        log.debug("Buffering {} seconds online duration for date {}", secondsToAdd, date);
+        onlineDurationBuffer.add(UserContext.currentUserId(), date, secondsToAdd);
     }
 
+    // 读取时加上尚未刷新的缓冲增量；READ COMMITTED 保证查询看到刷新任务最新提交的值 (见 OnlineDurationBuffer.readConsistently)
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     public long getOnlineSecondsForDate(LocalDate date) {
         log.debug("Getting online seconds for date {}", date);
-        return activityLogRepository.findByActivityDate(date)
-                .map(DailyActivityLog::getTotalOnlineSeconds)
-                .orElse(0L);
+        String userId = UserContext.currentUserId();
+        return onlineDurationBuffer.readConsistently(() -> {
+            long persisted = activityLogRepository.findByUserIdAndActivityDate(userId, date)
+                    .map(DailyActivityLog::getTotalOnlineSeconds)
+                    .orElse(0L);
+            return persisted + onlineDurationBuffer.getPendingSeconds(userId, date);
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     public long getTodayOnlineSeconds() {
         return getOnlineSecondsForDate(LocalDate.now());
     }
@@ -87,40 +78,60 @@ public class DailyActivityLogServiceImpl implements DailyActivityLogService { //
     @Transactional(readOnly = true)
     public List<DailyActivityLog> getLogsForDateRange(LocalDate startDate, LocalDate endDate) {
         log.info("Fetching activity logs from {} to {}", startDate, endDate);
-        return activityLogRepository.findByActivityDateBetweenOrderByActivityDateDesc(startDate, endDate);
+        return activityLogRepository.findByUserIdAndActivityDateBetweenOrderByActivityDateDesc(
+                UserContext.currentUserId(), startDate, endDate);
     }
 
-    // **MODIFIED:** getActivityStats 现在计算 study_log 的时长
+    // 往年的数据只会因补录学习日志而变化 (由 StudyRollupServiceImpl 使缓存失效)，今年的不缓存；缓存键为 "用户:年份"
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ACTIVITY_HEATMAP,
+            key = "T(com.example.gwy_backend.util.UserContext).currentUserId() + ':' + #year",
+            condition = "#year < T(java.time.LocalDate).now().getYear()")
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public ActivityHeatmap getHeatmap(int year) {
+        LocalDate today = LocalDate.now();
+        if (year < MIN_HEATMAP_YEAR || year > today.getYear()) {
+            throw new IllegalArgumentException("Year must be between " + MIN_HEATMAP_YEAR + " and " + today.getYear() + ".");
+        }
+        LocalDate firstDay = LocalDate.of(year, 1, 1);
+        LocalDate lastDay = LocalDate.of(year, 12, 31);
+
+        String userId = UserContext.currentUserId();
+        long[] studySeconds = studyRollupService.getDailySeconds(firstDay, lastDay);
+        long[] onlineSeconds = onlineDurationBuffer.readConsistently(() -> {
+            long[] seconds = new long[studySeconds.length];
+            for (DailyActivityLog activityLog : activityLogRepository.findByUserIdAndActivityDateBetweenOrderByActivityDateDesc(userId, firstDay, lastDay)) {
+                seconds[(int) ChronoUnit.DAYS.between(firstDay, activityLog.getActivityDate())] = activityLog.getTotalOnlineSeconds();
+            }
+            // 加上尚未刷新的心跳缓冲 (只在内存中查找)
+            for (int i = 0; i < seconds.length; i++) {
+                seconds[i] += onlineDurationBuffer.getPendingSeconds(userId, firstDay.plusDays(i));
+            }
+            return seconds;
+        });
+        return new ActivityHeatmap(year, firstDay, studySeconds, onlineSeconds);
+    }
+
+    // getActivityStats 的学习时长全部读取 study_time_rollup 预聚合行 (最多几十行)，不再加载 study_log
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED) // 今日在线时长在同一事务中读取
     public Map<String, Long> getActivityStats() {
-        log.info("Calculating activity stats based on StudyLog...");
+        log.info("Calculating activity stats from study time rollups...");
         Map<String, Long> stats = new HashMap<>();
         LocalDate today = LocalDate.now();
-        LocalDateTime todayStart = today.atStartOfDay();
-        LocalDateTime nextDayStart = today.plusDays(1).atStartOfDay();
 
-        // 计算总学习时长 (来自 study_log) - 需要在 StudyLogRepository 添加方法
-        // long totalStudySeconds = studyLogRepository.getTotalStudyDurationSum(); // 假设有此方法
-        // 暂时通过获取所有日志计算 (效率较低)
-         long totalStudySeconds = studyLogRepository.findAll().stream().mapToLong(log -> log.getDurationSeconds() > 0 ? log.getDurationSeconds() : 0).sum();
-        stats.put("total", totalStudySeconds);
+        // 总学习时长 = 所有 MONTH 聚合行之和
+        stats.put("total", studyRollupService.getTotalSeconds());
 
-        // 计算本周学习时长 (来自 study_log)
+        // 本周学习时长 = 周一到今天的 DAY 聚合行之和
         LocalDate weekStartDate = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        LocalDateTime weekStartDateTime = weekStartDate.atStartOfDay();
-        long weekStudySeconds = studyLogRepository.sumDurationSecondsBetween(weekStartDateTime, nextDayStart);
-        stats.put("week", weekStudySeconds);
+        stats.put("week", studyRollupService.getSecondsBetween(weekStartDate, today));
 
-        // 计算本月学习时长 (来自 study_log)
-        LocalDate monthStartDate = today.with(TemporalAdjusters.firstDayOfMonth());
-        LocalDateTime monthStartDateTime = monthStartDate.atStartOfDay();
-        long monthStudySeconds = studyLogRepository.sumDurationSecondsBetween(monthStartDateTime, nextDayStart);
-        stats.put("month", monthStudySeconds);
+        // 本月学习时长 = 当月 MONTH 聚合行
+        stats.put("month", studyRollupService.getMonthSeconds(today));
 
-        // 计算今日学习时长 (来自 study_log)
-        long todayStudySeconds = studyLogRepository.sumDurationSecondsBetween(todayStart, nextDayStart);
-        stats.put("today", todayStudySeconds); // key "today" 现在代表学习时长
+        // 今日学习时长 = 今天的 DAY 聚合行
+        stats.put("today", studyRollupService.getSecondsBetween(today, today)); // key "today" 现在代表学习时长
 
         // 计算今日在线时长 (来自 daily_activity_log)
         long todayOnlineSec = getTodayOnlineSeconds(); // 调用内部方法
@@ -130,7 +141,7 @@ public class DailyActivityLogServiceImpl implements DailyActivityLogService { //
         return stats;
     }
 
-     // getAverageDailyStudyTime 方法也应该基于 study_log 计算
+     // getAverageDailyStudyTime 同样基于学习时长聚合表计算
      @Override
      @Transactional(readOnly = true)
      public long getAverageDailyStudyTime(int days) {
@@ -139,8 +150,7 @@ public class DailyActivityLogServiceImpl implements DailyActivityLogService { //
           LocalDate endDate = LocalDate.now();
           LocalDate startDate = endDate.minusDays(days); // 从 N 天前开始
 
-          // 调用 sumDurationSecondsBetween 计算范围内的总学习时长
-          long totalSecondsInRange = studyLogRepository.sumDurationSecondsBetween(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+          long totalSecondsInRange = studyRollupService.getSecondsBetween(startDate, endDate);
 
           return (days > 0) ? totalSecondsInRange / days : 0;
      }
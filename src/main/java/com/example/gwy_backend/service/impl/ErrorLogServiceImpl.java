@@ -1,30 +1,55 @@
 package com.example.gwy_backend.service.impl;
 
+import com.example.gwy_backend.dto.CursorPage;
 import com.example.gwy_backend.entity.ErrorLogEntry;
 import com.example.gwy_backend.repository.ErrorLogEntryRepository;
+import com.example.gwy_backend.repository.SparseFieldRepository;
 import com.example.gwy_backend.service.ErrorLogService;
+import com.example.gwy_backend.service.ErrorStatsService;
+import com.example.gwy_backend.service.FileStorageStrategy;
+import com.example.gwy_backend.util.KeysetCursor;
+import com.example.gwy_backend.util.ReviewScheduler;
+import com.example.gwy_backend.util.SparseFields;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ErrorLogServiceImpl implements ErrorLogService {
 
+    private static final Logger log = LoggerFactory.getLogger(ErrorLogServiceImpl.class);
     private final ErrorLogEntryRepository errorLogEntryRepository;
+    private final FileStorageStrategy fileStorageStrategy;
+    private final ErrorStatsService errorStatsService;
+    private final SparseFieldRepository sparseFieldRepository;
 
     @Autowired
-    public ErrorLogServiceImpl(ErrorLogEntryRepository errorLogEntryRepository) {
+    public ErrorLogServiceImpl(ErrorLogEntryRepository errorLogEntryRepository,
+                               FileStorageStrategy fileStorageStrategy,
+                               ErrorStatsService errorStatsService,
+                               SparseFieldRepository sparseFieldRepository) {
         this.errorLogEntryRepository = errorLogEntryRepository;
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.errorStatsService = errorStatsService;
+        this.sparseFieldRepository = sparseFieldRepository;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ErrorLogEntry> getAllErrorLogsSorted() {
         // 使用 Repository 中定义的方法按时间戳倒序获取
-        return errorLogEntryRepository.findAllByOrderByTimestampDesc();
+        return errorLogEntryRepository.findByUserIdOrderByTimestampDesc(UserContext.currentUserId());
     }
 
     @Override
@@ -33,15 +58,59 @@ public class ErrorLogServiceImpl implements ErrorLogService {
         // 使用 Repository 中定义的方法按模块查询
         // 这里也按时间倒序返回可能更好，可以在 Repository 方法名添加 OrderBy 或使用 @Query
         // 为了简单，先直接返回
-        return errorLogEntryRepository.findBySubjectIgnoreCase(subject);
+        return errorLogEntryRepository.findByUserIdAndSubjectIgnoreCase(UserContext.currentUserId(), subject);
         // 如果需要排序:
         // return errorLogEntryRepository.findBySubjectIgnoreCaseOrderByTimestampDesc(subject); // 需要在 Repository 定义此方法
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ErrorLogEntry> getErrorLogPage(String subject, String cursor, Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1); // 多取一条用于判断是否还有下一页
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        boolean hasSubject = StringUtils.hasText(subject);
+        String userId = UserContext.currentUserId();
+
+        List<ErrorLogEntry> rows;
+        if (after == null) {
+            rows = hasSubject
+                    ? errorLogEntryRepository.findByUserIdAndSubjectOrderByTimestampDescIdDesc(userId, subject.trim(), limit)
+                    : errorLogEntryRepository.findByUserIdOrderByTimestampDescIdDesc(userId, limit);
+        } else {
+            rows = hasSubject
+                    ? errorLogEntryRepository.findPageBySubjectAfter(userId, subject.trim(), after.time(), after.id(), limit)
+                    : errorLogEntryRepository.findPageAfter(userId, after.time(), after.id(), limit);
+        }
+        return CursorPage.of(rows, pageSize, e -> new KeysetCursor(e.getTimestamp(), e.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getErrorLogs(String subject, List<String> fields) {
+        return sparseFieldRepository.findPage(ErrorLogEntry.class, fields, UserContext.currentUserId(),
+                subjectFilter(subject), null, null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getErrorLogPage(String subject, String cursor, Integer size, List<String> fields) {
+        int pageSize = CursorPage.clampSize(size);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        List<Map<String, Object>> rows = sparseFieldRepository.findPage(ErrorLogEntry.class, fields,
+                UserContext.currentUserId(), subjectFilter(subject), after, pageSize + 1); // 多取一条用于判断是否还有下一页
+        return CursorPage.of(rows, pageSize, SparseFields::cursorOf);
+    }
+
+    // 与分页接口一致按去除首尾空白后的模块名等值筛选 (MySQL 默认排序规则下不区分大小写)
+    private static Map<String, String> subjectFilter(String subject) {
+        return StringUtils.hasText(subject) ? Map.of("subject", subject.trim()) : Map.of();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<ErrorLogEntry> getErrorLogById(Long id) {
-        return errorLogEntryRepository.findById(id);
+        return errorLogEntryRepository.findByIdAndUserId(id, UserContext.currentUserId());
     }
 
     @Override
@@ -49,32 +118,68 @@ public class ErrorLogServiceImpl implements ErrorLogService {
     public ErrorLogEntry addErrorLog(ErrorLogEntry errorLogEntry) {
         // 清除 ID，让数据库生成
         errorLogEntry.setId(null);
+        errorLogEntry.setUserId(UserContext.currentUserId());
         // timestamp 会通过 @PrePersist 自动设置
         // reviewCount 默认为 0
         // lastReviewDate 初始为 null
-        return errorLogEntryRepository.save(errorLogEntry);
+        ErrorLogEntry saved = errorLogEntryRepository.save(errorLogEntry);
+        errorStatsService.onErrorAdded(saved); // 同一事务内更新统计
+        return saved;
     }
 
     @Override
     @Transactional
-    public Optional<ErrorLogEntry> markAsReviewed(Long id) {
-        return errorLogEntryRepository.findById(id).map(entry -> {
-            // 增加复习次数
-            entry.setReviewCount(entry.getReviewCount() + 1);
-            // 更新上次复习时间为当前时间
-            entry.setLastReviewDate(LocalDateTime.now());
+    public Optional<ErrorLogEntry> markAsReviewed(Long id, int quality) {
+        return errorLogEntryRepository.findByIdAndUserId(id, UserContext.currentUserId()).map(entry -> {
+            boolean firstReview = entry.getReviewCount() == 0;
+            // 增加复习次数、更新上次复习时间，并计算下次复习时间
+            ReviewScheduler.review(entry, quality, LocalDateTime.now());
+            errorStatsService.onErrorReviewed(entry, firstReview);
             // 保存更新
             return errorLogEntryRepository.save(entry);
         });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ErrorLogEntry> getDueForReview(String subject, Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_DUE_LIMIT : Math.min(limit, MAX_DUE_LIMIT);
+        LocalDateTime now = LocalDateTime.now();
+        String userId = UserContext.currentUserId();
+        if (StringUtils.hasText(subject)) {
+            return errorLogEntryRepository.findByUserIdAndSubjectAndNextReviewAtLessThanEqualOrderByNextReviewAtAscIdAsc(
+                    userId, subject.trim(), now, Limit.of(size));
+        }
+        return errorLogEntryRepository.findByUserIdAndNextReviewAtLessThanEqualOrderByNextReviewAtAscIdAsc(userId, now, Limit.of(size));
+    }
+
+    /**
+     * 启动时回填：升级前的旧错题没有复习调度状态，统一设为立即到期。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeReviewScheduleIfMissing() {
+        if (errorLogEntryRepository.countByNextReviewAtIsNull() > 0) {
+            int updated = errorLogEntryRepository.initializeReviewSchedule();
+            log.info("Initialized review schedule for {} existing error log entries.", updated);
+        }
+    }
+
     @Override
     @Transactional
     public boolean deleteErrorLog(Long id) {
-        if (errorLogEntryRepository.existsById(id)) {
-            errorLogEntryRepository.deleteById(id);
+        return errorLogEntryRepository.findByIdAndUserId(id, UserContext.currentUserId()).map(entry -> {
+            errorStatsService.onErrorDeleted(entry);
+            errorLogEntryRepository.delete(entry);
+            if (entry.getImageFile() != null) {
+                // 释放截图引用，没有其他条目使用时由存储策略在提交后删除文件
+                try {
+                    fileStorageStrategy.deleteFile(entry.getImageFile(), null);
+                } catch (Exception e) {
+                    log.warn("Could not release image file {} of error log {}", entry.getImageFile(), id, e);
+                }
+            }
             return true;
-        }
-        return false;
+        }).orElse(false);
     }
 }
\ No newline at end of file
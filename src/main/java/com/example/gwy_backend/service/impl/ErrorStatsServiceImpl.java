@@ -0,0 +1,177 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.dto.ErrorStatSummary;
+import com.example.gwy_backend.entity.ErrorLogEntry;
+import com.example.gwy_backend.entity.ErrorStat;
+import com.example.gwy_backend.entity.ErrorStat.Level;
+import com.example.gwy_backend.entity.ErrorStatDaily;
+import com.example.gwy_backend.repository.ErrorLogEntryRepository;
+import com.example.gwy_backend.repository.ErrorStatDailyRepository;
+import com.example.gwy_backend.repository.ErrorStatRepository;
+import com.example.gwy_backend.service.ErrorStatsService;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ErrorStatsServiceImpl implements ErrorStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ErrorStatsServiceImpl.class);
+    private final ErrorStatRepository statRepository;
+    private final ErrorStatDailyRepository dailyRepository;
+    private final ErrorLogEntryRepository errorLogEntryRepository;
+    private final int recentDays;
+
+    @Autowired
+    public ErrorStatsServiceImpl(ErrorStatRepository statRepository,
+                                 ErrorStatDailyRepository dailyRepository,
+                                 ErrorLogEntryRepository errorLogEntryRepository,
+                                 @Value("${error-stats.recent-days:7}") int recentDays) {
+        if (recentDays <= 0) {
+            throw new IllegalArgumentException("error-stats.recent-days must be positive.");
+        }
+        this.statRepository = statRepository;
+        this.dailyRepository = dailyRepository;
+        this.errorLogEntryRepository = errorLogEntryRepository;
+        this.recentDays = recentDays;
+    }
+
+    @Override
+    @Transactional
+    public void onErrorAdded(ErrorLogEntry entry) {
+        apply(entry, 1, entry.getReviewCount() == 0 ? 1 : 0, entry.getReviewCount());
+        if (entry.getTimestamp() != null) {
+            incrementDaily(entry, entry.getTimestamp().toLocalDate(), 1);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void onErrorReviewed(ErrorLogEntry entry, boolean firstReview) {
+        apply(entry, 0, firstReview ? -1 : 0, 1);
+    }
+
+    @Override
+    @Transactional
+    public void onErrorDeleted(ErrorLogEntry entry) {
+        apply(entry, -1, entry.getReviewCount() == 0 ? -1 : 0, -entry.getReviewCount());
+        if (entry.getTimestamp() != null) {
+            incrementDaily(entry, entry.getTimestamp().toLocalDate(), -1);
+        }
+    }
+
+    // 同时更新模块行和知识点行 (统计行归属于错题所属的用户)
+    private void apply(ErrorLogEntry entry, long total, long unreviewed, long reviews) {
+        String subject = keyOf(entry.getSubject());
+        increment(entry.getUserId(), Level.SUBJECT, subject, "", total, unreviewed, reviews);
+        increment(entry.getUserId(), Level.KNOWLEDGE_POINT, subject, keyOf(entry.getKnowledgePoint()), total, unreviewed, reviews);
+    }
+
+    // 单条 upsert：并发的第一条错题不会因唯一索引冲突让整个事务回滚
+    private void increment(String userId, Level level, String subject, String knowledgePoint,
+                           long total, long unreviewed, long reviews) {
+        statRepository.upsertIncrement(userId, level.name(), subject, knowledgePoint, total, unreviewed, reviews);
+    }
+
+    private void incrementDaily(ErrorLogEntry entry, LocalDate day, long count) {
+        String userId = entry.getUserId();
+        String subject = keyOf(entry.getSubject());
+        dailyRepository.upsertIncrement(userId, day, Level.SUBJECT.name(), subject, "", count);
+        dailyRepository.upsertIncrement(userId, day, Level.KNOWLEDGE_POINT.name(), subject, keyOf(entry.getKnowledgePoint()), count);
+    }
+
+    // 与重建查询中的 COALESCE(x, '') 保持一致
+    private static String keyOf(String value) {
+        return value == null ? "" : value;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ErrorStatSummary> getStats(String subject) {
+        String userId = UserContext.currentUserId();
+        List<ErrorStat> stats = StringUtils.hasText(subject)
+                ? statRepository.findByUserIdAndSubjectOrderByLevelAscKnowledgePointAsc(userId, subject.trim())
+                : statRepository.findByUserIdOrderBySubjectAscLevelAscKnowledgePointAsc(userId);
+
+        Map<String, Long> recent = new HashMap<>();
+        for (Object[] row : dailyRepository.sumAddedSince(userId, LocalDate.now().minusDays(recentDays - 1L))) {
+            recent.put(recentKey((Level) row[0], (String) row[1], (String) row[2]), ((Number) row[3]).longValue());
+        }
+
+        List<ErrorStatSummary> result = new ArrayList<>(stats.size());
+        for (ErrorStat stat : stats) {
+            if (stat.getTotalCount() <= 0) {
+                continue; // 该维度的错题已全部删除
+            }
+            long added = recent.getOrDefault(recentKey(stat.getLevel(), stat.getSubject(), stat.getKnowledgePoint()), 0L);
+            result.add(ErrorStatSummary.of(stat, added, recentDays));
+        }
+        return result;
+    }
+
+    // MySQL 默认排序规则不区分大小写，这里同样忽略大小写以便与统计行对应
+    private static String recentKey(Level level, String subject, String knowledgePoint) {
+        return level + "\u0000" + subject.toLowerCase() + "\u0000" + knowledgePoint.toLowerCase();
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        log.warn("Rebuilding error statistics from error_log_entry...");
+        statRepository.deleteAllStats();
+        dailyRepository.deleteAllStats();
+
+        List<ErrorStat> stats = new ArrayList<>();
+        for (Object[] row : errorLogEntryRepository.countGroupBySubject()) {
+            stats.add(new ErrorStat(null, (String) row[0], Level.SUBJECT, (String) row[1], "",
+                    toLong(row[2]), toLong(row[3]), toLong(row[4])));
+        }
+        for (Object[] row : errorLogEntryRepository.countGroupByKnowledgePoint()) {
+            stats.add(new ErrorStat(null, (String) row[0], Level.KNOWLEDGE_POINT, (String) row[1], (String) row[2],
+                    toLong(row[3]), toLong(row[4]), toLong(row[5])));
+        }
+        statRepository.saveAll(stats);
+
+        List<ErrorStatDaily> daily = new ArrayList<>();
+        for (Object[] row : errorLogEntryRepository.countGroupByDayAndSubject()) {
+            daily.add(new ErrorStatDaily(null, (String) row[0], (LocalDate) row[1], Level.SUBJECT,
+                    (String) row[2], "", toLong(row[3])));
+        }
+        for (Object[] row : errorLogEntryRepository.countGroupByDayAndKnowledgePoint()) {
+            daily.add(new ErrorStatDaily(null, (String) row[0], (LocalDate) row[1], Level.KNOWLEDGE_POINT,
+                    (String) row[2], (String) row[3], toLong(row[4])));
+        }
+        dailyRepository.saveAll(daily);
+        log.info("Rebuilt error statistics: {} stat rows, {} daily rows.", stats.size(), daily.size());
+        return stats.size();
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    /**
+     * 启动时回填：统计表为空但已有错题 (例如刚升级到此版本) 时自动重建一次。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (statRepository.count() == 0 && errorLogEntryRepository.count() > 0) {
+            log.info("Error statistics are empty, backfilling from existing error logs.");
+            rebuild();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.entity.ErrorLogEntry;
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.repository.ErrorLogEntryRepository;
+import com.example.gwy_backend.repository.StudyLogRepository;
+import com.example.gwy_backend.service.ExportService;
+import com.example.gwy_backend.util.UserContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportServiceImpl.class);
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final List<String> STUDY_LOG_COLUMNS =
+            List.of("id", "startTime", "endTime", "durationSeconds", "activity", "source");
+    private static final List<String> ERROR_LOG_COLUMNS =
+            List.of("id", "timestamp", "subject", "knowledgePoint", "question", "myAnswer", "correctAnswer",
+                    "reason", "imageFile", "reviewCount", "lastReviewDate");
+
+    private final StudyLogRepository studyLogRepository;
+    private final ErrorLogEntryRepository errorLogEntryRepository;
+    private final ObjectWriter jsonWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ExportServiceImpl(StudyLogRepository studyLogRepository,
+                             ErrorLogEntryRepository errorLogEntryRepository,
+                             ObjectMapper objectMapper) {
+        this.studyLogRepository = studyLogRepository;
+        this.errorLogEntryRepository = errorLogEntryRepository;
+        // 复用 Spring 配置的 ObjectMapper (日期格式、时区)；每行写完不 flush，由外层缓冲区统一写出
+        this.jsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .withRootValueSeparator(""); // 行之间只用换行分隔，不要默认的空格
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportStudyLogs(Format format, OutputStream out) throws IOException {
+        try (Stream<StudyLog> rows = studyLogRepository.streamAllForExport(UserContext.currentUserId())) {
+            long count = write(rows, format, out, STUDY_LOG_COLUMNS, s -> new Object[]{
+                    s.getId(), s.getStartTime(), s.getEndTime(), s.getDurationSeconds(), s.getActivity(), s.getSource()});
+            log.info("Exported {} study logs as {}.", count, format);
+            return count;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportErrorLogs(Format format, OutputStream out) throws IOException {
+        try (Stream<ErrorLogEntry> rows = errorLogEntryRepository.streamAllForExport(UserContext.currentUserId())) {
+            long count = write(rows, format, out, ERROR_LOG_COLUMNS, e -> new Object[]{
+                    e.getId(), e.getTimestamp(), e.getSubject(), e.getKnowledgePoint(), e.getQuestion(), e.getMyAnswer(),
+                    e.getCorrectAnswer(), e.getReason(), e.getImageFile(), e.getReviewCount(), e.getLastReviewDate()});
+            log.info("Exported {} error log entries as {}.", count, format);
+            return count;
+        }
+    }
+
+    // 逐行写出并立即 detach，持久化上下文中始终最多只有一个实体
+    private <T> long write(Stream<T> rows, Format format, OutputStream out,
+                           List<String> columns, Function<T, Object[]> csvValues) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        long count = 0;
+        Iterator<T> it = rows.iterator();
+        if (format == Format.CSV) {
+            writeCsvLine(writer, columns.toArray());
+            while (it.hasNext()) {
+                T row = it.next();
+                writeCsvLine(writer, csvValues.apply(row));
+                entityManager.detach(row);
+                count++;
+            }
+        } else {
+            JsonGenerator generator = jsonWriter.createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // 输出流由调用方负责关闭
+            while (it.hasNext()) {
+                T row = it.next();
+                jsonWriter.writeValue(generator, row);
+                generator.writeRaw('\n'); // 每个 JSON 对象独占一行
+                entityManager.detach(row);
+                count++;
+            }
+            generator.close();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, values[i]);
+        }
+        writer.write("\r\n"); // RFC 4180
+    }
+
+    // 含逗号、引号、换行的字段用双引号包裹，内部引号加倍
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.dto.FileMetadata;
+import com.example.gwy_backend.repository.StoredFileRepository;
+import com.example.gwy_backend.service.FileMetadataService;
+import com.example.gwy_backend.service.FileStorageStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+@Service
+public class FileMetadataServiceImpl implements FileMetadataService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileMetadataServiceImpl.class);
+    private final StoredFileRepository storedFileRepository;
+    private final FileStorageStrategy fileStorageStrategy;
+
+    @Autowired
+    public FileMetadataServiceImpl(StoredFileRepository storedFileRepository,
+                                   FileStorageStrategy fileStorageStrategy) {
+        this.storedFileRepository = storedFileRepository;
+        this.fileStorageStrategy = fileStorageStrategy;
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.FILE_METADATA, key = "#fileIdentifier", unless = "#result == null") // 不缓存 "不存在"
+    @Transactional(readOnly = true)
+    public Optional<FileMetadata> getMetadata(String fileIdentifier) {
+        Optional<FileMetadata> recorded = storedFileRepository.findByIdentifier(fileIdentifier).map(FileMetadata::from);
+        if (recorded.isPresent() && recorded.get().contentType() != null) {
+            return recorded;
+        }
+        // 元数据表之前存储的旧文件：从文件系统探测一次，结果同样进入缓存
+        if (isInternal(fileIdentifier)) {
+            return Optional.empty(); // 内部目录和临时文件 (分片上传的 .part、存储的 .tmp 等) 不能下载
+        }
+        Path filePath = fileStorageStrategy.getFilePath(fileIdentifier, null); // 含路径穿越检查
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            String contentType = Files.probeContentType(filePath);
+            return Optional.of(new FileMetadata(fileIdentifier, attributes.size(),
+                    contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    recorded.map(FileMetadata::sha256).orElse(null),
+                    null,
+                    LocalDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), ZoneId.systemDefault())));
+        } catch (NoSuchFileException e) {
+            log.warn("Requested file not found: {}", fileIdentifier);
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read attributes of " + fileIdentifier, e);
+        }
+    }
+
+    // 任一路径段以 '.' 开头即为内部文件或目录：上传会话、存储临时目录、缩略图临时文件
+    private static boolean isInternal(String fileIdentifier) {
+        for (String segment : fileIdentifier.split("[/\\\\]")) {
+            if (segment.startsWith(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,74 +1,316 @@
 package com.example.gwy_backend.service.impl;
 
+import com.example.gwy_backend.cache.DataVersions;
+import com.example.gwy_backend.dto.CursorPage;
+import com.example.gwy_backend.dto.KnowledgeItemSummary;
 import com.example.gwy_backend.entity.KnowledgeItem;
 import com.example.gwy_backend.repository.KnowledgeItemRepository;
+import com.example.gwy_backend.repository.SparseFieldRepository;
+import com.example.gwy_backend.search.KnowledgeSearchIndex;
+import com.example.gwy_backend.service.FileStorageStrategy;
 import com.example.gwy_backend.service.KnowledgeService;
+import com.example.gwy_backend.util.KeysetCursor;
+import com.example.gwy_backend.util.SparseFields;
+import com.example.gwy_backend.util.TransactionUtils;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils; // 导入 Spring 的 StringUtils
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class KnowledgeServiceImpl implements KnowledgeService {
 
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeServiceImpl.class);
+    private static final int REBUILD_PAGE_SIZE = 500; // 重建索引时每次从数据库读取的条目数
+    private static final String TAGS_FIELD = "tags";
+
     private final KnowledgeItemRepository knowledgeItemRepository;
+    private final KnowledgeSearchIndex searchIndex;
+    private final FileStorageStrategy fileStorageStrategy;
+    private final SparseFieldRepository sparseFieldRepository;
+    private final DataVersions dataVersions;
 
     @Autowired
-    public KnowledgeServiceImpl(KnowledgeItemRepository knowledgeItemRepository) {
+    public KnowledgeServiceImpl(KnowledgeItemRepository knowledgeItemRepository,
+                                KnowledgeSearchIndex searchIndex,
+                                FileStorageStrategy fileStorageStrategy,
+                                SparseFieldRepository sparseFieldRepository,
+                                DataVersions dataVersions) {
         this.knowledgeItemRepository = knowledgeItemRepository;
+        this.searchIndex = searchIndex;
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.sparseFieldRepository = sparseFieldRepository;
+        this.dataVersions = dataVersions;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<KnowledgeItem> getKnowledgeItems(String category, String searchTerm) {
+    public List<KnowledgeItemSummary> getKnowledgeItems(String category, String searchTerm) {
         // 使用 Spring 的 StringUtils.hasText() 判断字符串是否非空且包含非空白字符
         boolean hasCategory = StringUtils.hasText(category) && !"all".equalsIgnoreCase(category); // 假设 'all' 表示不过滤
         boolean hasSearchTerm = StringUtils.hasText(searchTerm);
+        String userId = UserContext.currentUserId();
+
+        if (hasSearchTerm && searchIndex.isReady()) {
+            // 有搜索词时走内存倒排索引，按相关度排序，只按 ID 回表
+            List<Long> rankedIds = searchIndex.search(searchTerm, hasCategory ? category : null, userId);
+            return loadInOrder(userId, rankedIds);
+        }
 
+        List<KnowledgeItemSummary> summaries;
         if (hasCategory && hasSearchTerm) {
-            // 同时有分类和搜索词
-            return knowledgeItemRepository.findByCategoryAndSearchTermOrderByTimestampDesc(category, searchTerm);
+            // 同时有分类和搜索词 (索引尚未就绪时的回退)
+            summaries = knowledgeItemRepository.findByCategoryAndSearchTermOrderByTimestampDesc(userId, category, searchTerm);
         } else if (hasCategory) {
             // 只有分类
-            return knowledgeItemRepository.findByCategoryIgnoreCaseOrderByTimestampDesc(category);
+            summaries = knowledgeItemRepository.findSummariesByCategory(userId, category);
         } else if (hasSearchTerm) {
-            // 只有搜索词
-            return knowledgeItemRepository.searchByTermOrderByTimestampDesc(searchTerm);
+            // 只有搜索词 (索引尚未就绪时的回退)
+            summaries = knowledgeItemRepository.searchByTermOrderByTimestampDesc(userId, searchTerm);
         } else {
             // 没有筛选条件，获取所有
-            return knowledgeItemRepository.findAllByOrderByTimestampDesc();
+            summaries = knowledgeItemRepository.findAllSummaries(userId);
+        }
+        return withTags(summaries);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<KnowledgeItemSummary> getKnowledgeItemPage(String category, String cursor, Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1); // 多取一条用于判断是否还有下一页
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        boolean hasCategory = hasCategory(category);
+        String userId = UserContext.currentUserId();
+
+        List<KnowledgeItemSummary> rows;
+        if (after == null) {
+            rows = hasCategory
+                    ? knowledgeItemRepository.findFirstPageByCategory(userId, category, limit)
+                    : knowledgeItemRepository.findFirstPage(userId, limit);
+        } else {
+            rows = hasCategory
+                    ? knowledgeItemRepository.findPageByCategoryAfter(userId, category, after.time(), after.id(), limit)
+                    : knowledgeItemRepository.findPageAfter(userId, after.time(), after.id(), limit);
+        }
+        return CursorPage.of(withTags(rows), pageSize, k -> new KeysetCursor(k.timestamp(), k.id()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getKnowledgeItems(String category, String searchTerm, List<String> fields) {
+        boolean hasCategory = hasCategory(category);
+        String userId = UserContext.currentUserId();
+        List<String> columns = columnsOf(fields);
+
+        if (!StringUtils.hasText(searchTerm)) {
+            List<Map<String, Object>> rows = sparseFieldRepository.findPage(KnowledgeItem.class, columns, userId,
+                    categoryFilter(hasCategory, category), null, null);
+            return withTags(rows, fields);
+        }
+        // 有搜索词时先得到排好序的 ID (索引尚未就绪时回退到 LIKE 查询)，再按所选字段回表
+        List<Long> rankedIds;
+        if (searchIndex.isReady()) {
+            rankedIds = searchIndex.search(searchTerm, hasCategory ? category : null, userId);
+        } else {
+            List<KnowledgeItemSummary> matches = hasCategory
+                    ? knowledgeItemRepository.findByCategoryAndSearchTermOrderByTimestampDesc(userId, category, searchTerm)
+                    : knowledgeItemRepository.searchByTermOrderByTimestampDesc(userId, searchTerm);
+            rankedIds = matches.stream().map(KnowledgeItemSummary::id).toList();
         }
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> row : sparseFieldRepository.findByIds(KnowledgeItem.class, columns, userId, rankedIds)) {
+            byId.put((Long) row.get(SparseFields.ID), row);
+        }
+        List<Map<String, Object>> ordered = new ArrayList<>(byId.size());
+        for (Long id : rankedIds) {
+            Map<String, Object> row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return withTags(ordered, fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getKnowledgeItemPage(String category, String cursor, Integer size,
+                                                               List<String> fields) {
+        int pageSize = CursorPage.clampSize(size);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        List<Map<String, Object>> rows = sparseFieldRepository.findPage(KnowledgeItem.class, columnsOf(fields),
+                UserContext.currentUserId(), categoryFilter(hasCategory(category), category), after, pageSize + 1); // 多取一条用于判断是否还有下一页
+        return CursorPage.of(withTags(rows, fields), pageSize, SparseFields::cursorOf);
+    }
+
+    // tags 是集合属性，不能直接投影，单独批量查询
+    private static List<String> columnsOf(List<String> fields) {
+        return fields.stream().filter(field -> !TAGS_FIELD.equals(field)).toList();
+    }
+
+    // 空或 'all' 表示不按分类过滤
+    private static boolean hasCategory(String category) {
+        return StringUtils.hasText(category) && !"all".equalsIgnoreCase(category);
+    }
+
+    private static Map<String, String> categoryFilter(boolean hasCategory, String category) {
+        return hasCategory ? Map.of("category", category) : Map.of();
+    }
+
+    // 选择了 tags 时，一条 IN (...) 查询补齐所有行的标签
+    private List<Map<String, Object>> withTags(List<Map<String, Object>> rows, List<String> fields) {
+        if (rows.isEmpty() || !fields.contains(TAGS_FIELD)) {
+            return rows;
+        }
+        Map<Long, List<String>> tagsById = loadTags(rows.stream().map(row -> (Long) row.get(SparseFields.ID)).toList());
+        for (Map<String, Object> row : rows) {
+            row.put(TAGS_FIELD, tagsById.getOrDefault((Long) row.get(SparseFields.ID), List.of()));
+        }
+        return rows;
+    }
+
+    // 按给定 ID 顺序返回条目 (索引与数据库短暂不一致时，已不存在的 ID 会被跳过)
+    private List<KnowledgeItemSummary> loadInOrder(String userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, KnowledgeItemSummary> byId = knowledgeItemRepository.findSummariesByIdIn(userId, ids).stream()
+                .collect(Collectors.toMap(KnowledgeItemSummary::id, Function.identity()));
+        List<KnowledgeItemSummary> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            KnowledgeItemSummary item = byId.get(id);
+            if (item != null) {
+                ordered.add(item);
+            }
+        }
+        return withTags(ordered);
+    }
+
+    // 一条 IN (...) 查询补齐所有条目的标签
+    private List<KnowledgeItemSummary> withTags(List<KnowledgeItemSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<Long, List<String>> tagsById = loadTags(summaries.stream().map(KnowledgeItemSummary::id).toList());
+        List<KnowledgeItemSummary> result = new ArrayList<>(summaries.size());
+        for (KnowledgeItemSummary summary : summaries) {
+            result.add(summary.withTags(tagsById.getOrDefault(summary.id(), List.of())));
+        }
+        return result;
+    }
+
+    private Map<Long, List<String>> loadTags(Collection<Long> ids) {
+        Map<Long, List<String>> tagsById = new HashMap<>();
+        for (Object[] row : knowledgeItemRepository.findTagsByItemIds(ids)) {
+            tagsById.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return tagsById;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<KnowledgeItem> getKnowledgeItemById(Long id) {
-        return knowledgeItemRepository.findById(id);
+        return knowledgeItemRepository.findWithTagsByIdAndUserId(id, UserContext.currentUserId()); // 正文和标签只在详情中加载
     }
 
     @Override
     @Transactional
     public KnowledgeItem addKnowledgeItem(KnowledgeItem knowledgeItem) {
         knowledgeItem.setId(null); // 确保是新增
+        knowledgeItem.setUserId(UserContext.currentUserId());
         // timestamp 会通过 @PrePersist 自动设置
         // 处理一下 tags，确保不为 null (虽然 @ElementCollection 可能处理，但显式处理更安全)
         if (knowledgeItem.getTags() == null) {
             knowledgeItem.setTags(List.of()); // 或者 new ArrayList<>()
         }
-        return knowledgeItemRepository.save(knowledgeItem);
+        KnowledgeItem saved = knowledgeItemRepository.save(knowledgeItem);
+        // 事务提交后再写入索引，回滚的条目不会出现在搜索结果中
+        KnowledgeSearchIndex.Document doc = toDocument(saved, saved.getTags());
+        TransactionUtils.afterCommit(() -> searchIndex.index(doc));
+        dataVersions.bump(DataVersions.KNOWLEDGE, saved.getUserId()); // 在索引更新之后递增，缓存不会存下缺少新条目的搜索结果
+        return saved;
     }
 
     @Override
     @Transactional
     public boolean deleteKnowledgeItem(Long id) {
-        if (knowledgeItemRepository.existsById(id)) {
-            knowledgeItemRepository.deleteById(id);
+        return knowledgeItemRepository.findByIdAndUserId(id, UserContext.currentUserId()).map(item -> {
+            knowledgeItemRepository.delete(item);
             // 注意：由于 @ElementCollection，关联的 tags 会自动被删除
+            TransactionUtils.afterCommit(() -> searchIndex.remove(id));
+            dataVersions.bump(DataVersions.KNOWLEDGE, item.getUserId());
+            if (item.getLinkedFile() != null) {
+                // 释放附件引用，没有其他条目使用时由存储策略在提交后删除文件
+                try {
+                    fileStorageStrategy.deleteFile(item.getLinkedFile(), null);
+                } catch (Exception e) {
+                    log.warn("Could not release linked file {} of knowledge item {}", item.getLinkedFile(), id, e);
+                }
+            }
             return true;
+        }).orElse(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int rebuildSearchIndex() {
+        log.info("Rebuilding knowledge search index...");
+        KnowledgeSearchIndex.Rebuild rebuild = searchIndex.startRebuild();
+        int indexed = 0;
+        try {
+            Page<KnowledgeItem> page;
+            int pageNumber = 0;
+            do {
+                page = knowledgeItemRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                // 每页的标签一次批量查询，不逐条初始化 LAZY 集合
+                Map<Long, List<String>> tagsById = loadTags(page.getContent().stream().map(KnowledgeItem::getId).toList());
+                for (KnowledgeItem item : page.getContent()) {
+                    rebuild.add(toDocument(item, tagsById.getOrDefault(item.getId(), List.of())));
+                    indexed++;
+                }
+            } while (page.hasNext());
+        } catch (RuntimeException e) {
+            searchIndex.abortRebuild();
+            throw e;
         }
-        return false;
+        searchIndex.finishRebuild(rebuild);
+        dataVersions.bumpAll(DataVersions.KNOWLEDGE); // 索引就绪前的搜索结果来自 LIKE 回退，排序不同
+        return indexed;
+    }
+
+    /**
+     * 应用启动完成后构建全文索引；构建完成前搜索会回退到数据库 LIKE 查询。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildSearchIndexOnStartup() {
+        try {
+            rebuildSearchIndex();
+        } catch (Exception e) {
+            log.error("Failed to build knowledge search index on startup, search falls back to database queries.", e);
+        }
+    }
+
+    private static KnowledgeSearchIndex.Document toDocument(KnowledgeItem item, List<String> tags) {
+        return new KnowledgeSearchIndex.Document(item.getId(), item.getUserId(), item.getCategory(), item.getTitle(),
+                item.getContent(), tags == null ? List.of() : List.copyOf(tags));
     }
-}
\ No newline at end of file
+}
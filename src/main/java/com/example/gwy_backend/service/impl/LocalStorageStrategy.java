@@ -1,44 +1,115 @@
 package com.example.gwy_backend.service.impl; // 或 service.storage.impl
 
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.entity.StoredFile;
+import com.example.gwy_backend.repository.ErrorLogEntryRepository;
+import com.example.gwy_backend.repository.KnowledgeItemRepository;
+import com.example.gwy_backend.repository.StoredFileRepository;
 import com.example.gwy_backend.service.FileStorageStrategy;
+import com.example.gwy_backend.util.TransactionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 使用本地文件系统实现的文件存储策略。
+ * <p>
+ * 两种存储模式 (file.storage.mode)：
+ * <ul>
+ *   <li>uuid：每次上传都保存为新的随机文件名；</li>
+ *   <li>content-addressed：写入时同时计算 SHA-256，相同内容只保存一份 (文件名即摘要)，
+ *       并在 stored_file 表中维护引用计数。只有引用计数降为 0 且没有错题 / 知识条目仍指向该文件时，
+ *       才会在事务提交后删除物理文件。</li>
+ * </ul>
+ * 两种模式都会在 stored_file 表中记录文件元数据 (大小、Content-Type、摘要，uuid 模式下还有原始文件名)，
+ * 下载时直接使用，不必每次访问文件系统探测。
  */
 @Service // 标记为 Bean，Spring 会自动发现并创建实例
 public class LocalStorageStrategy implements FileStorageStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(LocalStorageStrategy.class);
 
+    public enum StorageMode { UUID, CONTENT_ADDRESSED }
+
+    private static final String TEMP_DIRECTORY = ".tmp"; // 上传中的临时文件，与最终目录在同一文件系统以便原子移动
+    private static final int LOCK_STRIPES = 32;
+
     @Value("${file.upload-dir}") // 从配置文件读取上传根目录
     private String uploadDir;
 
+    @Value("${file.storage.mode:uuid}")
+    private StorageMode storageMode;
+
     private Path fileStorageLocation; // 存储文件的根路径
+    private Path tempLocation;
+
+    private final StoredFileRepository storedFileRepository;
+    private final ErrorLogEntryRepository errorLogRepo;
+    private final KnowledgeItemRepository knowledgeRepo;
+    private final TransactionTemplate requiresNewTransaction;
+    private final CacheManager cacheManager;
+    // 按标识符分段加锁：串行化同一文件的放置与物理删除 (引用计数由 stored_file 的行锁串行化)
+    private final ReentrantLock[] fileLocks = new ReentrantLock[LOCK_STRIPES];
+
+    @Autowired
+    public LocalStorageStrategy(StoredFileRepository storedFileRepository,
+                                ErrorLogEntryRepository errorLogRepo,
+                                KnowledgeItemRepository knowledgeRepo,
+                                PlatformTransactionManager transactionManager,
+                                CacheManager cacheManager) {
+        this.storedFileRepository = storedFileRepository;
+        this.errorLogRepo = errorLogRepo;
+        this.knowledgeRepo = knowledgeRepo;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            fileLocks[i] = new ReentrantLock();
+        }
+    }
 
     @PostConstruct // 初始化方法
     public void init() {
         try {
             this.fileStorageLocation = Paths.get(this.uploadDir).toAbsolutePath().normalize();
             Files.createDirectories(this.fileStorageLocation); // 确保目录存在
-            log.info("Initialized file storage location at: {}", this.fileStorageLocation);
+            this.tempLocation = this.fileStorageLocation.resolve(TEMP_DIRECTORY);
+            Files.createDirectories(this.tempLocation);
+            log.info("Initialized file storage location at: {} (mode: {})", this.fileStorageLocation, storageMode);
         } catch (Exception ex) {
             log.error("Could not initialize storage location: {}", this.uploadDir, ex);
             throw new RuntimeException("Could not initialize storage location!", ex);
@@ -53,28 +124,25 @@ public class LocalStorageStrategy implements FileStorageStrategy {
         String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
 
         try {
-            String fileExtension = "";
-            if (originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-
-            // 确定最终的存储目录 (根目录 + 子目录)
-            Path targetDirectory = this.fileStorageLocation;
-            String relativeSubDirectory = ""; // 用于返回的标识符
-            if (StringUtils.hasText(subDirectory)) {
-                relativeSubDirectory = StringUtils.cleanPath(subDirectory);
-                targetDirectory = this.fileStorageLocation.resolve(relativeSubDirectory);
-                Files.createDirectories(targetDirectory);
-            }
-
-            Path targetLocation = targetDirectory.resolve(uniqueFilename);
+            String fileExtension = extensionOf(originalFilename);
+            TargetDirectory target = resolveTargetDirectory(subDirectory);
 
             try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+                if (storageMode == StorageMode.CONTENT_ADDRESSED) {
+                    return storeContentAddressed(inputStream, originalFilename, fileExtension, target);
+                }
+                String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+                Path targetLocation = target.directory().resolve(uniqueFilename);
+                MessageDigest digest = newSha256();
+                long size;
+                try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                    size = Files.copy(digestStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+                }
                 log.info("Stored file {} to {}", uniqueFilename, targetLocation);
                  // 返回包含子目录的相对路径作为标识符
-                return (StringUtils.hasText(relativeSubDirectory) ? relativeSubDirectory + "/" : "") + uniqueFilename;
+                String identifier = target.identifierPrefix() + uniqueFilename;
+                recordMetadata(identifier, HexFormat.of().formatHex(digest.digest()), size, targetLocation, originalFilename);
+                return identifier;
             }
         } catch (IOException ex) {
             log.error("Could not store file {}. IO Error.", originalFilename, ex);
@@ -85,6 +153,154 @@ public class LocalStorageStrategy implements FileStorageStrategy {
         }
     }
 
+    @Override
+    public String storeLocalFile(Path sourceFile, String originalFilename, String subDirectory) {
+        String cleanFilename = StringUtils.cleanPath(originalFilename);
+        try {
+            String fileExtension = extensionOf(cleanFilename);
+            TargetDirectory target = resolveTargetDirectory(subDirectory);
+            // 分片乱序到达，只能在完成后读一遍计算摘要 (只读不写)
+            MessageDigest digest = newSha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(sourceFile), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(sourceFile);
+            if (storageMode == StorageMode.CONTENT_ADDRESSED) {
+                return placeContentAddressed(sourceFile, sha256, size, cleanFilename, fileExtension, target);
+            }
+            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+            Path targetLocation = target.directory().resolve(uniqueFilename);
+            moveIntoPlace(sourceFile, targetLocation);
+            log.info("Moved file {} to {}", uniqueFilename, targetLocation);
+            String identifier = target.identifierPrefix() + uniqueFilename;
+            recordMetadata(identifier, sha256, size, targetLocation, cleanFilename);
+            return identifier;
+        } catch (IOException ex) {
+            log.error("Could not store local file {}. IO Error.", cleanFilename, ex);
+            throw new RuntimeException("Could not store file " + cleanFilename + ". IO Error.", ex);
+        } finally {
+            try {
+                Files.deleteIfExists(sourceFile); // 内容已存在被复用，或移动失败
+            } catch (IOException e) {
+                log.warn("Could not delete source file {}", sourceFile, e);
+            }
+        }
+    }
+
+    private record TargetDirectory(Path directory, String identifierPrefix) { }
+
+    // 确定最终的存储目录 (根目录 + 子目录) 以及标识符前缀
+    private TargetDirectory resolveTargetDirectory(String subDirectory) throws IOException {
+        if (!StringUtils.hasText(subDirectory)) {
+            return new TargetDirectory(this.fileStorageLocation, "");
+        }
+        String relativeSubDirectory = StringUtils.cleanPath(subDirectory);
+        Path targetDirectory = this.fileStorageLocation.resolve(relativeSubDirectory);
+        Files.createDirectories(targetDirectory);
+        return new TargetDirectory(targetDirectory, relativeSubDirectory + "/");
+    }
+
+    private static String extensionOf(String filename) {
+        return filename.contains(".") ? filename.substring(filename.lastIndexOf(".")) : "";
+    }
+
+    // 内容寻址存储：先写入临时文件并同时计算摘要，再放到以摘要命名的位置
+    private String storeContentAddressed(InputStream inputStream, String originalFilename, String fileExtension,
+                                         TargetDirectory target) throws IOException {
+        Path tempFile = Files.createTempFile(tempLocation, "upload-", ".part");
+        try {
+            MessageDigest digest = newSha256();
+            long size;
+            try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                size = Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return placeContentAddressed(tempFile, HexFormat.of().formatHex(digest.digest()), size,
+                    originalFilename, fileExtension, target);
+        } finally {
+            Files.deleteIfExists(tempFile); // 已复用或移动失败时清理临时文件
+        }
+    }
+
+    /**
+     * 把已计算好摘要的文件移动到以摘要命名的位置；已存在相同内容时直接复用 (源文件由调用方清理)。
+     * 引用计数在调用方的事务中先于放置文件递增，行锁保持到该事务结束：并发的删除加锁读取计数时会等待它提交，
+     * 提交后看到这次引用，回滚则计数一并撤销 (已放置的文件留作下次复用)。
+     * 内容相同的文件共用一条元数据，其中不记录原始文件名 (各次上传的名字由调用方保存在引用它的条目上)。
+     */
+    private String placeContentAddressed(Path file, String sha256, long size, String originalFilename,
+                                         String fileExtension, TargetDirectory target) throws IOException {
+        String filename = sha256 + fileExtension.toLowerCase(Locale.ROOT);
+        String identifier = target.identifierPrefix() + filename;
+        Path targetLocation = target.directory().resolve(filename);
+
+        // 先记录引用 (取得行锁) 再放置文件，放置时不访问数据库：删除方总是先取行锁再取分段锁，不会互相等待
+        storedFileRepository.upsertReference(identifier, sha256, size, detectContentType(file, originalFilename),
+                LocalDateTime.now());
+        ReentrantLock lock = lockFor(identifier);
+        lock.lock();
+        try {
+            if (Files.exists(targetLocation)) {
+                log.info("Content already stored as {}, reusing it.", identifier);
+            } else {
+                moveIntoPlace(file, targetLocation);
+                log.info("Stored file {} ({} bytes) to {}", filename, size, targetLocation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return identifier;
+    }
+
+    // uuid 模式：每个文件一条元数据，引用计数固定为 1
+    private void recordMetadata(String identifier, String sha256, long size, Path storedPath, String originalFilename) {
+        StoredFile storedFile = new StoredFile(identifier, sha256, size, detectContentType(storedPath, originalFilename),
+                truncate(originalFilename, StoredFile.ORIGINAL_FILENAME_MAX_LENGTH));
+        storedFile.setRefCount(1);
+        storedFileRepository.save(storedFile); // 与调用方在同一事务中
+    }
+
+    // 写入时确定一次 Content-Type：优先按原始文件名的扩展名，其次探测文件内容
+    private static String detectContentType(Path storedPath, String originalFilename) {
+        Optional<MediaType> byName = MediaTypeFactory.getMediaType(originalFilename);
+        if (byName.isPresent()) {
+            return byName.get().toString();
+        }
+        try {
+            String probed = Files.probeContentType(storedPath);
+            if (probed != null) {
+                return probed;
+            }
+        } catch (IOException e) {
+            log.info("Could not determine file type for: {}", storedPath);
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // 所有 JDK 都必须提供
+        }
+    }
+
+    private ReentrantLock lockFor(String identifier) {
+        return fileLocks[Math.floorMod(identifier.hashCode(), LOCK_STRIPES)];
+    }
+
     @Override
     public Resource loadFileAsResource(String fileIdentifier, String subDirectoryIgnored) {
         try {
@@ -106,22 +322,85 @@ public class LocalStorageStrategy implements FileStorageStrategy {
         }
     }
 
+    /**
+     * 释放对文件的一次引用。物理删除推迟到当前事务提交之后 (没有事务时立即执行)，
+     * 避免事务回滚后实体仍指向已被删除的文件。
+     */
     @Override
     public void deleteFile(String fileIdentifier, String subDirectoryIgnored) {
-         try {
-             Path filePath = getFilePath(fileIdentifier, null);
-             boolean deleted = Files.deleteIfExists(filePath);
-             if (deleted) {
-                  log.info("Deleted file: {}", filePath);
-             } else {
-                  log.warn("File not found, could not delete: {}", filePath);
-             }
+        Path filePath = getFilePath(fileIdentifier, null);
+        if (storageMode == StorageMode.CONTENT_ADDRESSED) {
+            storedFileRepository.decrementRefCount(fileIdentifier); // 与调用方在同一事务中，回滚时一起撤销
+            TransactionUtils.afterCommit(() -> deleteIfUnreferenced(fileIdentifier, filePath));
+        } else {
+            storedFileRepository.deleteByIdentifier(fileIdentifier);
+            TransactionUtils.afterCommit(() -> {
+                evictMetadata(fileIdentifier);
+                deletePhysically(fileIdentifier, filePath);
+            });
+        }
+    }
+
+    /**
+     * 引用计数为 0 且没有实体再指向该文件时，删除记录和物理文件。
+     * 先加锁读取记录 (等待进行中的上传事务提交)，再在分段锁内删除物理文件，都在提交前完成：
+     * 等待该行的上传在删除提交后才继续，会重新插入记录并重新放置文件。
+     */
+    private void deleteIfUnreferenced(String fileIdentifier, Path filePath) {
+        try {
+            Boolean deleted = requiresNewTransaction.execute(status -> {
+                Optional<StoredFile> storedFile = storedFileRepository.findByIdentifierForUpdate(fileIdentifier);
+                if (storedFile.isPresent() && storedFile.get().getRefCount() > 0) {
+                    log.debug("File {} still has references, not deleting.", fileIdentifier);
+                    return false;
+                }
+                if (errorLogRepo.existsByImageFile(fileIdentifier) || knowledgeRepo.existsByLinkedFile(fileIdentifier)) {
+                    log.info("File {} is still referenced by an entity, keeping it.", fileIdentifier);
+                    return false;
+                }
+                storedFileRepository.deleteByIdentifier(fileIdentifier);
+                ReentrantLock lock = lockFor(fileIdentifier);
+                lock.lock();
+                try {
+                    deletePhysically(fileIdentifier, filePath);
+                } finally {
+                    lock.unlock();
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(deleted)) {
+                evictMetadata(fileIdentifier);
+            }
+        } catch (Exception e) {
+            log.error("Error releasing file: {}", fileIdentifier, e);
+        }
+    }
+
+    private void evictMetadata(String fileIdentifier) {
+        Cache cache = cacheManager.getCache(CacheConfig.FILE_METADATA);
+        if (cache != null) {
+            cache.evict(fileIdentifier);
+        }
+    }
+
+    private void deletePhysically(String fileIdentifier, Path filePath) {
+        try {
+            boolean deleted = Files.deleteIfExists(filePath);
+            if (deleted) {
+                log.info("Deleted file: {}", filePath);
+            } else {
+                log.warn("File not found, could not delete: {}", filePath);
+            }
+            // 同时删除派生文件 (缩略图等，命名为 <文件名>.thumb-<尺寸>.jpg)
+            String derivativePrefix = filePath.getFileName().toString() + ".thumb-";
+            try (DirectoryStream<Path> derivatives = Files.newDirectoryStream(filePath.getParent(),
+                    path -> path.getFileName().toString().startsWith(derivativePrefix))) {
+                for (Path derivative : derivatives) {
+                    Files.deleteIfExists(derivative);
+                }
+            }
         } catch (IOException ex) {
             log.error("Could not delete file {}. IO Error.", fileIdentifier, ex);
-            throw new RuntimeException("Could not delete file " + fileIdentifier + ". IO Error.", ex);
-        } catch (Exception e) {
-             log.error("Error deleting file: {}", fileIdentifier, e);
-             throw new RuntimeException("Error deleting file: " + fileIdentifier, e);
         }
     }
 
@@ -1,16 +1,23 @@
 package com.example.gwy_backend.service.impl;
 
+import com.example.gwy_backend.dto.CursorPage;
 import com.example.gwy_backend.entity.NoteEntry;
 import com.example.gwy_backend.factory.NoteFactory;
 import com.example.gwy_backend.repository.NoteEntryRepository;
+import com.example.gwy_backend.repository.SparseFieldRepository;
 import com.example.gwy_backend.service.NoteService;
+import com.example.gwy_backend.util.KeysetCursor;
+import com.example.gwy_backend.util.SparseFields;
+import com.example.gwy_backend.util.UserContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import java.util.List;
+import java.util.Map;
 // 移除了 Optional
 
 @Service
@@ -19,11 +26,14 @@ public class NoteServiceImpl implements NoteService {
     private static final Logger log = LoggerFactory.getLogger(NoteServiceImpl.class);
     private final NoteEntryRepository noteEntryRepository;
     private final NoteFactory noteFactory;
+    private final SparseFieldRepository sparseFieldRepository;
 
     @Autowired
-    public NoteServiceImpl(NoteEntryRepository noteEntryRepository, NoteFactory noteFactory) {
+    public NoteServiceImpl(NoteEntryRepository noteEntryRepository, NoteFactory noteFactory,
+                           SparseFieldRepository sparseFieldRepository) {
         this.noteEntryRepository = noteEntryRepository;
         this.noteFactory = noteFactory;
+        this.sparseFieldRepository = sparseFieldRepository;
     }
 
     @Override
@@ -31,7 +41,39 @@ public class NoteServiceImpl implements NoteService {
     public List<NoteEntry> getAllNotesSortedByTimestamp() {
         log.info("Fetching all notes sorted by timestamp.");
         // **MODIFIED:** 确认调用正确的 Repository 方法
-        return noteEntryRepository.findAllByOrderByTimestampDesc();
+        return noteEntryRepository.findAllByOrderByTimestampDesc(UserContext.currentUserId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<NoteEntry> getNotePage(String cursor, Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1); // 多取一条用于判断是否还有下一页
+        String userId = UserContext.currentUserId();
+        List<NoteEntry> rows;
+        if (cursor == null) {
+            rows = noteEntryRepository.findByUserIdOrderByTimestampDescIdDesc(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = noteEntryRepository.findPageAfter(userId, after.time(), after.id(), limit);
+        }
+        return CursorPage.of(rows, pageSize, n -> new KeysetCursor(n.getTimestamp(), n.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllNotes(List<String> fields) {
+        return sparseFieldRepository.findPage(NoteEntry.class, fields, UserContext.currentUserId(), Map.of(), null, null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getNotePage(String cursor, Integer size, List<String> fields) {
+        int pageSize = CursorPage.clampSize(size);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        List<Map<String, Object>> rows = sparseFieldRepository.findPage(NoteEntry.class, fields,
+                UserContext.currentUserId(), Map.of(), after, pageSize + 1); // 多取一条用于判断是否还有下一页
+        return CursorPage.of(rows, pageSize, SparseFields::cursorOf);
     }
 
     // getNoteEntryByKey 方法已移除
@@ -44,6 +86,7 @@ public class NoteServiceImpl implements NoteService {
             throw new IllegalArgumentException("Note content cannot be empty.");
         }
         NoteEntry noteToSave = noteFactory.createNote(noteEntry.getNoteKey(), noteEntry.getContent());
+        noteToSave.setUserId(UserContext.currentUserId());
         log.debug("Saving new note entry: {}", noteToSave);
         return noteEntryRepository.save(noteToSave);
     }
@@ -59,7 +102,7 @@ public class NoteServiceImpl implements NoteService {
             log.error("Cannot delete note with null ID.");
             return false;
         }
-        if (noteEntryRepository.existsById(id)) { // 先检查是否存在
+        if (noteEntryRepository.existsByIdAndUserId(id, UserContext.currentUserId())) { // 先检查是否存在 (且属于当前用户)
             try {
                 noteEntryRepository.deleteById(id); // 执行删除
                 log.info("Note with ID: {} deleted successfully.", id);
@@ -0,0 +1,176 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.entity.DailyActivityLog;
+import com.example.gwy_backend.event.OnlineDurationFlushedEvent;
+import com.example.gwy_backend.repository.DailyActivityLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 在线时长 (心跳 ping) 的写后缓冲。
+ * <p>
+ * 每次 ping 只在内存中累加 (按用户、日期分桶的 LongAdder)，由定时任务合并后
+ * 每个 (用户, 日期) 只执行一次 UPDATE 写入 daily_activity_log；应用关闭时会做最后一次刷新。
+ * 读取在线时长时需要加上 {@link #getPendingSeconds(String, LocalDate)} 返回的未刷新部分，
+ * 数据库查询和未刷新部分要在同一次 {@link #readConsistently(Supplier)} 中读取。
+ * 每轮刷新后发布一次 {@link OnlineDurationFlushedEvent} (本轮没有写入时不发布)。
+ */
+@Component
+public class OnlineDurationBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(OnlineDurationBuffer.class);
+
+    /**
+     * 单个日期的计数器：added 只增不减，flushed 记录已写入数据库的部分，
+     * 两者之差就是尚未刷新的秒数。不对 added 做 reset，避免并发累加时丢数据。
+     */
+    private static final class Counter {
+        private final LongAdder added = new LongAdder();
+        private final AtomicLong flushed = new AtomicLong();
+
+        long pending() {
+            return added.sum() - flushed.get();
+        }
+    }
+
+    // 计数器的分桶键
+    private record Key(String userId, LocalDate date) {
+    }
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock(); // 保证同一时刻只有一个刷新任务
+    // 写锁：提交增量并把它计入 flushed；读锁：读取数据库中的值和未刷新部分
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final DailyActivityLogRepository activityLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public OnlineDurationBuffer(DailyActivityLogRepository activityLogRepository,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher) {
+        this.activityLogRepository = activityLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 累加在线时长 (只写内存)。
+     */
+    public void add(String userId, LocalDate date, long secondsToAdd) {
+        // 在 compute 内累加：与刷新后移除计数器互斥 (同一个键)，不会加到刚被移除的计数器上而丢失
+        counters.compute(new Key(userId, date), (key, counter) -> {
+            Counter target = counter != null ? counter : new Counter();
+            target.added.add(secondsToAdd);
+            return target;
+        });
+    }
+
+    /**
+     * 指定用户、指定日期尚未写入数据库的在线秒数。
+     * 与数据库中的值相加时需要在 {@link #readConsistently(Supplier)} 内读取，否则刷新提交前后可能少算或重复计算。
+     */
+    public long getPendingSeconds(String userId, LocalDate date) {
+        Counter counter = counters.get(new Key(userId, date));
+        return counter == null ? 0 : counter.pending();
+    }
+
+    /**
+     * 在读锁内执行读取。刷新任务提交增量和把它计入 flushed 都在写锁内完成，因此 reader 中查询到的数据库值
+     * 加上 {@link #getPendingSeconds(String, LocalDate)}，每个增量恰好计入一次。
+     * reader 中的查询必须看到最新提交的数据 (调用方事务使用 READ COMMITTED；可重复读的快照可能早于刷新提交)。
+     */
+    public <T> T readConsistently(Supplier<T> reader) {
+        commitLock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 定时刷新：每个有增量的 (用户, 日期) 执行一次 UPDATE (没有记录时插入)。
+     * 间隔由 activity.ping.flush-interval-ms 配置。
+     */
+    @Scheduled(fixedDelayString = "${activity.ping.flush-interval-ms:5000}")
+    public void flush() {
+        Set<String> flushedUsers = flushCounters();
+        if (!flushedUsers.isEmpty()) {
+            eventPublisher.publishEvent(new OnlineDurationFlushedEvent(this, flushedUsers));
+        }
+    }
+
+    // 返回本轮写入了在线时长的用户
+    private Set<String> flushCounters() {
+        Set<String> flushedUsers = new HashSet<>();
+        flushLock.lock();
+        try {
+            LocalDate today = LocalDate.now();
+            counters.forEach((key, counter) -> {
+                long delta = counter.pending();
+                if (delta > 0) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            writeOnlineSeconds(key.userId(), key.date(), delta);
+                            // UPDATE 执行完、提交之前才加写锁 (此时已持有连接，不会在锁内等待连接池)；提交后计入 flushed 再解锁
+                            commitLock.writeLock().lock();
+                        });
+                        counter.flushed.addAndGet(delta);
+                        flushedUsers.add(key.userId());
+                        log.debug("Flushed {} buffered online seconds for user {} on {}", delta, key.userId(), key.date());
+                    } catch (Exception e) {
+                        // 写入失败时保留增量，下一轮继续重试
+                        log.error("Error flushing {} online seconds for user {} on {}, will retry.", delta, key.userId(), key.date(), e);
+                        return;
+                    } finally {
+                        if (commitLock.isWriteLockedByCurrentThread()) {
+                            commitLock.writeLock().unlock();
+                        }
+                    }
+                }
+                // 过去日期的计数器刷新完毕后移除，避免 Map 无限增长；在 computeIfPresent 内判断，期间的累加会等待
+                if (key.date().isBefore(today)) {
+                    counters.computeIfPresent(key, (k, current) -> current.pending() == 0 ? null : current);
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+        return flushedUsers;
+    }
+
+    private void writeOnlineSeconds(String userId, LocalDate date, long seconds) {
+        int updatedRows = activityLogRepository.incrementOnlineSeconds(userId, date, seconds);
+        if (updatedRows == 0) {
+            log.info("No existing activity log found for user {} on {}, creating new entry.", userId, date);
+            DailyActivityLog newLog = new DailyActivityLog(userId, date); // 构造函数内部会同时设置 logDate
+            newLog.setTotalOnlineSeconds(seconds);
+            activityLogRepository.save(newLog);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing buffered online durations before shutdown.");
+        flushCounters(); // 关闭过程中不再发布事件
+    }
+}
@@ -1,24 +1,40 @@
 package com.example.gwy_backend.service.impl;
 
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.dto.CursorPage;
+import com.example.gwy_backend.dto.StudyLogBatchResult;
+import com.example.gwy_backend.dto.StudyLogBatchResult.Item;
+import com.example.gwy_backend.dto.StudyLogBatchResult.Status;
 import com.example.gwy_backend.entity.PomodoroSettings;
 import com.example.gwy_backend.entity.StudyLog;
 import com.example.gwy_backend.event.StudyLogAddedEvent; // <<< 导入事件类
+import com.example.gwy_backend.event.StudyLogsBatchAddedEvent;
+import com.example.gwy_backend.listener.StudyLogFence;
 import com.example.gwy_backend.repository.PomodoroSettingsRepository;
 import com.example.gwy_backend.repository.StudyLogRepository;
 import com.example.gwy_backend.service.PomodoroService;
+import com.example.gwy_backend.service.StudyRollupService;
+import com.example.gwy_backend.util.KeysetCursor;
+import com.example.gwy_backend.util.UserContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationEventPublisher; // <<< 导入事件发布器
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class PomodoroServiceImpl implements PomodoroService {
@@ -27,19 +43,29 @@ public class PomodoroServiceImpl implements PomodoroService {
     private final PomodoroSettingsRepository settingsRepository;
     private final StudyLogRepository studyLogRepository;
     private final ApplicationEventPublisher eventPublisher; // <<< 注入事件发布器
+    private final StudyRollupService studyRollupService;
+    private final StudyLogFence studyLogFence;
+    private final int maxSyncBatchSize;
 
     @Autowired
     public PomodoroServiceImpl(PomodoroSettingsRepository settingsRepository,
                                StudyLogRepository studyLogRepository,
-                               ApplicationEventPublisher eventPublisher) { // <<< 修改构造函数
+                               ApplicationEventPublisher eventPublisher,
+                               StudyRollupService studyRollupService,
+                               StudyLogFence studyLogFence,
+                               @Value("${pomodoro.log.sync.max-batch-size:500}") int maxSyncBatchSize) {
         this.settingsRepository = settingsRepository;
         this.studyLogRepository = studyLogRepository;
         this.eventPublisher = eventPublisher; // <<< 注入
+        this.studyRollupService = studyRollupService;
+        this.studyLogFence = studyLogFence;
+        this.maxSyncBatchSize = maxSyncBatchSize;
     }
 
     // --- Settings Implementation ---
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.POMODORO_SETTINGS, key = "#settingsKey") // 命中时不查库也不开事务
     @Transactional // 可能创建默认值，需要事务
     public PomodoroSettings getSettings(String settingsKey) {
         log.info("Fetching settings for key: {}", settingsKey);
@@ -54,6 +80,7 @@ public class PomodoroServiceImpl implements PomodoroService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.POMODORO_SETTINGS, key = "#settingsKey") // 事务提交后失效，下次读取重新加载
     @Transactional // 更新操作，需要事务
     public Optional<PomodoroSettings> updateSettings(String settingsKey, Map<String, Integer> updates) {
         log.info("Attempting to update settings for key: {} with updates: {}", settingsKey, updates);
@@ -106,14 +133,26 @@ public class PomodoroServiceImpl implements PomodoroService {
     @Transactional
     public StudyLog addStudyLog(StudyLog studyLog) {
         log.info("Adding new study log: Activity - '{}', Duration - {}s", studyLog.getActivity(), studyLog.getDurationSeconds());
+        String userId = UserContext.currentUserId();
+        StudyLogFence.Stamp stamp = studyLogFence.enterLogWrite(userId); // 清空 / 重建进行中时等待其完成
+        if (StringUtils.hasText(studyLog.getClientKey())) {
+            // 带幂等键的重复提交直接返回已有记录，不再发布事件
+            Optional<StudyLog> existing = studyLogRepository.findByUserIdAndClientKey(userId, studyLog.getClientKey().trim());
+            if (existing.isPresent()) {
+                log.info("Study log with client key {} already exists, skipping.", studyLog.getClientKey());
+                return existing.get();
+            }
+            studyLog.setClientKey(studyLog.getClientKey().trim());
+        }
         studyLog.setId(null); // 确保是新增
+        studyLog.setUserId(userId);
         StudyLog savedLog = studyLogRepository.save(studyLog); // 保存
 
         // **MODIFIED:** 发布事件
         if (savedLog != null && savedLog.getId() != null) { // 确保保存成功且有 ID
             log.debug("Publishing StudyLogAddedEvent for log id: {}", savedLog.getId());
             try {
-                eventPublisher.publishEvent(new StudyLogAddedEvent(this, savedLog)); // <<< 发布事件
+                eventPublisher.publishEvent(new StudyLogAddedEvent(this, savedLog, stamp)); // <<< 发布事件
             } catch (Exception e) {
                 // 记录发布事件时可能发生的异常，但不应中断主流程
                 log.error("Error publishing StudyLogAddedEvent for log id: {}", savedLog.getId(), e);
@@ -124,23 +163,142 @@ public class PomodoroServiceImpl implements PomodoroService {
 
         return savedLog;
     }
+    @Override
+    @Transactional
+    public StudyLogBatchResult addStudyLogsBatch(List<StudyLog> studyLogs) {
+        if (studyLogs == null || studyLogs.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one study log.");
+        }
+        if (studyLogs.size() > maxSyncBatchSize) {
+            throw new IllegalArgumentException("Batch size " + studyLogs.size() + " exceeds the limit of " + maxSyncBatchSize + ".");
+        }
+        log.info("Syncing batch of {} study logs.", studyLogs.size());
+        String userId = UserContext.currentUserId();
+        StudyLogFence.Stamp stamp = studyLogFence.enterLogWrite(userId);
+
+        // 1. 逐条校验，并在批内按 clientKey 去重 (保留第一次出现的记录)
+        Item[] items = new Item[studyLogs.size()];
+        Map<String, StudyLog> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < studyLogs.size(); i++) {
+            StudyLog studyLog = studyLogs.get(i);
+            String error = validateForSync(studyLog);
+            if (error != null) {
+                items[i] = new Item(studyLog == null ? null : studyLog.getClientKey(), Status.REJECTED, null, error);
+                continue;
+            }
+            studyLog.setId(null);
+            studyLog.setUserId(userId);
+            studyLog.setClientKey(studyLog.getClientKey().trim());
+            if (!StringUtils.hasText(studyLog.getActivity())) {
+                studyLog.setActivity("专注学习");
+            }
+            candidates.putIfAbsent(studyLog.getClientKey(), studyLog);
+        }
+
+        // 2. 一次 IN 查询找出之前已同步过的记录
+        Map<String, Long> idsByKey = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            studyLogRepository.findByUserIdAndClientKeyIn(userId, candidates.keySet())
+                    .forEach(existing -> idsByKey.put(existing.getClientKey(), existing.getId()));
+        }
+        List<StudyLog> toInsert = new ArrayList<>();
+        candidates.forEach((key, studyLog) -> {
+            if (!idsByKey.containsKey(key)) {
+                toInsert.add(studyLog);
+            }
+        });
+
+        // 3. JDBC 批量插入 (驱动合并为多行 INSERT)，新行带上本次调用唯一的批次标记；并发的重复提交已占用的 key
+        // 保留对方的标记。再按 clientKey + 标记取回 ID —— 只查到本事务插入的行，与隔离级别无关，不会重复发布事件。
+        List<StudyLog> inserted = List.of();
+        if (!toInsert.isEmpty()) {
+            String syncToken = UUID.randomUUID().toString();
+            studyLogRepository.insertNew(toInsert, syncToken);
+            inserted = studyLogRepository.findByUserIdAndClientKeyInAndSyncToken(userId,
+                    toInsert.stream().map(StudyLog::getClientKey).toList(), syncToken);
+        }
+        Map<String, Long> insertedIds = new HashMap<>();
+        inserted.forEach(studyLog -> insertedIds.put(studyLog.getClientKey(), studyLog.getId()));
+
+        // 4. 按请求顺序汇总结果
+        int created = 0;
+        int duplicates = 0;
+        int rejected = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                rejected++;
+                continue;
+            }
+            String key = studyLogs.get(i).getClientKey();
+            boolean firstOccurrence = candidates.get(key) == studyLogs.get(i);
+            Long insertedId = insertedIds.get(key);
+            if (firstOccurrence && insertedId != null) {
+                items[i] = new Item(key, Status.CREATED, insertedId, null);
+                created++;
+            } else {
+                items[i] = new Item(key, Status.DUPLICATE, insertedId != null ? insertedId : idsByKey.get(key), null);
+                duplicates++;
+            }
+        }
+
+        // 5. 整批只发布一个事件 (提交后由事件管道异步处理)
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new StudyLogsBatchAddedEvent(this, inserted, stamp));
+        }
+        log.info("Study log batch synced: {} created, {} duplicates, {} rejected.", created, duplicates, rejected);
+        return new StudyLogBatchResult(created, duplicates, rejected, List.of(items));
+    }
+
+    // 与 PomodoroController.addStudyLog 相同的校验规则，另外要求 clientKey；返回 null 表示通过
+    private static String validateForSync(StudyLog studyLog) {
+        if (studyLog == null) {
+            return "Study log must not be null.";
+        }
+        if (!StringUtils.hasText(studyLog.getClientKey())) {
+            return "clientKey is required.";
+        }
+        if (studyLog.getClientKey().trim().length() > StudyLog.CLIENT_KEY_MAX_LENGTH) {
+            return "clientKey must be at most " + StudyLog.CLIENT_KEY_MAX_LENGTH + " characters.";
+        }
+        if (studyLog.getStartTime() == null || studyLog.getEndTime() == null
+                || studyLog.getStartTime().isAfter(studyLog.getEndTime()) || studyLog.getDurationSeconds() <= 0) {
+            return "startTime/endTime/durationSeconds are invalid.";
+        }
+        return null;
+    }
+
     @Override
     @Transactional(readOnly = true) // 只读操作
     public List<StudyLog> getRecentStudyLogs(int limit) {
         log.info("Fetching recent {} study logs.", limit);
-        // 使用分页获取最新记录，按 startTime 降序
-        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "startTime"));
-        // getContent() 返回当前页的 List<StudyLog>
-        return studyLogRepository.findAll(pageable).getContent();
+        // 只取前 limit 条，按 (startTime, id) 降序；不像 findAll(Pageable) 那样额外执行 count(*)
+        return studyLogRepository.findByUserIdOrderByStartTimeDescIdDesc(UserContext.currentUserId(), Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<StudyLog> getStudyLogPage(String cursor, Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1); // 多取一条用于判断是否还有下一页
+        String userId = UserContext.currentUserId();
+        List<StudyLog> rows;
+        if (cursor == null) {
+            rows = studyLogRepository.findByUserIdOrderByStartTimeDescIdDesc(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = studyLogRepository.findPageAfter(userId, after.time(), after.id(), limit);
+        }
+        return CursorPage.of(rows, pageSize, s -> new KeysetCursor(s.getStartTime(), s.getId()));
     }
 
     @Override
     @Transactional // 清空是修改操作，需要事务
     public void clearAllLogs() {
-        log.warn("Clearing all study logs!"); // 使用 warn 级别日志记录此操作
-        // 调用 Repository 中的自定义方法或 JPA 提供的 deleteAll
-        studyLogRepository.deleteAllLogs(); // 使用我们定义的 JPQL 方法
-        // 或者 studyLogRepository.deleteAll(); // JPA 标准方法，效果相同但可能效率稍低
-        log.info("All study logs have been cleared.");
+        String userId = UserContext.currentUserId();
+        studyLogFence.enterClear(userId); // 删除前取得栅栏：等待进行中的日志写入，提交后丢弃队列中该用户已删除日志的事件
+        log.warn("Clearing all study logs of user {}!", userId); // 使用 warn 级别日志记录此操作
+        studyLogRepository.deleteAllLogs(userId); // 只清空当前用户的日志
+        studyRollupService.clearAll(); // 预聚合表随日志一起清空 (同一事务)
+        log.info("All study logs of user {} have been cleared.", userId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.entity.StudyTimeRollup;
+import com.example.gwy_backend.entity.StudyTimeRollup.Period;
+import com.example.gwy_backend.listener.StudyLogFence;
+import com.example.gwy_backend.repository.StudyLogRepository;
+import com.example.gwy_backend.repository.StudyTimeRollupRepository;
+import com.example.gwy_backend.service.StudyRollupService;
+import com.example.gwy_backend.util.TransactionUtils;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+public class StudyRollupServiceImpl implements StudyRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(StudyRollupServiceImpl.class);
+    private final StudyTimeRollupRepository rollupRepository;
+    private final StudyLogRepository studyLogRepository;
+    private final CacheManager cacheManager;
+    private final StudyLogFence studyLogFence;
+
+    @Autowired
+    public StudyRollupServiceImpl(StudyTimeRollupRepository rollupRepository,
+                                  StudyLogRepository studyLogRepository,
+                                  CacheManager cacheManager,
+                                  StudyLogFence studyLogFence) {
+        this.rollupRepository = rollupRepository;
+        this.studyLogRepository = studyLogRepository;
+        this.cacheManager = cacheManager;
+        this.studyLogFence = studyLogFence;
+    }
+
+    @Override
+    @Transactional // 由事件管道在它的分派事务中 (持有栅栏读锁) 调用，不再申请第二个连接
+    public void applyStudyLogs(Collection<StudyLog> logs) {
+        // 同一批日志通常属于同一个用户，按用户分组后分别累加
+        Map<String, List<StudyLog>> byUser = logs.stream()
+                .collect(Collectors.groupingBy(StudyLog::getUserId, HashMap::new, Collectors.toList()));
+        byUser.forEach(this::applyUserLogs);
+    }
+
+    private void applyUserLogs(String userId, List<StudyLog> logs) {
+        // 先在内存中按天、按月合并，一批日志每个周期只发一条 upsert
+        Map<LocalDate, long[]> byDay = new TreeMap<>();
+        for (StudyLog studyLog : logs) {
+            if (studyLog.getStartTime() == null || studyLog.getDurationSeconds() <= 0) {
+                continue;
+            }
+            long[] acc = byDay.computeIfAbsent(studyLog.getStartTime().toLocalDate(), d -> new long[2]);
+            acc[0] += studyLog.getDurationSeconds();
+            acc[1]++;
+        }
+        Map<LocalDate, long[]> byMonth = new TreeMap<>();
+        byDay.forEach((day, acc) -> {
+            long[] monthAcc = byMonth.computeIfAbsent(day.with(TemporalAdjusters.firstDayOfMonth()), d -> new long[2]);
+            monthAcc[0] += acc[0];
+            monthAcc[1] += acc[1];
+        });
+
+        byDay.forEach((day, acc) -> increment(userId, Period.DAY, day, acc[0], acc[1]));
+        byMonth.forEach((month, acc) -> increment(userId, Period.MONTH, month, acc[0], acc[1]));
+
+        // 补录了往年的日志时，让该用户对应年份的热力图缓存在提交后失效
+        int currentYear = LocalDate.now().getYear();
+        Set<Integer> pastYears = new TreeSet<>();
+        byMonth.keySet().forEach(month -> {
+            if (month.getYear() < currentYear) {
+                pastYears.add(month.getYear());
+            }
+        });
+        if (!pastYears.isEmpty()) {
+            TransactionUtils.afterCommit(() -> pastYears.forEach(year -> evictHeatmap(userId, year)));
+        }
+        log.debug("Applied {} study logs of user {} to rollups ({} days, {} months).", logs.size(), userId, byDay.size(), byMonth.size());
+    }
+
+    private void increment(String userId, Period period, LocalDate periodStart, long seconds, long count) {
+        // 与 ErrorStatsServiceImpl 相同：单条 upsert，管道线程与 CALLER_RUNS 的发布线程同时首次写入同一周期也不会违反唯一索引
+        rollupRepository.upsertIncrement(userId, period.name(), periodStart, seconds, count);
+    }
+
+    @Override
+    @Transactional
+    public void clearAll() {
+        String userId = UserContext.currentUserId();
+        studyLogFence.enterClear(userId);
+        log.warn("Clearing all study time rollups of user {}.", userId);
+        rollupRepository.deleteByUserId(userId);
+        // 热力图缓存按 "用户:年份" 存放，无法按前缀失效，直接整体清空
+        TransactionUtils.afterCommit(this::clearHeatmapCache);
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        // 第一次读取之前取得栅栏：进行中的日志事务都已提交 (会被这次重建计入)，它们的事件在提交后被丢弃
+        studyLogFence.enterRebuild();
+        log.warn("Rebuilding study time rollups from study_log...");
+        rollupRepository.deleteAllRollups();
+
+        List<StudyTimeRollup> rollups = new ArrayList<>();
+        Map<String, StudyTimeRollup> months = new TreeMap<>();
+        for (Object[] row : studyLogRepository.sumDurationGroupByUserAndDay()) {
+            String userId = (String) row[0];
+            LocalDate day = (LocalDate) row[1];
+            long seconds = ((Number) row[2]).longValue();
+            long count = ((Number) row[3]).longValue();
+
+            rollups.add(new StudyTimeRollup(null, userId, Period.DAY, day, seconds, count));
+            LocalDate monthStart = day.with(TemporalAdjusters.firstDayOfMonth());
+            StudyTimeRollup month = months.computeIfAbsent(userId + ':' + monthStart,
+                    key -> new StudyTimeRollup(userId, Period.MONTH, monthStart));
+            month.setTotalSeconds(month.getTotalSeconds() + seconds);
+            month.setLogCount(month.getLogCount() + count);
+        }
+        int dayRows = rollups.size();
+        rollups.addAll(months.values());
+        rollupRepository.saveAll(rollups);
+        TransactionUtils.afterCommit(this::clearHeatmapCache);
+        log.info("Rebuilt study time rollups: {} day rows, {} month rows.", dayRows, months.size());
+        return dayRows;
+    }
+
+    // 缓存键与 DailyActivityLogServiceImpl.getHeatmap 的 key 表达式一致
+    private void evictHeatmap(String userId, int year) {
+        Cache cache = cacheManager.getCache(CacheConfig.ACTIVITY_HEATMAP);
+        if (cache != null) {
+            cache.evict(userId + ':' + year);
+        }
+    }
+
+    private void clearHeatmapCache() {
+        Cache cache = cacheManager.getCache(CacheConfig.ACTIVITY_HEATMAP);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 启动时回填：聚合表为空但已有学习日志 (例如刚升级到此版本) 时自动重建一次。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        studyLogFence.enterRebuild(); // 在 count() 建立一致性快照之前
+        if (rollupRepository.count() == 0 && studyLogRepository.count() > 0) {
+            log.info("Study time rollups are empty, backfilling from existing study logs.");
+            rebuild();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getTotalSeconds() {
+        return rollupRepository.sumSeconds(UserContext.currentUserId(), Period.MONTH);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getSecondsBetween(LocalDate startDate, LocalDate endDate) {
+        return rollupRepository.sumSecondsBetween(UserContext.currentUserId(), Period.DAY, startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long[] getDailySeconds(LocalDate startDate, LocalDate endDate) {
+        long[] seconds = new long[(int) ChronoUnit.DAYS.between(startDate, endDate) + 1];
+        for (StudyTimeRollup rollup : rollupRepository.findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(
+                UserContext.currentUserId(), Period.DAY, startDate, endDate)) {
+            seconds[(int) ChronoUnit.DAYS.between(startDate, rollup.getPeriodStart())] = rollup.getTotalSeconds();
+        }
+        return seconds;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getMonthSeconds(LocalDate anyDayInMonth) {
+        return rollupRepository.findByUserIdAndPeriodTypeAndPeriodStart(UserContext.currentUserId(), Period.MONTH, anyDayInMonth.with(TemporalAdjusters.firstDayOfMonth()))
+                .map(StudyTimeRollup::getTotalSeconds)
+                .orElse(0L);
+    }
+}
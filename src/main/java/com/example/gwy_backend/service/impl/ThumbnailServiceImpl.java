@@ -0,0 +1,316 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.cache.BoundedTtlCache;
+import com.example.gwy_backend.service.FileStorageStrategy;
+import com.example.gwy_backend.service.ThumbnailService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 javax.imageio 的缩略图生成。
+ * <p>
+ * 一次任务只解码一次原图：按最大的缺失尺寸计算解码时的子采样 (大图不必完整解码到内存)，
+ * 再从大到小逐级缩放，每一级以上一级的结果为源。输出为 RGB JPEG，透明区域填充白色。
+ * 先写入同目录的临时文件再原子移动，读取方不会看到写了一半的缩略图。
+ * 无法解码或像素过多的图片记入有界的失败缓存，过期前不再重复解码 (按需生成的请求直接返回原图)。
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    private static final String THUMBNAIL_MARKER = ".thumb-";
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "bmp");
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final List<Integer> sizes;
+    private final Duration waitTimeout;
+    private final long maxPixels;
+    private final float quality;
+    private final ThreadPoolExecutor executor;
+    // 单飞：原图路径 -> 正在进行的生成任务
+    private final ConcurrentHashMap<Path, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    // 文件标识符 -> 无法生成缩略图 (解码失败、像素过多)；写缩略图失败可能是暂时的，不记录
+    private final BoundedTtlCache<String, Boolean> failures;
+
+    @Autowired
+    public ThumbnailServiceImpl(FileStorageStrategy fileStorageStrategy,
+                                @Value("${file.thumbnail.sizes:128,256,512}") List<Integer> sizes,
+                                @Value("${file.thumbnail.threads:2}") int threads,
+                                @Value("${file.thumbnail.queue-capacity:100}") int queueCapacity,
+                                @Value("${file.thumbnail.wait-timeout:5s}") Duration waitTimeout,
+                                @Value("${file.thumbnail.max-pixels:50000000}") long maxPixels,
+                                @Value("${file.thumbnail.quality:0.8}") float quality,
+                                @Value("${file.thumbnail.failure-cache.max-size:10000}") int failureCacheSize,
+                                @Value("${file.thumbnail.failure-cache.ttl:1h}") Duration failureCacheTtl) {
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.sizes = sizes.stream().filter(s -> s > 0).distinct().sorted().toList();
+        this.waitTimeout = waitTimeout;
+        this.maxPixels = maxPixels;
+        this.quality = quality;
+        this.failures = new BoundedTtlCache<>(failureCacheSize, failureCacheTtl);
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }); // 默认 AbortPolicy：队列满时抛 RejectedExecutionException，由调用方决定跳过
+        this.executor.allowCoreThreadTimeOut(true);
+        log.info("Thumbnail service initialized: sizes={}, threads={}, queueCapacity={}", this.sizes, poolSize, queueCapacity);
+    }
+
+    @Override
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    @Override
+    public boolean isThumbnailable(String fileIdentifier) {
+        if (!StringUtils.hasText(fileIdentifier) || fileIdentifier.contains(THUMBNAIL_MARKER)) {
+            return false;
+        }
+        String extension = StringUtils.getFilenameExtension(fileIdentifier);
+        return extension != null && IMAGE_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT))
+                && failures.get(fileIdentifier) == null;
+    }
+
+    @Override
+    public void generateAsync(String fileIdentifier) {
+        if (!isThumbnailable(fileIdentifier)) {
+            return;
+        }
+        try {
+            submit(fileIdentifier, fileStorageStrategy.getFilePath(fileIdentifier, null));
+        } catch (RejectedExecutionException e) {
+            log.warn("Thumbnail queue is full, skipped {} (will be generated on first access).", fileIdentifier);
+        } catch (RuntimeException e) {
+            log.warn("Could not schedule thumbnail generation for {}", fileIdentifier, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> getThumbnail(String fileIdentifier, int size) {
+        if (!sizes.contains(size)) {
+            throw new IllegalArgumentException("Unsupported thumbnail size " + size + ", expected one of " + sizes + ".");
+        }
+        if (!isThumbnailable(fileIdentifier)) {
+            return Optional.empty();
+        }
+        Path source = fileStorageStrategy.getFilePath(fileIdentifier, null);
+        Path target = thumbnailPath(source, size);
+        if (Files.exists(target)) {
+            return Optional.of(target);
+        }
+        if (!Files.exists(source)) {
+            return Optional.empty();
+        }
+        try {
+            submit(fileIdentifier, source).get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Thumbnail queue is full, serving original for {}", fileIdentifier);
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            log.warn("Thumbnail generation for {} did not finish within {}, serving original.", fileIdentifier, waitTimeout);
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty(); // 失败已在任务完成时记录
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        return Files.exists(target) ? Optional.of(target) : Optional.empty();
+    }
+
+    // 提交 (或加入已在进行的) 生成任务
+    private CompletableFuture<Void> submit(String fileIdentifier, Path source) {
+        CompletableFuture<Void> future = inFlight.computeIfAbsent(source,
+                s -> CompletableFuture.runAsync(() -> {
+                    try {
+                        generateMissing(fileIdentifier, s);
+                    } catch (RuntimeException e) {
+                        log.warn("Thumbnail generation failed for {}", fileIdentifier, e);
+                        throw e;
+                    }
+                }, executor));
+        // 任务可能在放入 map 之前就已完成，所以在这里而不是在任务内部移除
+        future.whenComplete((ignored, error) -> inFlight.remove(source, future));
+        return future;
+    }
+
+    private static Path thumbnailPath(Path source, int size) {
+        return source.resolveSibling(source.getFileName().toString() + THUMBNAIL_MARKER + size + ".jpg");
+    }
+
+    private void generateMissing(String fileIdentifier, Path source) {
+        List<Integer> missing = new ArrayList<>();
+        for (Integer size : sizes) {
+            if (!Files.exists(thumbnailPath(source, size))) {
+                missing.add(size);
+            }
+        }
+        if (missing.isEmpty() || !Files.exists(source)) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        BufferedImage image;
+        try {
+            image = decode(source, missing.get(missing.size() - 1));
+        } catch (IOException e) {
+            failures.put(fileIdentifier, Boolean.TRUE); // 损坏的图片：同样的内容再解码也会失败
+            throw new UncheckedIOException("Could not decode " + fileIdentifier, e);
+        } catch (RuntimeException e) {
+            failures.put(fileIdentifier, Boolean.TRUE); // 部分解码器遇到损坏数据时抛运行时异常
+            throw e;
+        }
+        if (image == null) {
+            failures.put(fileIdentifier, Boolean.TRUE);
+            log.info("Not a decodable image, no thumbnails for {}", fileIdentifier);
+            return;
+        }
+        try {
+            for (int i = missing.size() - 1; i >= 0; i--) { // 从大到小，逐级缩放
+                int size = missing.get(i);
+                image = scaleDown(image, size);
+                writeJpeg(image, thumbnailPath(source, size));
+            }
+            log.info("Generated {} thumbnail(s) for {} in {} ms", missing.size(), fileIdentifier,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not generate thumbnails for " + fileIdentifier, e);
+        }
+    }
+
+    // 解码原图；子采样使解码结果的长边不小于目标尺寸的两倍，避免把大图完整读入内存
+    private BufferedImage decode(Path source, int largestSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Image {} is too large for thumbnails ({}x{}).", source.getFileName(), width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (largestSize * 2));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 缩放到长边不超过 maxEdge (不放大)；每次最多缩小一半，双线性插值下质量接近面积平均
+    private static BufferedImage scaleDown(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = result.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE); // JPEG 不支持透明
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return result;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), ".thumb-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(tempFile.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow(); // 未完成的缩略图下次访问时再生成
+    }
+}
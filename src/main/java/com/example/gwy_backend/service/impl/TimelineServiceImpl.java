@@ -1,66 +1,153 @@
 package com.example.gwy_backend.service.impl;
 
+import com.example.gwy_backend.cache.DataVersions;
+import com.example.gwy_backend.config.CacheConfig;
+import com.example.gwy_backend.dto.TimelineTaskView;
 import com.example.gwy_backend.entity.TimelineTask;
 import com.example.gwy_backend.repository.TimelineTaskRepository;
 import com.example.gwy_backend.service.TimelineService;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+/**
+ * 备考时间线任务。每个用户各有一份任务列表，首次访问时从启动时登记的初始任务模板复制。
+ * 缓存键为 "用户:数据版本:视图"，缓存的是不可变快照。版本在事务提交后递增，
+ * 提交前开始的读取即使随后放入旧数据，也放在不会再被命中的旧键下。
+ */
 @Service
 public class TimelineServiceImpl implements TimelineService {
 
+    private static final Logger log = LoggerFactory.getLogger(TimelineServiceImpl.class);
+    private static final String CURRENT_USER = "T(com.example.gwy_backend.util.UserContext).currentUserId()";
+    private static final String USER_KEY = CURRENT_USER + " + ':' + @dataVersions.current('" + DataVersions.TIMELINE + "', "
+            + CURRENT_USER + ") + ':'";
+
     private final TimelineTaskRepository taskRepository;
+    private final DataVersions dataVersions;
+    private final TransactionTemplate seedTransaction; // 复制模板使用独立事务，提交后其他请求立即可见
+    private final ReentrantLock seedLock = new ReentrantLock(); // 避免同一用户并发复制导致主键冲突
+    private volatile List<TimelineTask> template = List.of();
 
     @Autowired
-    public TimelineServiceImpl(TimelineTaskRepository taskRepository) {
+    public TimelineServiceImpl(TimelineTaskRepository taskRepository, PlatformTransactionManager transactionManager,
+                               DataVersions dataVersions) {
         this.taskRepository = taskRepository;
+        this.dataVersions = dataVersions;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.TIMELINE_TASKS, key = USER_KEY + " + 'byPhase'") // 命中时不查库也不开事务
     @Transactional(readOnly = true)
-    public Map<String, List<TimelineTask>> getAllTasksGroupedByPhase() {
-        // 获取所有任务并按 phase 分组
-        List<TimelineTask> allTasks = taskRepository.findAllByOrderByPhaseAsc(); // 按阶段排序获取
-        return allTasks.stream()
-                .collect(Collectors.groupingBy(TimelineTask::getPhase));
+    public Map<String, List<TimelineTaskView>> getAllTasksGroupedByPhase() {
+        // 获取所有任务并按 phase 分组 (保持阶段顺序)
+        List<TimelineTaskView> allTasks = loadTasks(UserContext.currentUserId()); // 按阶段排序获取
+        return Collections.unmodifiableMap(allTasks.stream()
+                .collect(Collectors.groupingBy(TimelineTaskView::phase, LinkedHashMap::new, Collectors.toUnmodifiableList())));
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.TIMELINE_TASKS, key = USER_KEY + " + 'list'")
     @Transactional(readOnly = true)
-    public List<TimelineTask> getAllTasksList() {
-        return taskRepository.findAllByOrderByPhaseAsc(); // 直接返回排序列表
+    public List<TimelineTaskView> getAllTasksList() {
+        return loadTasks(UserContext.currentUserId()); // 直接返回排序列表
     }
 
-
     @Override
-    @Transactional
     public void initializeTasks(List<TimelineTask> initialTasks) {
-        // 检查数据库是否已存在任务，如果存在则不进行初始化
-        if (taskRepository.count() > 0) {
-            System.out.println("Tasks already initialized, skipping.");
-            return;
-        }
-        // 批量保存初始任务列表
-        if (initialTasks != null && !initialTasks.isEmpty()) {
-            taskRepository.saveAll(initialTasks);
-            System.out.println("Initialized " + initialTasks.size() + " timeline tasks.");
-        }
+        // 只登记初始任务模板 (在 @PostConstruct 中调用，此时 UserIdBackfill 还没有把旧数据归属到默认用户)
+        template = initialTasks == null ? List.of() : List.copyOf(initialTasks);
+    }
+
+    /**
+     * 启动完成后初始化默认用户的任务列表 (已存在任务时跳过)。排在 UserIdBackfill 之后，
+     * 旧数据已归属到默认用户；启动期间的请求可能缓存了回填前的空列表，这里一并失效。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @CacheEvict(cacheNames = CacheConfig.TIMELINE_TASKS, allEntries = true)
+    public void initializeDefaultUserTasks() {
+        seedIfMissing(UserContext.DEFAULT_USER_ID);
+        dataVersions.bumpAll(DataVersions.TIMELINE);
     }
 
     @Override
+    // 版本在提交后才递增，这里按调用前的版本键提前释放旧快照；提交前并发读取放回的旧数据在版本递增后不会再被命中
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.TIMELINE_TASKS, key = USER_KEY + " + 'byPhase'", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.TIMELINE_TASKS, key = USER_KEY + " + 'list'", beforeInvocation = true)
+    })
     @Transactional
     public boolean updateTaskCompletion(String taskId, boolean completed) {
-        // 调用 Repository 的更新方法
+        String userId = UserContext.currentUserId();
+        seedIfMissing(userId);
         // updateTaskCompletion 返回受影响的行数，大于 0 表示更新成功
-        int updatedRows = taskRepository.updateTaskCompletion(taskId, completed);
+        int updatedRows = taskRepository.updateTaskCompletion(userId, taskId, completed);
+        if (updatedRows > 0) {
+            dataVersions.bump(DataVersions.TIMELINE, userId);
+        }
         return updatedRows > 0;
     }
 
+    private List<TimelineTaskView> loadTasks(String userId) {
+        List<TimelineTask> tasks = taskRepository.findByUserIdOrderByPhaseAsc(userId);
+        if (tasks.isEmpty() && seedIfMissing(userId)) {
+            tasks = taskRepository.findByUserIdOrderByPhaseAsc(userId);
+        }
+        return tasks.stream().map(TimelineTaskView::from).toList();
+    }
+
+    // 用户还没有任务时从模板复制一份，返回是否复制了
+    private boolean seedIfMissing(String userId) {
+        List<TimelineTask> tasks = template;
+        if (tasks.isEmpty()) {
+            return false;
+        }
+        seedLock.lock();
+        try {
+            Boolean seeded = seedTransaction.execute(status -> {
+                // 回填前旧数据的 user_id 为空串且仍占着旧的单列主键，它们属于默认用户，不能再复制
+                Collection<String> owners = UserContext.DEFAULT_USER_ID.equals(userId) ? List.of(userId, "") : List.of(userId);
+                if (taskRepository.existsByUserIdIn(owners)) {
+                    return false;
+                }
+                taskRepository.saveAll(tasks.stream()
+                        .map(t -> new TimelineTask(userId, t.getId(), t.getLabel(), t.getPhase(), t.isCompleted()))
+                        .toList());
+                return true;
+            });
+            if (Boolean.TRUE.equals(seeded)) {
+                log.info("Initialized {} timeline tasks for user {}.", tasks.size(), userId);
+            }
+            return Boolean.TRUE.equals(seeded);
+        } finally {
+            seedLock.unlock();
+        }
+    }
+
     // (可选) 批量更新实现
     // @Override
     // @Transactional
@@ -68,6 +155,6 @@ public class TimelineServiceImpl implements TimelineService {
     //     if (taskIds == null || taskIds.isEmpty()) {
     //         return 0;
     //     }
-    //     return taskRepository.updateCompletionStatusForIds(taskIds, completed);
+    //     return taskRepository.updateCompletionStatusForIds(UserContext.currentUserId(), taskIds, completed);
     // }
-}
\ No newline at end of file
+}
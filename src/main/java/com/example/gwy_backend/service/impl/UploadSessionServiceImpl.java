@@ -0,0 +1,379 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.dto.UploadSessionRequest;
+import com.example.gwy_backend.dto.UploadSessionStatus;
+import com.example.gwy_backend.service.UploadSessionService;
+import com.example.gwy_backend.util.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionServiceImpl.class);
+
+    private static final String SESSION_DIRECTORY = ".upload-sessions"; // 位于上传根目录下，保证完成后能原子移动
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final class UploadSession {
+        private final String id;
+        private final String userId; // 创建会话的用户，只有该用户可以写入、查询、完成或放弃
+        private final String filename;
+        private final String type;
+        private final Long entityId;
+        private final long size;
+        private final int chunkSize;
+        private final int totalChunks;
+        private final Path partFile;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BitSet received; // 以下字段由 lock 保护
+        private final BitSet writing;  // 正在写入的分片
+        private boolean finished;      // 已完成或已放弃，不再接受写入
+        private int activeWrites;
+        private volatile long lastActivityMillis;
+
+        private UploadSession(String id, String userId, UploadSessionRequest request, int chunkSize, int totalChunks, Path partFile) {
+            this.id = id;
+            this.userId = userId;
+            this.filename = request.filename();
+            this.type = request.type();
+            this.entityId = request.entityId();
+            this.size = request.size();
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+            this.partFile = partFile;
+            this.received = new BitSet(totalChunks);
+            this.writing = new BitSet(totalChunks);
+            this.lastActivityMillis = System.currentTimeMillis();
+        }
+    }
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSessions = new AtomicInteger(); // 含正在创建的会话，先占位再创建
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Value("${file.upload.chunked.max-file-size:1GB}")
+    private DataSize maxFileSize;
+
+    @Value("${file.upload.chunked.default-chunk-size:4MB}")
+    private DataSize defaultChunkSize;
+
+    @Value("${file.upload.session.ttl:1h}")
+    private Duration sessionTtl;
+
+    @Value("${file.upload.session.max-active:20}")
+    private int maxActiveSessions;
+
+    private Path sessionLocation;
+
+    @PostConstruct
+    public void init() {
+        try {
+            sessionLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(SESSION_DIRECTORY);
+            Files.createDirectories(sessionLocation);
+            // 会话只在内存中，重启前留下的临时文件已无法续传
+            int removed = 0;
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(sessionLocation, "*.part")) {
+                for (Path leftover : leftovers) {
+                    Files.deleteIfExists(leftover);
+                    removed++;
+                }
+            }
+            log.info("Initialized upload session directory at {} (removed {} stale part file(s)).", sessionLocation, removed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize upload session directory", e);
+        }
+    }
+
+    @Override
+    public UploadSessionStatus createSession(UploadSessionRequest request) {
+        if (request == null || !StringUtils.hasText(request.filename()) || request.entityId() == null) {
+            throw new IllegalArgumentException("filename and entityId are required.");
+        }
+        if (request.size() <= 0 || request.size() > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File size must be between 1 byte and " + maxFileSize + ".");
+        }
+        String userId = UserContext.currentUserId();
+        reserveSessionSlot();
+        int chunkSize = request.chunkSize() != null ? request.chunkSize() : (int) defaultChunkSize.toBytes();
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+        int totalChunks = (int) ((request.size() + chunkSize - 1) / chunkSize);
+
+        String id = UUID.randomUUID().toString();
+        Path partFile = sessionLocation.resolve(id + ".part");
+        try (RandomAccessFile file = new RandomAccessFile(partFile.toFile(), "rw")) {
+            file.setLength(request.size()); // 预分配 (多数文件系统上为稀疏文件，不会立即占满磁盘)
+        } catch (IOException e) {
+            activeSessions.decrementAndGet();
+            throw new UncheckedIOException("Could not allocate upload file", e);
+        }
+        UploadSession session = new UploadSession(id, userId, request, chunkSize, totalChunks, partFile);
+        sessions.put(id, session);
+        log.info("Created upload session {} for {} ({} bytes, {} chunks of {} bytes).",
+                id, request.filename(), request.size(), totalChunks, chunkSize);
+        return toStatus(session);
+    }
+
+    @Override
+    public Optional<UploadSessionStatus> writeChunk(String uploadId, long offset, long length, String sha256, InputStream content) {
+        UploadSession session = ownedSession(uploadId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (offset < 0 || offset >= session.size || offset % session.chunkSize != 0) {
+            throw new IllegalArgumentException("Offset must be a multiple of the chunk size within the file.");
+        }
+        long expectedLength = Math.min(session.chunkSize, session.size - offset);
+        if (length >= 0 && length != expectedLength) {
+            throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expectedLength + " bytes.");
+        }
+        byte[] expectedDigest = parseSha256(sha256);
+        int chunkIndex = (int) (offset / session.chunkSize);
+
+        session.lock.lock();
+        try {
+            if (session.finished) {
+                throw new IllegalStateException("Upload session is already finished.");
+            }
+            if (session.writing.get(chunkIndex)) {
+                throw new IllegalStateException("Chunk " + chunkIndex + " is already being written.");
+            }
+            // 重传会覆盖文件中已有的字节，校验通过之前该分片不再算作已接收
+            session.writing.set(chunkIndex);
+            session.received.clear(chunkIndex);
+            session.activeWrites++;
+            session.lastActivityMillis = System.currentTimeMillis();
+        } finally {
+            session.lock.unlock();
+        }
+
+        boolean valid = false;
+        try {
+            MessageDigest digest = newSha256();
+            // 请求体直接写入预分配文件的对应位置，同时计算摘要；不同分片可以并发写入
+            try (FileChannel channel = FileChannel.open(session.partFile, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(new DigestInputStream(content, digest))) {
+                long written = 0;
+                while (written < expectedLength) {
+                    long n = channel.transferFrom(source, offset + written, expectedLength - written);
+                    if (n <= 0) {
+                        break;
+                    }
+                    written += n;
+                }
+                if (written != expectedLength) {
+                    throw new IllegalArgumentException("Chunk body ended after " + written + " of " + expectedLength + " bytes.");
+                }
+                if (length < 0 && content.read() != -1) { // 长度未知时 (分块传输编码) 请求体不能超出分片
+                    throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expectedLength + " bytes.");
+                }
+            }
+            if (!MessageDigest.isEqual(expectedDigest, digest.digest())) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk " + chunkIndex + ".");
+            }
+            valid = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write chunk " + chunkIndex + " of upload " + uploadId, e);
+        } finally {
+            session.lock.lock();
+            try {
+                session.activeWrites--;
+                session.writing.clear(chunkIndex);
+                if (valid) {
+                    session.received.set(chunkIndex);
+                }
+                session.lastActivityMillis = System.currentTimeMillis();
+            } finally {
+                session.lock.unlock();
+            }
+        }
+        return Optional.of(toStatus(session));
+    }
+
+    @Override
+    public Optional<UploadSessionStatus> getStatus(String uploadId) {
+        return Optional.ofNullable(ownedSession(uploadId)).map(this::toStatus);
+    }
+
+    @Override
+    public Optional<CompletedUpload> complete(String uploadId) {
+        UploadSession session = ownedSession(uploadId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        session.lock.lock();
+        try {
+            if (session.finished) {
+                return Optional.empty();
+            }
+            int received = session.received.cardinality();
+            if (received < session.totalChunks) {
+                throw new IllegalStateException((session.totalChunks - received) + " chunk(s) are still missing.");
+            }
+            if (session.activeWrites > 0) {
+                throw new IllegalStateException("Chunk writes are still in progress.");
+            }
+            session.finished = true;
+        } finally {
+            session.lock.unlock();
+        }
+        removeSession(session);
+        log.info("Upload session {} completed ({} bytes).", uploadId, session.size);
+        return Optional.of(new CompletedUpload(session.partFile, session.filename, session.type, session.entityId));
+    }
+
+    @Override
+    public boolean abort(String uploadId) {
+        UploadSession session = ownedSession(uploadId);
+        if (session == null || !removeSession(session)) {
+            return false;
+        }
+        discard(session, "aborted");
+        return true;
+    }
+
+    /**
+     * 当前用户的会话。其他用户的会话按不存在处理，不透露该 ID 是否有效。
+     */
+    private UploadSession ownedSession(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        return session != null && session.userId.equals(UserContext.currentUserId()) ? session : null;
+    }
+
+    /**
+     * 定期清理长时间无活动的会话及其临时文件。
+     */
+    @Scheduled(fixedDelayString = "${file.upload.session.cleanup-interval-ms:60000}")
+    public void expireAbandonedSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtl.toMillis();
+        for (UploadSession session : sessions.values()) {
+            boolean expired;
+            session.lock.lock();
+            try {
+                expired = !session.finished && session.activeWrites == 0 && session.lastActivityMillis < cutoff;
+                if (expired) {
+                    session.finished = true;
+                }
+            } finally {
+                session.lock.unlock();
+            }
+            if (expired && removeSession(session)) {
+                discard(session, "expired");
+            }
+        }
+    }
+
+    /**
+     * 在活动会话数未达上限时占用一个名额；检查和占用是一次原子操作，并发创建不会超过上限。
+     */
+    private void reserveSessionSlot() {
+        int current;
+        do {
+            current = activeSessions.get();
+            if (current >= maxActiveSessions) {
+                throw new IllegalStateException("Too many active upload sessions.");
+            }
+        } while (!activeSessions.compareAndSet(current, current + 1));
+    }
+
+    // 只有真正移除了会话的调用方释放名额
+    private boolean removeSession(UploadSession session) {
+        if (sessions.remove(session.id, session)) {
+            activeSessions.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void discard(UploadSession session, String reason) {
+        session.lock.lock();
+        try {
+            session.finished = true;
+        } finally {
+            session.lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(session.partFile);
+        } catch (IOException e) {
+            log.warn("Could not delete part file {}", session.partFile, e);
+        }
+        log.info("Upload session {} {} ({} of {} chunks received).",
+                session.id, reason, session.received.cardinality(), session.totalChunks);
+    }
+
+    private UploadSessionStatus toStatus(UploadSession session) {
+        List<Integer> missing = new ArrayList<>();
+        int received;
+        session.lock.lock();
+        try {
+            received = session.received.cardinality();
+            for (int i = session.received.nextClearBit(0); i < session.totalChunks; i = session.received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+        } finally {
+            session.lock.unlock();
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(session.lastActivityMillis).plus(sessionTtl), ZoneId.systemDefault());
+        return new UploadSessionStatus(session.id, session.filename, session.size, session.chunkSize,
+                session.totalChunks, received, missing, expiresAt);
+    }
+
+    private static byte[] parseSha256(String sha256) {
+        if (sha256 == null || sha256.length() != 64) {
+            throw new IllegalArgumentException("A hex SHA-256 checksum of the chunk is required.");
+        }
+        try {
+            return HexFormat.of().parseHex(sha256);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("A hex SHA-256 checksum of the chunk is required.", e);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
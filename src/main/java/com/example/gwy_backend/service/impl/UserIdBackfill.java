@@ -0,0 +1,50 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.util.UserContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 启动时回填：升级到按用户隔离的版本后，旧数据的 user_id 列由 ddl-auto 以空字符串补齐，
+ * 这里统一归属到默认用户。必须先于其他启动回填 (错题统计、学习时长聚合、默认用户的时间线任务等) 执行。
+ * <p>
+ * 旧的全局唯一索引和 timeline_task 主键不会被 ddl-auto 修改，需要执行
+ * {@code db/migration-user-partitioning.sql}。
+ */
+@Component
+public class UserIdBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIdBackfill.class);
+
+    // 带 userId 列的实体 (JPQL 实体名)
+    private static final List<String> PARTITIONED_ENTITIES = List.of(
+            "StudyLog", "StudyTimeRollup", "DailyActivityLog", "ErrorLogEntry", "ErrorStat", "ErrorStatDaily",
+            "KnowledgeItem", "NoteEntry", "StudyGoal", "TimelineTask");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void assignLegacyRowsToDefaultUser() {
+        for (String entity : PARTITIONED_ENTITIES) {
+            int updated = entityManager.createQuery("UPDATE " + entity + " e SET e.userId = :userId WHERE e.userId = ''")
+                    .setParameter("userId", UserContext.DEFAULT_USER_ID)
+                    .executeUpdate();
+            if (updated > 0) {
+                log.info("Assigned {} legacy {} rows to user {}.", updated, entity, UserContext.DEFAULT_USER_ID);
+            }
+        }
+    }
+}
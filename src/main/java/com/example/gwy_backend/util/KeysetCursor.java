@@ -0,0 +1,41 @@
+package com.example.gwy_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 按 (时间, ID) 倒序翻页的游标：记录上一页最后一条的排序键。
+ * <p>
+ * 对外编码为 base64url 字符串，客户端不应解析其内容。
+ *
+ * @param time 最后一条的时间 (timestamp / startTime)
+ * @param id 最后一条的 ID，时间相同时用于确定先后
+ */
+public record KeysetCursor(LocalDateTime time, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = time + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标。
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) { // NumberFormatException 也是 IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
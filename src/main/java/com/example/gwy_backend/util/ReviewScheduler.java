@@ -0,0 +1,65 @@
+package com.example.gwy_backend.util;
+
+import com.example.gwy_backend.entity.ErrorLogEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * SM-2 间隔重复调度。
+ * <p>
+ * 每次复习给出回忆质量 0 ~ 5：
+ * <ul>
+ *   <li>质量 >= 3 (答对)：间隔依次为 1 天、6 天，之后每次乘以难度系数；</li>
+ *   <li>质量 &lt; 3 (答错)：连续次数清零，1 天后重新复习。</li>
+ * </ul>
+ * 难度系数按 EF' = EF + (0.1 - (5 - q) * (0.08 + (5 - q) * 0.02)) 调整，最低 1.3。
+ */
+public final class ReviewScheduler {
+
+    public static final int MIN_QUALITY = 0;
+    public static final int MAX_QUALITY = 5;
+    /** 旧客户端不传质量时使用：答对但有犹豫。 */
+    public static final int DEFAULT_QUALITY = 4;
+
+    private static final double MIN_EASE_FACTOR = 1.3;
+    private static final int MAX_INTERVAL_DAYS = 365;
+
+    private ReviewScheduler() {
+    }
+
+    /**
+     * 记录一次复习并计算下次复习时间 (直接修改传入的条目)。
+     * @param entry 错题
+     * @param quality 回忆质量 0 ~ 5
+     * @param now 复习时间
+     * @throws IllegalArgumentException 质量不在 0 ~ 5 之间
+     */
+    public static void review(ErrorLogEntry entry, int quality, LocalDateTime now) {
+        if (quality < MIN_QUALITY || quality > MAX_QUALITY) {
+            throw new IllegalArgumentException("Review quality must be between " + MIN_QUALITY + " and " + MAX_QUALITY + ".");
+        }
+        double easeFactor = entry.getEaseFactor() >= MIN_EASE_FACTOR ? entry.getEaseFactor() : ErrorLogEntry.INITIAL_EASE_FACTOR;
+        int interval;
+        if (quality >= 3) {
+            if (entry.getRepetitions() == 0) {
+                interval = 1;
+            } else if (entry.getRepetitions() == 1) {
+                interval = 6;
+            } else {
+                interval = (int) Math.round(Math.max(1, entry.getIntervalDays()) * easeFactor);
+            }
+            entry.setRepetitions(entry.getRepetitions() + 1);
+        } else {
+            interval = 1;
+            entry.setRepetitions(0);
+        }
+        int distance = MAX_QUALITY - quality;
+        easeFactor += 0.1 - distance * (0.08 + distance * 0.02);
+
+        entry.setEaseFactor(Math.max(MIN_EASE_FACTOR, easeFactor));
+        entry.setIntervalDays(Math.min(interval, MAX_INTERVAL_DAYS));
+        entry.setNextReviewAt(now.plusDays(entry.getIntervalDays()));
+        entry.setReviewCount(entry.getReviewCount() + 1);
+        entry.setLastReviewDate(now);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.gwy_backend.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 解析列表接口的 {@code fields} 参数 (逗号分隔的字段名)，只允许白名单中的字段。
+ * <p>
+ * {@value #ID} 和 {@value #TIMESTAMP} 总是返回：它们是游标分页的排序键。
+ */
+public final class SparseFields {
+
+    public static final String ID = "id";
+    public static final String TIMESTAMP = "timestamp";
+
+    private SparseFields() {
+    }
+
+    /**
+     * @param fields 客户端传入的字段列表，如 {@code "title,category"}
+     * @param allowed 允许选择的字段白名单
+     * @return 去重后的字段，id 和 timestamp 在前，其余保持请求顺序
+     * @throws IllegalArgumentException 包含白名单以外的字段
+     */
+    public static List<String> parse(String fields, List<String> allowed) {
+        Set<String> selected = new LinkedHashSet<>(List.of(ID, TIMESTAMP));
+        if (fields != null) {
+            for (String raw : fields.split(",")) {
+                String field = raw.trim();
+                if (field.isEmpty()) {
+                    continue;
+                }
+                if (!allowed.contains(field)) {
+                    throw new IllegalArgumentException("Unknown field '" + field + "', allowed: " + String.join(",", allowed));
+                }
+                selected.add(field);
+            }
+        }
+        return new ArrayList<>(selected);
+    }
+
+    /**
+     * 从投影结果的一行提取游标键。
+     */
+    public static KeysetCursor cursorOf(Map<String, Object> row) {
+        return new KeysetCursor((LocalDateTime) row.get(TIMESTAMP), (Long) row.get(ID));
+    }
+}
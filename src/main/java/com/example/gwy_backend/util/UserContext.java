@@ -0,0 +1,95 @@
+package com.example.gwy_backend.util;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 当前请求所属用户。
+ * <p>
+ * 由 {@code UserIdFilter} 从请求头 {@value #HEADER} 读取并绑定到请求线程，所有按用户隔离的查询都用它取用户 ID；
+ * 没有该请求头时视为 {@value #DEFAULT_USER_ID} (升级前的单用户数据也归属于它)，这个默认值只在过滤器中使用。
+ * 在其他线程 (流式导出、事件管道等) 中使用时，需要先在请求线程中取出用户 ID，再用 {@link #callAs} / {@link #runAs} 绑定；
+ * 忘记绑定时 {@link #currentUserId()} 直接抛出异常，而不是悄悄读写默认用户的数据。
+ */
+public final class UserContext {
+
+    public static final String HEADER = "X-User-Id";
+    public static final String DEFAULT_USER_ID = "default_user";
+    public static final int USER_ID_MAX_LENGTH = 64;
+
+    private static final Pattern VALID_USER_ID = Pattern.compile("[A-Za-z0-9_.@-]{1," + USER_ID_MAX_LENGTH + "}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private UserContext() {
+    }
+
+    /**
+     * 当前线程绑定的用户 ID。
+     * @throws IllegalStateException 当前线程没有绑定用户
+     */
+    public static String currentUserId() {
+        String userId = CURRENT.get();
+        if (userId == null) {
+            throw new IllegalStateException("No user is bound to thread " + Thread.currentThread().getName()
+                    + "; bind one with UserContext.callAs/runAs.");
+        }
+        return userId;
+    }
+
+    /**
+     * 用户 ID 只允许字母、数字和 {@code _ . @ -}，长度 1 ~ {@value #USER_ID_MAX_LENGTH}。
+     */
+    public static boolean isValid(String userId) {
+        return userId != null && VALID_USER_ID.matcher(userId).matches();
+    }
+
+    /**
+     * 把用户绑定到当前线程，关闭返回的 Scope 时恢复之前的绑定 (在 finally 中关闭)。
+     * @throws IllegalArgumentException 用户 ID 无效
+     */
+    public static Scope bind(String userId) {
+        if (!isValid(userId)) {
+            throw new IllegalArgumentException("Invalid user id.");
+        }
+        String previous = CURRENT.get();
+        CURRENT.set(userId);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 以指定用户身份执行。
+     * @throws IllegalArgumentException 用户 ID 无效
+     */
+    public static <T> T callAs(String userId, Supplier<T> action) {
+        Scope scope = bind(userId);
+        try {
+            return action.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    public static void runAs(String userId, Runnable action) {
+        Scope scope = bind(userId);
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * 一次绑定，关闭时解除 (不抛受检异常)。
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
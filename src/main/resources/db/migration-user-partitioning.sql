@@ -0,0 +1,61 @@
+-- 按用户隔离数据 (请求头 X-User-Id) 的一次性迁移脚本 (MySQL)
+--
+-- 先用新版本启动一次应用：ddl-auto=update 会添加 user_id 列和新索引，UserIdBackfill 会把旧数据归属到 default_user。
+-- 然后停止应用执行本脚本：ddl-auto 不会删除旧的全局唯一索引，也不会修改 timeline_task 的主键，
+-- 不执行的话第二个用户写入相同日期 / 幂等键 / 任务 ID 时会违反旧的唯一约束。
+-- 脚本可以重复执行 (已删除的索引会被跳过)。
+
+-- 1. 旧数据归属到默认用户 (与 UserIdBackfill 相同，便于在应用启动前单独执行)
+UPDATE study_log SET user_id = 'default_user' WHERE user_id = '';
+UPDATE study_time_rollup SET user_id = 'default_user' WHERE user_id = '';
+UPDATE daily_activity_log SET user_id = 'default_user' WHERE user_id = '';
+UPDATE error_log_entry SET user_id = 'default_user' WHERE user_id = '';
+UPDATE error_stat SET user_id = 'default_user' WHERE user_id = '';
+UPDATE error_stat_daily SET user_id = 'default_user' WHERE user_id = '';
+UPDATE knowledge_item SET user_id = 'default_user' WHERE user_id = '';
+UPDATE note_entry SET user_id = 'default_user' WHERE user_id = '';
+UPDATE study_goal SET user_id = 'default_user' WHERE user_id = '';
+UPDATE timeline_task SET user_id = 'default_user' WHERE user_id = '';
+
+-- 2. 删除旧索引 (已被以 user_id 开头的新索引取代)
+DROP PROCEDURE IF EXISTS drop_index_if_exists;
+DELIMITER //
+CREATE PROCEDURE drop_index_if_exists(IN tbl VARCHAR(64), IN idx VARCHAR(64))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx) THEN
+        SET @ddl = CONCAT('ALTER TABLE `', tbl, '` DROP INDEX `', idx, '`');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+CALL drop_index_if_exists('study_log', 'uk_study_log_client_key');
+CALL drop_index_if_exists('study_log', 'idx_study_log_start_time_id');
+CALL drop_index_if_exists('study_time_rollup', 'idx_rollup_period');
+CALL drop_index_if_exists('daily_activity_log', 'idx_activity_date');
+CALL drop_index_if_exists('error_log_entry', 'idx_error_timestamp_id');
+CALL drop_index_if_exists('error_log_entry', 'idx_error_subject_timestamp_id');
+CALL drop_index_if_exists('error_log_entry', 'idx_error_next_review_subject');
+CALL drop_index_if_exists('error_stat', 'idx_error_stat_key');
+CALL drop_index_if_exists('error_stat_daily', 'idx_error_stat_daily_key');
+CALL drop_index_if_exists('knowledge_item', 'idx_knowledge_timestamp_id');
+CALL drop_index_if_exists('knowledge_item', 'idx_knowledge_category_timestamp_id');
+CALL drop_index_if_exists('note_entry', 'idx_note_timestamp_id');
+CALL drop_index_if_exists('timeline_task', 'idx_task_phase');
+
+-- daily_activity_log.activity_date 上由旧版 @Column(unique = true) 生成的唯一约束，名称由 Hibernate 生成 (UK 开头)
+SET @uk = (SELECT s.index_name FROM information_schema.statistics s
+           WHERE s.table_schema = DATABASE() AND s.table_name = 'daily_activity_log' AND s.non_unique = 0
+             AND s.index_name <> 'PRIMARY'
+           GROUP BY s.index_name
+           HAVING COUNT(*) = 1 AND MAX(s.column_name) = 'activity_date'
+           LIMIT 1);
+CALL drop_index_if_exists('daily_activity_log', IFNULL(@uk, ''));
+
+DROP PROCEDURE drop_index_if_exists;
+
+-- 3. timeline_task 主键改为 (user_id, id)
+ALTER TABLE timeline_task DROP PRIMARY KEY, ADD PRIMARY KEY (user_id, id);
@@ -0,0 +1,251 @@
+package com.example.gwy_backend.listener;
+
+import com.example.gwy_backend.entity.StudyLog;
+import com.example.gwy_backend.event.StudyLogAddedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudyLogEventPipelineTest {
+
+    private final StudyLogFence fence = new StudyLogFence();
+    private final TransactionTemplate transaction = new TransactionTemplate(new NoOpTransactionManager());
+    private final List<Long> applied = new CopyOnWriteArrayList<>();
+    private StudyLogEventPipeline pipeline;
+    private boolean started;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        StudyLogBatchConsumer consumer = logs -> logs.forEach(log -> applied.add(log.getId()));
+        pipeline = new StudyLogEventPipeline(List.of(consumer), fence, new NoOpTransactionManager(),
+                100, 10, 0, 0, StudyLogEventPipeline.BackpressurePolicy.CALLER_RUNS);
+        // 先不启动消费线程，事件留在队列中
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (started) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void rebuildDiscardsEventsQueuedBeforeIt() throws Exception {
+        long before1 = addLog("u1");
+        long before2 = addLog("u2");
+        transaction.executeWithoutResult(status -> fence.enterRebuild());
+        long after = addLog("u1");
+
+        startPipeline();
+        awaitProcessed(3);
+
+        assertEquals(List.of(after), applied);
+        assertFalse(applied.contains(before1) || applied.contains(before2));
+        assertEquals(2L, pipeline.getMetrics().get("staleEvents"));
+    }
+
+    @Test
+    void clearDiscardsOnlyThatUsersQueuedEvents() throws Exception {
+        long cleared = addLog("u1");
+        long kept = addLog("u2");
+        transaction.executeWithoutResult(status -> fence.enterClear("u1"));
+        long afterClear = addLog("u1");
+
+        startPipeline();
+        awaitProcessed(3);
+
+        assertEquals(List.of(kept, afterClear), applied);
+        assertFalse(applied.contains(cleared));
+    }
+
+    @Test
+    void rolledBackRebuildKeepsQueuedEvents() throws Exception {
+        long queued = addLog("u1");
+        transaction.executeWithoutResult(status -> {
+            fence.enterRebuild();
+            status.setRollbackOnly();
+        });
+
+        startPipeline();
+        awaitProcessed(1);
+
+        assertEquals(List.of(queued), applied);
+    }
+
+    @Test
+    void rebuildWaitsForInFlightLogWriteAndDiscardsItsEvent() throws Exception {
+        startPipeline();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch written = new CountDownLatch(1);
+            CountDownLatch commit = new CountDownLatch(1);
+            Future<Long> inFlight = executor.submit(() -> addLog("u1", () -> {
+                written.countDown();
+                await(commit);
+            }));
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+
+            Future<?> rebuild = executor.submit(() -> transaction.executeWithoutResult(status -> fence.enterRebuild()));
+            assertThrows(TimeoutException.class, () -> rebuild.get(200, TimeUnit.MILLISECONDS)); // 等待进行中的日志事务
+            commit.countDown();
+            rebuild.get(5, TimeUnit.SECONDS);
+            long logId = inFlight.get(5, TimeUnit.SECONDS);
+
+            awaitProcessed(1);
+            assertFalse(applied.contains(logId)); // 已提交的日志由重建计入，事件被丢弃
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failingEventIsSkippedOnlyForItsConsumer() throws Exception {
+        List<Long> flaky = new CopyOnWriteArrayList<>();
+        StudyLogBatchConsumer failing = logs -> {
+            if (logs.stream().anyMatch(log -> log.getId() == 2L)) {
+                throw new IllegalStateException("bad event");
+            }
+            logs.forEach(log -> flaky.add(log.getId()));
+        };
+        StudyLogBatchConsumer healthy = logs -> logs.forEach(log -> applied.add(log.getId()));
+        pipeline = new StudyLogEventPipeline(List.of(failing, healthy), fence, new NoOpTransactionManager(),
+                100, 10, 0, 0, StudyLogEventPipeline.BackpressurePolicy.CALLER_RUNS);
+        long first = addLog("u1");
+        addLog("u1");
+        long third = addLog("u2");
+
+        startPipeline();
+        awaitProcessed(3);
+
+        assertEquals(List.of(first, third), flaky); // 逐个事件重试，只跳过出错的事件
+        assertEquals(3, applied.size()); // 其他消费者不受影响
+        assertEquals(1L, pipeline.getMetrics().get("consumerErrors"));
+    }
+
+    @Test
+    void callerRunsInsideScopeWaitsUntilScopeEnds() {
+        StudyLogBatchConsumer consumer = logs -> logs.forEach(log -> applied.add(log.getId()));
+        pipeline = new StudyLogEventPipeline(List.of(consumer), fence, new NoOpTransactionManager(),
+                1, 10, 0, 0, StudyLogEventPipeline.BackpressurePolicy.CALLER_RUNS);
+        addLog("u1"); // 占满队列 (消费线程未启动)
+
+        pipeline.beginCallerRunsScope();
+        long overflow = addLogPublishedOnCommit("u1");
+        assertTrue(applied.isEmpty()); // 提交回调中没有就地处理
+        pipeline.endCallerRunsScope();
+
+        assertEquals(List.of(overflow), applied);
+        assertEquals(1L, pipeline.getMetrics().get("callerRuns"));
+    }
+
+    @Test
+    void enteringOutsideTransactionFails() {
+        assertThrows(IllegalStateException.class, () -> fence.enterLogWrite("u1"));
+        assertThrows(IllegalStateException.class, fence::enterRebuild);
+    }
+
+    private void startPipeline() {
+        pipeline.start();
+        started = true;
+    }
+
+    private long addLog(String userId) {
+        return addLog(userId, () -> { });
+    }
+
+    // 模拟 PomodoroServiceImpl.addStudyLog：写入前进入栅栏，提交后 (AFTER_COMMIT) 发布事件
+    private long addLog(String userId, Runnable beforeCommit) {
+        StudyLog studyLog = new StudyLog();
+        StudyLogFence.Stamp stamp = transaction.execute(status -> {
+            StudyLogFence.Stamp entered = fence.enterLogWrite(userId);
+            synchronized (this) {
+                studyLog.setId(++nextId);
+            }
+            beforeCommit.run();
+            return entered;
+        });
+        studyLog.setUserId(userId);
+        studyLog.setStartTime(LocalDateTime.of(2024, 6, 1, 9, 0));
+        studyLog.setDurationSeconds(1500);
+        pipeline.onStudyLogAdded(new StudyLogAddedEvent(this, studyLog, stamp));
+        return studyLog.getId();
+    }
+
+    // 与 @TransactionalEventListener(AFTER_COMMIT) 相同，在事务的提交回调中发布
+    private long addLogPublishedOnCommit(String userId) {
+        StudyLog studyLog = new StudyLog();
+        studyLog.setId(++nextId);
+        studyLog.setUserId(userId);
+        studyLog.setStartTime(LocalDateTime.of(2024, 6, 1, 9, 0));
+        studyLog.setDurationSeconds(1500);
+        transaction.executeWithoutResult(status -> {
+            StudyLogFence.Stamp stamp = fence.enterLogWrite(userId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pipeline.onStudyLogAdded(new StudyLogAddedEvent(this, studyLog, stamp));
+                }
+            });
+        });
+        return studyLog.getId();
+    }
+
+    private void awaitProcessed(long events) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Long) pipeline.getMetrics().get("processedEvents") < events) {
+            assertTrue(System.currentTimeMillis() < deadline, "Pipeline did not process " + events + " event(s) in time.");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 不连接数据库，只驱动事务同步回调
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
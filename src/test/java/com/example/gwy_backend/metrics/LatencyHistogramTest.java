@@ -0,0 +1,74 @@
+package com.example.gwy_backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        Random random = new Random(42);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(10_000_000)); // 1 微秒 ~ 10 秒，对数均匀
+            histogram.record(values[i], false);
+        }
+        Arrays.sort(values);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimated = snapshot.percentile(quantile);
+            assertTrue(Math.abs(estimated - exact) <= exact / 16.0,
+                    "p" + quantile + ": estimated " + estimated + ", exact " + exact);
+        }
+        assertEquals(values[values.length - 1], snapshot.maxMicros());
+        assertEquals(values.length, snapshot.count());
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 16; value++) {
+            histogram.record(value, false);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(7, snapshot.percentile(0.5));
+        assertEquals(15, snapshot.percentile(1.0));
+    }
+
+    @Test
+    void percentileNeverExceedsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000, true);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.percentile(0.99)); // 桶中点大于 1000，取最大值
+        assertEquals(1, snapshot.errors());
+        assertEquals(0, LatencyHistogram.Snapshot.empty().percentile(0.99));
+    }
+
+    @Test
+    void mergedSnapshotsCombineCounts() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(100, false);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(50_000, true);
+        }
+
+        LatencyHistogram.Snapshot merged = fast.snapshot().merge(slow.snapshot());
+        assertEquals(100, merged.count());
+        assertEquals(10, merged.errors());
+        assertEquals(50_000, merged.maxMicros());
+        assertTrue(Math.abs(merged.percentile(0.5) - 100) <= 100 / 16.0);
+        assertTrue(Math.abs(merged.percentile(0.95) - 50_000) <= 50_000 / 16.0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.gwy_backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyTimerTest {
+
+    private static final long SLICE_MILLIS = 1000;
+
+    private final LatencyTimer timer = new LatencyTimer(SLICE_MILLIS, 4);
+
+    @Test
+    void windowCoversOnlyRecentSlices() {
+        timer.record(0, 10, false);
+        timer.record(1000, 20, false);
+        timer.record(2500, 30, true);
+
+        assertEquals(1, timer.snapshot(2500, 1).count());
+        assertEquals(2, timer.snapshot(2500, 2).count());
+        assertEquals(3, timer.snapshot(2500, 3).count());
+        assertEquals(3, timer.snapshot(2500, 0).count()); // 累计值
+        assertEquals(1, timer.snapshot(2500, 3).errors());
+    }
+
+    @Test
+    void windowExpiresWithoutNewWrites() {
+        timer.record(0, 10, false);
+
+        assertEquals(1, timer.snapshot(3999, 4).count());
+        assertEquals(0, timer.snapshot(4000, 4).count());
+        assertEquals(1, timer.snapshot(4000, 0).count());
+    }
+
+    @Test
+    void wrappingReplacesExpiredSlice() {
+        timer.record(100, 10, false);
+        timer.record(4100, 20, false); // 与第一个时间片落在同一位置
+
+        LatencyHistogram.Snapshot window = timer.snapshot(4100, 4);
+        assertEquals(1, window.count());
+        assertEquals(20, window.maxMicros());
+        assertEquals(2, timer.snapshot(4100, 0).count());
+    }
+
+    @Test
+    void lateWriteForReplacedSliceCountsOnlyInTotal() {
+        timer.record(4100, 20, false);
+        timer.record(100, 10_000, false); // 在旧时间片上停顿过久的写入
+
+        LatencyHistogram.Snapshot window = timer.snapshot(4100, 4);
+        assertEquals(1, window.count());
+        assertEquals(20, window.maxMicros());
+        assertEquals(2, timer.snapshot(4100, 0).count());
+    }
+
+    @Test
+    void concurrentRotationKeepsStaleWritesOutOfNewSlice() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 1; round <= 100; round++) {
+                long staleMillis = (round - 1) * 4 * SLICE_MILLIS; // 与当前时间片落在同一位置
+                long nowMillis = round * 4 * SLICE_MILLIS;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    long millis = t % 2 == 0 ? staleMillis : nowMillis;
+                    writers.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            timer.record(millis, 10, false);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> writer : writers) {
+                    writer.get(10, TimeUnit.SECONDS);
+                }
+
+                assertEquals(threads / 2 * perThread, timer.snapshot(nowMillis, 1).count(), "round " + round);
+            }
+            assertEquals(100L * threads * perThread, timer.snapshot(0, 0).count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
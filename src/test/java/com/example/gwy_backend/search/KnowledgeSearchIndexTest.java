@@ -0,0 +1,83 @@
+package com.example.gwy_backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KnowledgeSearchIndexTest {
+
+    private static final String USER = "alice";
+
+    @Test
+    void queryBigramsMatchSubstringsOnly() {
+        assertEquals(List.of(new BigramTokenizer.Token("判断", true), new BigramTokenizer.Token("断推", true),
+                        new BigramTokenizer.Token("推理", true), new BigramTokenizer.Token("java", false)),
+                BigramTokenizer.tokenizeQuery("判断推理, Java"));
+        assertEquals(List.of(new BigramTokenizer.Token("理", true)), BigramTokenizer.tokenizeQuery("理"));
+    }
+
+    @Test
+    void allQueryTermsMustMatch() {
+        KnowledgeSearchIndex index = readyIndex(
+                doc(1L, "判断推理技巧", "图形推理"),
+                doc(2L, "言语理解", "逻辑填空"),
+                doc(3L, "判断推理真题", "逻辑判断"));
+
+        assertEquals(List.of(3L, 1L), index.search("判断推理", null, USER));
+        assertEquals(List.of(3L), index.search("推理 逻辑", null, USER));
+        assertEquals(List.of(), index.search("推理 资料分析", null, USER));
+    }
+
+    @Test
+    void wordsMatchByPrefix() {
+        KnowledgeSearchIndex index = readyIndex(
+                doc(1L, "Java 并发", "virtual threads"),
+                doc(2L, "JavaScript 闭包", "closures"),
+                doc(3L, "Python", "generators"));
+
+        assertEquals(List.of(2L, 1L), index.search("jav", null, USER));
+        assertEquals(List.of(1L), index.search("virt", null, USER));
+    }
+
+    @Test
+    void resultsAreFilteredByUserAndCategory() {
+        KnowledgeSearchIndex index = readyIndex(
+                doc(1L, "申论范文", ""),
+                new KnowledgeSearchIndex.Document(2L, "bob", "申论", "申论范文", "", List.of()));
+
+        assertEquals(List.of(1L), index.search("申论", null, USER));
+        assertEquals(List.of(1L), index.search("申论", "SHENLUN", USER));
+        assertEquals(List.of(), index.search("申论", "xingce", USER));
+    }
+
+    @Test
+    void changesDuringRebuildAreReplayed() {
+        KnowledgeSearchIndex index = readyIndex(doc(1L, "数量关系", ""));
+
+        KnowledgeSearchIndex.Rebuild rebuild = index.startRebuild();
+        rebuild.add(doc(1L, "数量关系", ""));
+        rebuild.add(doc(2L, "资料分析", ""));
+        index.index(doc(3L, "数量关系", "")); // 重建快照之后新增
+        index.remove(2L);                  // 重建快照之后删除
+        index.finishRebuild(rebuild);
+
+        assertEquals(List.of(3L, 1L), index.search("数量", null, USER));
+        assertEquals(List.of(), index.search("资料", null, USER));
+    }
+
+    private static KnowledgeSearchIndex readyIndex(KnowledgeSearchIndex.Document... docs) {
+        KnowledgeSearchIndex index = new KnowledgeSearchIndex();
+        KnowledgeSearchIndex.Rebuild rebuild = index.startRebuild();
+        for (KnowledgeSearchIndex.Document doc : docs) {
+            rebuild.add(doc);
+        }
+        index.finishRebuild(rebuild);
+        return index;
+    }
+
+    private static KnowledgeSearchIndex.Document doc(Long id, String title, String content) {
+        return new KnowledgeSearchIndex.Document(id, USER, "shenlun", title, content, List.of());
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.gwy_backend.service.impl;
+
+import com.example.gwy_backend.dto.UploadSessionRequest;
+import com.example.gwy_backend.dto.UploadSessionStatus;
+import com.example.gwy_backend.service.UploadSessionService;
+import com.example.gwy_backend.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadSessionServiceImplTest {
+
+    private static final int CHUNK_SIZE = 256 * 1024; // 允许的最小分片
+    private static final String USER = "alice";
+
+    @TempDir
+    Path uploadDir;
+
+    private UploadSessionServiceImpl service;
+    private UserContext.Scope user;
+
+    @BeforeEach
+    void setUp() {
+        user = UserContext.bind(USER);
+        service = new UploadSessionServiceImpl();
+        ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofMegabytes(64));
+        ReflectionTestUtils.setField(service, "defaultChunkSize", DataSize.ofBytes(CHUNK_SIZE));
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "maxActiveSessions", 4);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        user.close();
+    }
+
+    @Test
+    void failedRetryOfReceivedChunkMarksItMissingAgain() throws Exception {
+        byte[] content = randomBytes(CHUNK_SIZE * 2);
+        String uploadId = service.createSession(request(content.length)).uploadId();
+        writeChunk(uploadId, content, 0);
+        writeChunk(uploadId, content, 1);
+
+        byte[] corrupted = chunk(content, 0);
+        corrupted[10] ^= 0x7f;
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(uploadId, 0, CHUNK_SIZE,
+                sha256(chunk(content, 0)), new ByteArrayInputStream(corrupted)));
+
+        UploadSessionStatus status = service.getStatus(uploadId).orElseThrow();
+        assertEquals(List.of(0), status.missingChunks());
+        assertThrows(IllegalStateException.class, () -> service.complete(uploadId));
+
+        writeChunk(uploadId, content, 0);
+        UploadSessionService.CompletedUpload completed = service.complete(uploadId).orElseThrow();
+        assertArrayEquals(content, Files.readAllBytes(completed.file()));
+    }
+
+    @Test
+    void truncatedRetryOfReceivedChunkMarksItMissingAgain() throws Exception {
+        byte[] content = randomBytes(CHUNK_SIZE);
+        String uploadId = service.createSession(request(content.length)).uploadId();
+        writeChunk(uploadId, content, 0);
+
+        byte[] truncated = new byte[CHUNK_SIZE / 2];
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(uploadId, 0, CHUNK_SIZE,
+                sha256(content), new ByteArrayInputStream(truncated)));
+
+        assertEquals(0, service.getStatus(uploadId).orElseThrow().receivedChunks());
+    }
+
+    @Test
+    void concurrentChunksAssembleCompleteFile() throws Exception {
+        int chunks = 16;
+        byte[] content = randomBytes(CHUNK_SIZE * chunks - 1000); // 最后一片不满
+        String uploadId = service.createSession(request(content.length)).uploadId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = chunks - 1; i >= 0; i--) { // 乱序
+                int index = i;
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    UserContext.runAs(USER, () -> writeChunk(uploadId, content, index));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(service.getStatus(uploadId).orElseThrow().isComplete());
+        UploadSessionService.CompletedUpload completed = service.complete(uploadId).orElseThrow();
+        assertArrayEquals(content, Files.readAllBytes(completed.file()));
+    }
+
+    @Test
+    void concurrentCreatesNeverExceedSessionCap() throws Exception {
+        int attempts = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        int created = 0;
+        int rejected = 0;
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> creates = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                creates.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        UserContext.callAs(USER, () -> service.createSession(request(CHUNK_SIZE)));
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> create : creates) {
+                if (create.get(30, TimeUnit.SECONDS)) {
+                    created++;
+                } else {
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4, created);
+        assertEquals(attempts - 4, rejected);
+    }
+
+    @Test
+    void finishedSessionsReleaseTheirSlot() throws Exception {
+        List<String> uploadIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            uploadIds.add(service.createSession(request(CHUNK_SIZE)).uploadId());
+        }
+        assertThrows(IllegalStateException.class, () -> service.createSession(request(CHUNK_SIZE)));
+
+        assertTrue(service.abort(uploadIds.get(0)));
+        assertFalse(service.abort(uploadIds.get(0))); // 重复放弃不会多释放名额
+        byte[] content = randomBytes(CHUNK_SIZE);
+        writeChunk(uploadIds.get(1), content, 0);
+        service.complete(uploadIds.get(1)).orElseThrow();
+
+        service.createSession(request(CHUNK_SIZE));
+        service.createSession(request(CHUNK_SIZE));
+        assertThrows(IllegalStateException.class, () -> service.createSession(request(CHUNK_SIZE)));
+    }
+
+    @Test
+    void sessionsAreInvisibleToOtherUsers() {
+        byte[] content = randomBytes(CHUNK_SIZE);
+        String uploadId = service.createSession(request(content.length)).uploadId();
+
+        UserContext.runAs("mallory", () -> {
+            assertTrue(service.getStatus(uploadId).isEmpty());
+            assertTrue(service.writeChunk(uploadId, 0, CHUNK_SIZE, sha256(content), new ByteArrayInputStream(content)).isEmpty());
+            assertTrue(service.complete(uploadId).isEmpty());
+            assertFalse(service.abort(uploadId));
+        });
+
+        assertEquals(0, service.getStatus(uploadId).orElseThrow().receivedChunks());
+        writeChunk(uploadId, content, 0);
+        assertTrue(service.complete(uploadId).isPresent());
+    }
+
+    @Test
+    void chunkOfUnknownLengthIsReadToEndOfBody() throws Exception {
+        byte[] content = randomBytes(CHUNK_SIZE + 1000);
+        String uploadId = service.createSession(request(content.length)).uploadId();
+        byte[] first = chunk(content, 0);
+        byte[] last = chunk(content, 1);
+
+        byte[] tooLong = new byte[last.length + 1];
+        System.arraycopy(last, 0, tooLong, 0, last.length);
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(uploadId, CHUNK_SIZE, -1,
+                sha256(last), new ByteArrayInputStream(tooLong)));
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(uploadId, 0, -1,
+                sha256(first), new ByteArrayInputStream(last)));
+
+        service.writeChunk(uploadId, 0, -1, sha256(first), new ByteArrayInputStream(first)).orElseThrow();
+        service.writeChunk(uploadId, CHUNK_SIZE, -1, sha256(last), new ByteArrayInputStream(last)).orElseThrow();
+        UploadSessionService.CompletedUpload completed = service.complete(uploadId).orElseThrow();
+        assertArrayEquals(content, Files.readAllBytes(completed.file()));
+    }
+
+    private void writeChunk(String uploadId, byte[] content, int index) {
+        byte[] chunk = chunk(content, index);
+        service.writeChunk(uploadId, (long) index * CHUNK_SIZE, chunk.length, sha256(chunk), new ByteArrayInputStream(chunk))
+                .orElseThrow();
+    }
+
+    private static byte[] chunk(byte[] content, int index) {
+        int from = index * CHUNK_SIZE;
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, content.length - from)];
+        System.arraycopy(content, from, chunk, 0, chunk.length);
+        return chunk;
+    }
+
+    private static UploadSessionRequest request(long size) {
+        return new UploadSessionRequest("notes.pdf", size, "knowledge", 1L, CHUNK_SIZE);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.gwy_backend.util;
+
+import com.example.gwy_backend.entity.ErrorLogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    @Test
+    void correctAnswersGrowIntervalBySm2Steps() {
+        ErrorLogEntry entry = new ErrorLogEntry();
+
+        ReviewScheduler.review(entry, 5, NOW);
+        assertEquals(1, entry.getIntervalDays());
+        assertEquals(2.6, entry.getEaseFactor(), 1e-9);
+        ReviewScheduler.review(entry, 5, NOW);
+        assertEquals(6, entry.getIntervalDays());
+        assertEquals(2.7, entry.getEaseFactor(), 1e-9);
+        ReviewScheduler.review(entry, 5, NOW);
+        assertEquals(16, entry.getIntervalDays()); // round(6 * 2.7)
+        assertEquals(3, entry.getRepetitions());
+        assertEquals(3, entry.getReviewCount());
+        assertEquals(NOW.plusDays(16), entry.getNextReviewAt());
+        assertEquals(NOW, entry.getLastReviewDate());
+    }
+
+    @Test
+    void wrongAnswerResetsRepetitions() {
+        ErrorLogEntry entry = entry(2.5, 3, 16);
+
+        ReviewScheduler.review(entry, 2, NOW);
+
+        assertEquals(0, entry.getRepetitions());
+        assertEquals(1, entry.getIntervalDays());
+        assertEquals(2.18, entry.getEaseFactor(), 1e-9); // 2.5 + 0.1 - 3 * (0.08 + 3 * 0.02)
+        assertEquals(NOW.plusDays(1), entry.getNextReviewAt());
+    }
+
+    @Test
+    void easeFactorNeverDropsBelowFloor() {
+        ErrorLogEntry entry = entry(1.3, 0, 0);
+
+        ReviewScheduler.review(entry, 0, NOW);
+
+        assertEquals(1.3, entry.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    void intervalIsCappedAtOneYear() {
+        ErrorLogEntry entry = entry(2.5, 5, 300);
+
+        ReviewScheduler.review(entry, 4, NOW);
+
+        assertEquals(365, entry.getIntervalDays());
+        assertEquals(NOW.plusDays(365), entry.getNextReviewAt());
+    }
+
+    @Test
+    void legacyZeroEaseFactorStartsFromInitialValue() {
+        ErrorLogEntry entry = entry(0, 2, 6); // 升级前的数据没有难度系数
+
+        ReviewScheduler.review(entry, 4, NOW);
+
+        assertEquals(15, entry.getIntervalDays()); // round(6 * 2.5)
+        assertEquals(ErrorLogEntry.INITIAL_EASE_FACTOR, entry.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    void qualityOutOfRangeIsRejected() {
+        ErrorLogEntry entry = new ErrorLogEntry();
+        assertThrows(IllegalArgumentException.class, () -> ReviewScheduler.review(entry, 6, NOW));
+        assertThrows(IllegalArgumentException.class, () -> ReviewScheduler.review(entry, -1, NOW));
+        assertEquals(0, entry.getReviewCount());
+    }
+
+    private static ErrorLogEntry entry(double easeFactor, int repetitions, int intervalDays) {
+        ErrorLogEntry entry = new ErrorLogEntry();
+        entry.setEaseFactor(easeFactor);
+        entry.setRepetitions(repetitions);
+        entry.setIntervalDays(intervalDays);
+        return entry;
+    }
+}
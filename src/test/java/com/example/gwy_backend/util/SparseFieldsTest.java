@@ -0,0 +1,26 @@
+package com.example.gwy_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SparseFieldsTest {
+
+    private static final List<String> ALLOWED = List.of("title", "category", "content");
+
+    @Test
+    void sortKeysComeFirstAndDuplicatesAreDropped() {
+        assertEquals(List.of("id", "timestamp", "category", "title"),
+                SparseFields.parse(" category,title,,category", ALLOWED));
+        assertEquals(List.of("id", "timestamp"), SparseFields.parse(null, ALLOWED));
+    }
+
+    @Test
+    void fieldsOutsideWhitelistAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SparseFields.parse("title,userId", ALLOWED));
+        assertThrows(IllegalArgumentException.class, () -> SparseFields.parse("Title", ALLOWED));
+    }
+}